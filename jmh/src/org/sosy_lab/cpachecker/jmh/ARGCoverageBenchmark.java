@@ -0,0 +1,125 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.WrapperCPA;
+import org.sosy_lab.cpachecker.cpa.arg.ARGCPA;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.CPAs;
+
+/**
+ * Measures the merge and stop operators that are applied during the construction of an ARG
+ * for all pairs of states that the reached set would compare.
+ *
+ * <p>The operators of {@link ARGCPA} itself modify the ARG (e.g., by marking states as covered),
+ * so this benchmark applies the operators of the CPA wrapped by {@link ARGCPA} to the wrapped
+ * states, which is where the actual work happens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ARGCoverageBenchmark {
+
+  @Param("config/valueAnalysis.properties")
+  public String config;
+
+  @Param("test/programs/eca/Problem1.c")
+  public String program;
+
+  /** Maximal number of states from the reached set that each state is compared with. */
+  @Param("100")
+  public int maxPartners;
+
+  private MergeOperator merge;
+  private StopOperator stop;
+
+  private final List<AbstractState> states = new ArrayList<>();
+  private final List<AbstractState> partners = new ArrayList<>();
+  private final List<Precision> precisions = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run = AnalysisRun.of(config, program);
+    ARGCPA argCpa = CPAs.retrieveCPAOrFail(run.getCpa(), ARGCPA.class, getClass());
+    ConfigurableProgramAnalysis wrappedCpa =
+        getOnlyElement(((WrapperCPA) argCpa).getWrappedCPAs());
+    merge = wrappedCpa.getMergeOperator();
+    stop = wrappedCpa.getStopOperator();
+
+    for (AbstractState state : run.getReached()) {
+      Precision precision = run.getReached().getPrecision(state);
+      int count = 0;
+      for (AbstractState partner : run.getReached().getReached(state)) {
+        if (partner == state || count >= maxPartners) {
+          continue;
+        }
+        states.add(((ARGState) state).getWrappedState());
+        partners.add(((ARGState) partner).getWrappedState());
+        precisions.add(precision);
+        count++;
+      }
+    }
+  }
+
+  @Benchmark
+  public void merge(Blackhole bh) throws Exception {
+    for (int i = 0; i < states.size(); i++) {
+      bh.consume(merge.merge(states.get(i), partners.get(i), precisions.get(i)));
+    }
+  }
+
+  @Benchmark
+  public void stop(Blackhole bh) throws Exception {
+    for (int i = 0; i < states.size(); i++) {
+      bh.consume(
+          stop.stop(states.get(i), Collections.singleton(partners.get(i)), precisions.get(i)));
+    }
+  }
+}
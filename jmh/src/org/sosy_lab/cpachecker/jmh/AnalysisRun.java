@@ -0,0 +1,108 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * The result of a complete analysis of a program,
+ * used as fixture for benchmarking single operations of a CPA.
+ */
+final class AnalysisRun {
+
+  private final ConfigurableProgramAnalysis cpa;
+  private final UnmodifiableReachedSet reached;
+  private final CFA cfa;
+
+  private AnalysisRun(
+      ConfigurableProgramAnalysis pCpa, UnmodifiableReachedSet pReached, CFA pCfa) {
+    cpa = pCpa;
+    reached = pReached;
+    cfa = pCfa;
+  }
+
+  /**
+   * Run CPAchecker with the given configuration file on the given program.
+   *
+   * @param configFile path to a configuration file, relative to the CPAchecker directory
+   * @param programFile path to the program, relative to the CPAchecker directory
+   */
+  static AnalysisRun of(String configFile, String programFile) throws Exception {
+    return of(configFile, programFile, ImmutableMap.of());
+  }
+
+  /**
+   * Run CPAchecker with the given configuration file and additional options
+   * on the given program.
+   */
+  static AnalysisRun of(String configFile, String programFile, Map<String, String> options)
+      throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile(configFile)
+            .setOptions(options)
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    CPAchecker cpachecker = new CPAchecker(config, logger, ShutdownManager.create());
+    CPAcheckerResult result = cpachecker.run(ImmutableList.of(programFile), ImmutableSet.of());
+
+    checkState(
+        result.getReached() != null && result.getCfa() != null,
+        "Analysis of %s with %s failed",
+        programFile,
+        configFile);
+    ConfigurableProgramAnalysis cpa =
+        GlobalInfo.getInstance()
+            .getCPA()
+            .orElseThrow(() -> new IllegalStateException("No CPA was created"));
+    return new AnalysisRun(cpa, result.getReached(), result.getCfa());
+  }
+
+  ConfigurableProgramAnalysis getCpa() {
+    return cpa;
+  }
+
+  UnmodifiableReachedSet getReached() {
+    return reached;
+  }
+
+  CFA getCfa() {
+    return cfa;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.blocks.BlockPartitioning;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.cpa.bam.AbstractBAMCPA;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
+
+/**
+ * Measures lookups in the {@link BAMCache} for the initial states and precisions of all block
+ * analyses that were cached during a BAM analysis (i.e., lookups that all hit).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BAMCacheBenchmark {
+
+  @Param("config/valueAnalysis-bam.properties")
+  public String config;
+
+  @Param("test/programs/bam/ncpfs_fragments.c")
+  public String program;
+
+  private BAMCache cache;
+
+  private final List<AbstractState> states = new ArrayList<>();
+  private final List<Precision> precisions = new ArrayList<>();
+  private final List<Block> blocks = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run = AnalysisRun.of(config, program);
+    AbstractBAMCPA bamCpa = CPAs.retrieveCPAOrFail(run.getCpa(), AbstractBAMCPA.class, getClass());
+    cache = bamCpa.getData().getCache();
+    BlockPartitioning partitioning = bamCpa.getBlockPartitioning();
+
+    for (ReachedSet rs : cache.getAllCachedReachedStates()) {
+      AbstractState first = rs.getFirstState();
+      states.add(first);
+      precisions.add(rs.getPrecision(first));
+      blocks.add(partitioning.getBlockForCallNode(AbstractStates.extractLocation(first)));
+    }
+  }
+
+  @Benchmark
+  public void get(Blackhole bh) {
+    for (int i = 0; i < states.size(); i++) {
+      bh.consume(cache.get(states.get(i), precisions.get(i), blocks.get(i)));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateCPA;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+
+/**
+ * Measures {@link PathFormulaManagerImpl#makeAnd(PathFormula, CFAEdge)} for all edges of a CFA,
+ * each starting from the empty path formula.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PathFormulaManagerBenchmark {
+
+  @Param("config/predicateAnalysis.properties")
+  public String config;
+
+  @Param("test/programs/bam/BAM-double-alloc-test.c")
+  public String program;
+
+  private PathFormulaManager pfmgr;
+  private PathFormula emptyFormula;
+  private ImmutableList<CFAEdge> edges;
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run = AnalysisRun.of(config, program);
+    pfmgr =
+        CPAs.retrieveCPAOrFail(run.getCpa(), PredicateCPA.class, getClass())
+            .getPathFormulaManager();
+    if (pfmgr instanceof CachingPathFormulaManager) {
+      // measure the formula construction, not the cache
+      pfmgr = ((CachingPathFormulaManager) pfmgr).delegate;
+    }
+    emptyFormula = pfmgr.makeEmptyPathFormula();
+
+    ImmutableList.Builder<CFAEdge> builder = ImmutableList.builder();
+    for (CFANode node : run.getCfa().getAllNodes()) {
+      builder.addAll(CFAUtils.leavingEdges(node));
+    }
+    edges = builder.build();
+  }
+
+  @Benchmark
+  public void makeAnd(Blackhole bh) throws Exception {
+    for (CFAEdge edge : edges) {
+      bh.consume(pfmgr.makeAnd(emptyFormula, edge));
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractionManager;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateCPA;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicatePrecision;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.Precisions;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionFormula;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+
+/**
+ * Measures the computation of predicate abstractions for the block formulas
+ * of all abstraction states in the final reached set of a predicate analysis,
+ * using the predicates of the final precision.
+ * The abstraction cache is disabled such that the solver is actually queried.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PredicateAbstractionBenchmark {
+
+  @Param("config/predicateAnalysis.properties")
+  public String config;
+
+  @Param("test/programs/bam/BAM-double-alloc-test.c")
+  public String program;
+
+  private PredicateAbstractionManager pamgr;
+  private AbstractionFormula trueAbstraction;
+
+  private final List<CFANode> locations = new ArrayList<>();
+  private final List<PathFormula> blockFormulas = new ArrayList<>();
+  private final List<Collection<AbstractionPredicate>> predicates = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run =
+        AnalysisRun.of(config, program, ImmutableMap.of("cpa.predicate.abs.useCache", "false"));
+    pamgr =
+        CPAs.retrieveCPAOrFail(run.getCpa(), PredicateCPA.class, getClass())
+            .getPredicateManager();
+    trueAbstraction = pamgr.makeTrueAbstractionFormula(null);
+
+    for (AbstractState state : run.getReached()) {
+      PredicateAbstractState predicateState =
+          AbstractStates.extractStateByType(state, PredicateAbstractState.class);
+      if (predicateState == null || !predicateState.isAbstractionState()) {
+        continue;
+      }
+      CFANode location = AbstractStates.extractLocation(state);
+      PredicatePrecision precision =
+          Precisions.extractPrecisionByType(
+              run.getReached().getPrecision(state), PredicatePrecision.class);
+      locations.add(location);
+      blockFormulas.add(predicateState.getAbstractionFormula().getBlockFormula());
+      predicates.add(precision.getPredicates(location, 0));
+    }
+  }
+
+  @Benchmark
+  public void buildAbstraction(Blackhole bh) throws Exception {
+    for (int i = 0; i < locations.size(); i++) {
+      bh.consume(
+          pamgr.buildAbstraction(
+              locations.get(i),
+              Optional.empty(),
+              trueAbstraction,
+              blockFormulas.get(i),
+              predicates.get(i)));
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.smg.SMGState;
+import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/** Measures {@link SMGJoin} for all pairs of SMG states at the same location. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SMGJoinBenchmark {
+
+  @Param("config/smg.properties")
+  public String config;
+
+  @Param("test/programs/smgListAbstraction/sll/sll_2+_append_true-valid-memsafety.c")
+  public String program;
+
+  /** Maximal number of state pairs per location, to keep the run time of one iteration low. */
+  @Param("100")
+  public int maxPairsPerLocation;
+
+  private final List<SMGState> left = new ArrayList<>();
+  private final List<SMGState> right = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run = AnalysisRun.of(config, program);
+    for (CFANode location : run.getCfa().getAllNodes()) {
+      List<SMGState> states = new ArrayList<>();
+      for (AbstractState state : run.getReached().getReached(location)) {
+        SMGState smgState = AbstractStates.extractStateByType(state, SMGState.class);
+        if (smgState != null) {
+          states.add(smgState);
+        }
+      }
+      addPairs(ImmutableList.copyOf(states));
+    }
+  }
+
+  private void addPairs(List<SMGState> states) {
+    int pairs = 0;
+    for (int i = 0; i < states.size(); i++) {
+      for (int j = i + 1; j < states.size() && pairs < maxPairsPerLocation; j++) {
+        left.add(states.get(i));
+        right.add(states.get(j));
+        pairs++;
+      }
+    }
+  }
+
+  @Benchmark
+  public void join(Blackhole bh) throws Exception {
+    for (int i = 0; i < left.size(); i++) {
+      SMGState s1 = left.get(i);
+      SMGState s2 = right.get(i);
+      bh.consume(new SMGJoin(s1.getHeap(), s2.getHeap(), s1, s2).getStatus());
+    }
+  }
+}
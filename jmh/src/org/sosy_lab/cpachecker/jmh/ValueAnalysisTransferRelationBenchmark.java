@@ -0,0 +1,105 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.core.defaults.precision.VariableTrackingPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisCPA;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisTransferRelation;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.Precisions;
+
+/**
+ * Measures {@link ValueAnalysisTransferRelation} for all edges leaving the states of a reached
+ * set computed by value analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ValueAnalysisTransferRelationBenchmark {
+
+  @Param("config/valueAnalysis.properties")
+  public String config;
+
+  @Param("test/programs/eca/Problem1.c")
+  public String program;
+
+  private ValueAnalysisTransferRelation transferRelation;
+
+  private final List<ValueAnalysisState> states = new ArrayList<>();
+  private final List<VariableTrackingPrecision> precisions = new ArrayList<>();
+  private final List<CFAEdge> edges = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    AnalysisRun run = AnalysisRun.of(config, program);
+    transferRelation =
+        CPAs.retrieveCPAOrFail(run.getCpa(), ValueAnalysisCPA.class, getClass())
+            .getTransferRelation();
+
+    for (AbstractState state : run.getReached()) {
+      ValueAnalysisState valueState =
+          AbstractStates.extractStateByType(state, ValueAnalysisState.class);
+      VariableTrackingPrecision precision =
+          Precisions.extractPrecisionByType(
+              run.getReached().getPrecision(state), VariableTrackingPrecision.class);
+      for (CFAEdge edge : CFAUtils.leavingEdges(AbstractStates.extractLocation(state))) {
+        states.add(valueState);
+        precisions.add(precision);
+        edges.add(edge);
+      }
+    }
+  }
+
+  @Benchmark
+  public void successors(Blackhole bh) throws Exception {
+    for (int i = 0; i < edges.size(); i++) {
+      bh.consume(
+          transferRelation.getAbstractSuccessorsForEdge(
+              states.get(i), precisions.get(i), edges.get(i)));
+    }
+  }
+}
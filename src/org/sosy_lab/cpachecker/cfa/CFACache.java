@@ -0,0 +1,209 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+
+/**
+ * On-disk cache of fully created CFAs (including loop structure, variable classification,
+ * live variables, and dependence graph), such that repeated analyses of the same program
+ * do not need to parse and post-process it again.
+ *
+ * <p>Each CFA is stored as a separate file in the cache directory, named after a hash of the
+ * content of the program files, the CPAchecker version, and all options that influence the
+ * creation of the CFA. Thus analyses of the same program with different specifications or
+ * analysis configurations share the cache entry. Entries are written into temporary files
+ * that are atomically moved into place, so several concurrent CPAchecker instances can use the
+ * same cache directory.
+ */
+@Options(prefix = "cfa.cache")
+final class CFACache {
+
+  /**
+   * Prefixes of all options that may influence the CFA. Options of analyses, specifications, and
+   * output are irrelevant and ignored for the key.
+   */
+  private static final ImmutableList<String> RELEVANT_OPTION_PREFIXES =
+      ImmutableList.of(
+          "analysis.entryFunction",
+          "analysis.functionPointerCalls",
+          "analysis.interprocedural",
+          "analysis.machineModel",
+          "analysis.threadOperationsTransform",
+          "analysis.useGlobalVars",
+          "analysis.useLoopStructure",
+          "cfa.",
+          "language",
+          "liveVar.",
+          "parser.",
+          "variableClassification.");
+
+  private static final String FILE_SUFFIX = ".cfa.ser.gz";
+
+  @Option(
+    description =
+        "Directory for caching created CFAs across runs of CPAchecker on the same program"
+            + " (disabled if not set). The program files (but not included headers)"
+            + " and the options relevant for CFA creation are used as cache key."
+            + " The files in this directory are deserialized, so it should not be writable"
+            + " by others."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path directory = null;
+
+  private final LogManager logger;
+  private final String relevantOptions;
+
+  final Timer loadTime = new Timer();
+  final Timer storeTime = new Timer();
+  boolean hit = false;
+
+  CFACache(Configuration pConfig, LogManager pLogger) throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = pLogger;
+
+    StringBuilder options = new StringBuilder();
+    for (String line : Splitter.on('\n').split(pConfig.asPropertiesString())) {
+      if (isRelevantOption(line)) {
+        options.append(line).append('\n');
+      }
+    }
+    relevantOptions = options.toString();
+  }
+
+  private static boolean isRelevantOption(String line) {
+    if (line.startsWith("cfa.cache.")) {
+      return false;
+    }
+    return RELEVANT_OPTION_PREFIXES.stream().anyMatch(line::startsWith);
+  }
+
+  boolean isEnabled() {
+    return directory != null;
+  }
+
+  /** Compute the cache key for a program given as list of files. */
+  HashCode computeKey(List<String> pSourceFiles) throws IOException {
+    Hasher hasher = newHasher();
+    for (String sourceFile : pSourceFiles) {
+      hasher.putString(sourceFile, StandardCharsets.UTF_8);
+      hasher.putBytes(Files.readAllBytes(Paths.get(sourceFile)));
+    }
+    return hasher.hash();
+  }
+
+  /** Compute the cache key for a program given as string. */
+  HashCode computeKey(String pProgram) {
+    return newHasher().putString(pProgram, StandardCharsets.UTF_8).hash();
+  }
+
+  private Hasher newHasher() {
+    return Hashing.sha256()
+        .newHasher()
+        .putString(CPAchecker.getCPAcheckerVersion(), StandardCharsets.UTF_8)
+        .putString(relevantOptions, StandardCharsets.UTF_8);
+  }
+
+  private Path getCacheFile(HashCode pKey) {
+    return directory.resolve(pKey + FILE_SUFFIX);
+  }
+
+  /** Load the CFA for the given key, if present in the cache. */
+  Optional<CFA> load(HashCode pKey) {
+    Path file = getCacheFile(pKey);
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+
+    loadTime.start();
+    try (InputStream inputStream = Files.newInputStream(file);
+        InputStream gzipInputStream = new GZIPInputStream(inputStream);
+        ObjectInputStream ois = new ObjectInputStream(gzipInputStream)) {
+      CFA cfa = (CFA) ois.readObject();
+      hit = true;
+      logger.log(Level.FINE, "Loaded CFA from cache file", file);
+      return Optional.of(cfa);
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not read CFA from cache, creating it from scratch");
+      return Optional.empty();
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /** Store the CFA under the given key, replacing an existing entry. */
+  void store(HashCode pKey, CFA pCfa) {
+    Path file = getCacheFile(pKey);
+    storeTime.start();
+    try {
+      Files.createDirectories(directory);
+      Path tmpFile = Files.createTempFile(directory, pKey.toString(), ".tmp");
+      try {
+        try (OutputStream outputStream = Files.newOutputStream(tmpFile);
+            OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+            ObjectOutputStream oos = new ObjectOutputStream(gzipOutputStream)) {
+          oos.writeObject(pCfa);
+        }
+        Files.move(
+            tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      logger.log(Level.FINE, "Stored CFA in cache file", file);
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not store CFA in cache");
+    } finally {
+      storeTime.stop();
+    }
+  }
+}
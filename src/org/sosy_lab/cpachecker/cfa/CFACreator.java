@@ -24,8 +24,12 @@
 package org.sosy_lab.cpachecker.cfa;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -33,6 +37,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -43,12 +48,18 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.GZIPOutputStream;
 import org.sosy_lab.common.Concurrency;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -108,6 +119,7 @@ import org.sosy_lab.cpachecker.util.LoopStructure;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.dependencegraph.DependenceGraph;
 import org.sosy_lab.cpachecker.util.dependencegraph.DependenceGraphBuilder;
+import org.sosy_lab.cpachecker.util.incremental.CFAFingerprint;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassificationBuilder;
@@ -189,6 +201,23 @@ public class CFACreator {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path exportCfaFile = Paths.get("cfa.dot");
 
+  @Option(
+    secure = true,
+    name = "cfa.fingerprint.export",
+    description =
+        "export a structural fingerprint of all functions, which allows to reuse precisions"
+            + " for a later revision of the program (cf. option incremental.previousFingerprint)"
+  )
+  private boolean exportFingerprint = false;
+
+  @Option(
+    secure = true,
+    name = "cfa.fingerprint.file",
+    description = "file for exporting the structural fingerprint of all functions"
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path exportFingerprintFile = Paths.get("cfaFingerprint.txt");
+
   @Option(
     secure = true,
     name = "cfa.serialize",
@@ -262,6 +291,17 @@ public class CFACreator {
   )
   private boolean createDependenceGraph = false;
 
+  @Option(
+    secure = true,
+    name = "cfa.postProcessingThreads",
+    description =
+        "Number of threads for the post-processing steps that handle each function separately"
+            + " and do not create new CFA nodes (simplification, reverse postorder, loop"
+            + " structure). The resulting CFA is the same for every number of threads."
+  )
+  @IntegerOption(min = 1)
+  private int postProcessingThreads = 1;
+
   @Option(secure=true, name="cfa.classifyNodes",
       description="This option enables the computation of a classification of CFA nodes.")
 private boolean classifyNodes = false;
@@ -284,9 +324,11 @@ private boolean classifyNodes = false;
     private final Timer exportTime = new Timer();
     private final List<Statistics> statisticsCollection;
     private final LogManager logger;
+    private final CFACache cache;
 
-    private CFACreatorStatistics(LogManager pLogger) {
+    private CFACreatorStatistics(LogManager pLogger, CFACache pCache) {
       logger = pLogger;
+      cache = pCache;
       statisticsCollection = new ArrayList<>();
     }
 
@@ -307,6 +349,15 @@ private boolean classifyNodes = false;
       if (exportTime.getNumberOfIntervals() > 0) {
         out.println("    Time for CFA export:      " + exportTime);
       }
+      if (cache.isEnabled()) {
+        out.println("    CFA loaded from cache:    " + (cache.hit ? "yes" : "no"));
+        if (cache.loadTime.getNumberOfIntervals() > 0) {
+          out.println("    Time for loading CFA:     " + cache.loadTime);
+        }
+        if (cache.storeTime.getNumberOfIntervals() > 0) {
+          out.println("    Time for storing CFA:     " + cache.storeTime);
+        }
+      }
 
       for (Statistics st : statisticsCollection) {
         StatisticsUtils.printStatistics(st, out, logger, pResult, pReached);
@@ -323,6 +374,7 @@ private boolean classifyNodes = false;
 
   private final CFACreatorStatistics stats;
   private final Configuration config;
+  private final CFACache cache;
 
   public CFACreator(Configuration config, LogManager logger, ShutdownNotifier pShutdownNotifier)
       throws InvalidConfigurationException {
@@ -332,7 +384,8 @@ private boolean classifyNodes = false;
     this.config = config;
     this.logger = logger;
     this.shutdownNotifier = pShutdownNotifier;
-    this.stats = new CFACreatorStatistics(logger);
+    this.cache = new CFACache(config, logger);
+    this.stats = new CFACreatorStatistics(logger, cache);
 
     stats.parserInstantiationTime.start();
 
@@ -384,12 +437,24 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      HashCode cacheKey = null;
+      if (cache.isEnabled()) {
+        cacheKey = cache.computeKey(program);
+        Optional<CFA> cachedCfa = loadFromCache(cacheKey);
+        if (cachedCfa.isPresent()) {
+          return cachedCfa.get();
+        }
+      }
+
       ParseResult parseResult = parseToCFAs(program);
       FunctionEntryNode mainFunction = parseResult.getFunctions().get(mainFunctionName);
       assert mainFunction != null : "program lacks main function.";
 
       CFA cfa = createCFA(parseResult, mainFunction);
 
+      if (cacheKey != null) {
+        cache.store(cacheKey, cfa);
+      }
       return cfa;
     } finally {
       stats.totalTime.stop();
@@ -412,6 +477,15 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      HashCode cacheKey = null;
+      if (cache.isEnabled()) {
+        cacheKey = cache.computeKey(sourceFiles);
+        Optional<CFA> cachedCfa = loadFromCache(cacheKey);
+        if (cachedCfa.isPresent()) {
+          return cachedCfa.get();
+        }
+      }
+
       // FIRST, parse file(s) and create CFAs for each function
       logger.log(Level.FINE, "Starting parsing of file(s)");
 
@@ -432,14 +506,55 @@ private boolean classifyNodes = false;
         throw new AssertionError();
       }
 
-      return createCFA(c, mainFunction);
+      CFA cfa = createCFA(c, mainFunction);
+
+      if (cacheKey != null) {
+        cache.store(cacheKey, cfa);
+      }
+      return cfa;
 
     } finally {
       stats.totalTime.stop();
     }
   }
 
-  private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
+  /**
+   * Try to load the CFA from the cache, and export it as if it was created freshly.
+   */
+  private Optional<CFA> loadFromCache(HashCode pCacheKey) {
+    Optional<CFA> cfa = cache.load(pCacheKey);
+    if (cfa.isPresent()) {
+      logger.log(
+          Level.FINE, "Using cached CFA for", cfa.get().getNumberOfFunctions(), "functions.");
+      exportCFAIfRequested(cfa.get());
+    }
+    return cfa;
+  }
+
+  private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
+    ExecutorService executor;
+    if (postProcessingThreads > 1) {
+      executor =
+          Executors.newFixedThreadPool(
+              postProcessingThreads,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("CFACreator-worker-%d")
+                  .build());
+    } else {
+      executor = MoreExecutors.newDirectExecutorService();
+    }
+    try {
+      return createCFA(pParseResult, pMainFunction, executor);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private CFA createCFA(
+      ParseResult pParseResult, FunctionEntryNode pMainFunction, ExecutorService executor)
+      throws InvalidConfigurationException, InterruptedException, ParserException {
 
     FunctionEntryNode mainFunction = pMainFunction;
 
@@ -465,7 +580,7 @@ private boolean classifyNodes = false;
     // SECOND, do those post-processings that change the CFA by adding/removing nodes/edges
     stats.processingTime.start();
 
-    cfa = postProcessingOnMutableCFAs(cfa, pParseResult.getGlobalDeclarations());
+    cfa = postProcessingOnMutableCFAs(cfa, pParseResult.getGlobalDeclarations(), executor);
 
     // Check CFA again after post-processings
     stats.checkTime.start();
@@ -477,15 +592,28 @@ private boolean classifyNodes = false;
     // THIRD, do read-only post-processings on each single function CFA
 
     // Annotate CFA nodes with reverse postorder information for later use.
+    List<Callable<Void>> sortingTasks = new ArrayList<>();
     for (FunctionEntryNode function : cfa.getAllFunctionHeads()) {
-      CFAReversePostorder sorter = new CFAReversePostorder();
-      sorter.assignSorting(function);
+      sortingTasks.add(
+          () -> {
+            CFAReversePostorder sorter = new CFAReversePostorder();
+            sorter.assignSorting(function);
+            return null;
+          });
+    }
+    for (Future<Void> sorting : executor.invokeAll(sortingTasks)) {
+      try {
+        sorting.get();
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new AssertionError("Unexpected exception during sorting of CFA", e);
+      }
     }
 
     // get loop information
     // (needs post-order information)
     if (useLoopStructure) {
-      addLoopStructure(cfa);
+      addLoopStructure(cfa, executor);
     }
 
     // FOURTH, insert call and return edges and build the supergraph
@@ -556,12 +684,7 @@ private boolean classifyNodes = false;
     assert CFACheck.check(mainFunction, null);
     stats.checkTime.stop();
 
-    if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
-        || ((exportFunctionCallsFile != null) && exportFunctionCalls)
-        || ((serializeCfaFile != null) && serializeCfa)
-        || (exportCfaPixelFile != null)) {
-      exportCFAAsync(immutableCFA);
-    }
+    exportCFAIfRequested(immutableCFA);
 
     logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
 
@@ -636,12 +759,14 @@ private boolean classifyNodes = false;
    * @return either a modified old CFA or a complete new CFA
    */
   private MutableCFA postProcessingOnMutableCFAs(
-      MutableCFA cfa, final List<Pair<ADeclaration, String>> globalDeclarations)
-      throws InvalidConfigurationException, CParserException {
+      MutableCFA cfa,
+      final List<Pair<ADeclaration, String>> globalDeclarations,
+      ExecutorService executor)
+      throws InvalidConfigurationException, CParserException, InterruptedException {
 
     // remove all edges which don't have any effect on the program
     if (simplifyCfa) {
-      CFASimplifier.simplifyCFA(cfa);
+      CFASimplifier.simplifyCFA(cfa, executor);
     }
 
     if (moveDeclarationsToFunctionStart) {
@@ -802,9 +927,10 @@ private boolean classifyNodes = false;
     return mainFunction;
   }
 
-  private void addLoopStructure(MutableCFA cfa) {
+  private void addLoopStructure(MutableCFA cfa, ExecutorService executor)
+      throws InterruptedException {
     try {
-      cfa.setLoopStructure(LoopStructure.getLoopStructure(cfa));
+      cfa.setLoopStructure(LoopStructure.getLoopStructure(cfa, executor));
 
     } catch (ParserException e) {
       // don't abort here, because if the analysis doesn't need the loop information, we can continue
@@ -949,6 +1075,16 @@ v.addInitializer(initializer);
     }
   }
 
+  private void exportCFAIfRequested(final CFA cfa) {
+    if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
+        || ((exportFunctionCallsFile != null) && exportFunctionCalls)
+        || ((serializeCfaFile != null) && serializeCfa)
+        || ((exportFingerprintFile != null) && exportFingerprint)
+        || (exportCfaPixelFile != null)) {
+      exportCFAAsync(cfa);
+    }
+  }
+
   private void exportCFAAsync(final CFA cfa) {
     // Execute asynchronously, this may take several seconds for large programs on slow disks.
     // This is safe because we don't modify the CFA from this point on.
@@ -991,6 +1127,15 @@ v.addInitializer(initializer);
       }
     }
 
+    if (exportFingerprint && exportFingerprintFile != null) {
+      try (Writer w = IO.openOutputFile(exportFingerprintFile, StandardCharsets.UTF_8)) {
+        CFAFingerprint.of(cfa).write(w);
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write CFA fingerprint to file");
+        // continue with analysis
+      }
+    }
+
     if (exportCfaPixelFile != null) {
       try {
         new CFAToPixelsWriter(config).write(cfa.getMainFunction(), exportCfaPixelFile);
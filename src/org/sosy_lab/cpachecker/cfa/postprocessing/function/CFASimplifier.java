@@ -28,6 +28,8 @@ import static org.sosy_lab.cpachecker.util.CFAUtils.predecessorsOf;
 import static org.sosy_lab.cpachecker.util.CFAUtils.successorsOf;
 
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.sosy_lab.cpachecker.cfa.CFACreationUtils;
 import org.sosy_lab.cpachecker.cfa.MutableCFA;
@@ -45,6 +47,10 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 public class CFASimplifier {
@@ -58,8 +64,37 @@ public class CFASimplifier {
    * @param cfa The cfa which should be simplified
    */
   public static void simplifyCFA(MutableCFA cfa) {
+    try {
+      simplifyCFA(cfa, MoreExecutors.newDirectExecutorService());
+    } catch (InterruptedException e) {
+      throw new AssertionError("direct executor cannot be interrupted", e);
+    }
+  }
+
+  /**
+   * Simplify the cfa like {@link #simplifyCFA(MutableCFA)}, but handle the functions in parallel
+   * using the given executor. This is possible because the function CFAs are not yet connected
+   * at this point. Nodes are removed from the cfa afterwards in the same order as with
+   * sequential simplification.
+   *
+   * @param cfa The cfa which should be simplified
+   * @param executor The executor that handles the single functions
+   */
+  public static void simplifyCFA(MutableCFA cfa, ExecutorService executor)
+      throws InterruptedException {
+    List<Callable<List<CFANode>>> tasks = new ArrayList<>();
     for (CFANode root : cfa.getAllFunctionHeads()) {
-      simplifyFunction(root, cfa);
+      tasks.add(() -> simplifyFunction(root, cfa));
+    }
+
+    // invokeAll returns the futures in the order of the tasks and waits for all of them
+    for (Future<List<CFANode>> removedNodes : executor.invokeAll(tasks)) {
+      try {
+        removedNodes.get().forEach(cfa::removeNode);
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new AssertionError("Unexpected exception during CFA simplification", e);
+      }
     }
   }
 
@@ -69,8 +104,10 @@ public class CFASimplifier {
    *
    * @param root start node for simplification
    * @param cfa The cfa where the simplifications should be applied
+   * @return The nodes that are no longer part of the function
+   *     and need to be removed from the cfa by the caller.
    */
-  private static void simplifyFunction(final CFANode root, final MutableCFA cfa) {
+  private static List<CFANode> simplifyFunction(final CFANode root, final MutableCFA cfa) {
     // We want to eliminate branching with two empty branches (only blank edges).
     // Inner branches need to be eliminated first.
 
@@ -80,11 +117,13 @@ public class CFASimplifier {
         : "branchingPoints contains duplicate CFANode " + branchingPoints;
 
     // We need to simplify inner branches first, thus we iterate backwards through the queue.
+    final List<CFANode> removedNodes = new ArrayList<>();
     while (!branchingPoints.isEmpty()) {
       final CFANode branchingPoint = branchingPoints.pollLast();
 
-      simplifyBranching(branchingPoint, cfa);
+      simplifyBranching(branchingPoint, removedNodes);
     }
+    return removedNodes;
   }
 
   /**
@@ -184,9 +223,10 @@ public class CFASimplifier {
   /**
    * Simplify one branching in the CFA at the given node (if possible).
    * @param branchingPoint The root of the branching (needs to have 2 outgoing AssumeEdges).
-   * @param cfa the cfa which should be simplified
+   * @param removedNodes the list where nodes that should be removed from the cfa are added
    */
-  private static void simplifyBranching(final CFANode branchingPoint, final MutableCFA cfa) {
+  private static void simplifyBranching(
+      final CFANode branchingPoint, final List<CFANode> removedNodes) {
     CFANode leftEndpoint  = findEndOfBlankEdgeChain(branchingPoint.getLeavingEdge(0).getSuccessor());
     CFANode rightEndpoint = findEndOfBlankEdgeChain(branchingPoint.getLeavingEdge(1).getSuccessor());
 
@@ -203,7 +243,7 @@ public class CFASimplifier {
         removedFileLocations.add(leftEdge.getFileLocation());
         CFANode toRemove = leftEdge.getSuccessor();
         toRemove.removeEnteringEdge(leftEdge);
-        removeChainOfNodes(toRemove, endpoint, cfa, removedFileLocations);
+        removeChainOfNodes(toRemove, endpoint, removedNodes, removedFileLocations);
       }
       {
         branchingPoint.removeLeavingEdge(rightEdge);
@@ -211,13 +251,13 @@ public class CFASimplifier {
         removedFileLocations.add(rightEdge.getFileLocation());
         CFANode toRemove = rightEdge.getSuccessor();
         toRemove.removeEnteringEdge(rightEdge);
-        removeChainOfNodes(toRemove, endpoint, cfa, removedFileLocations);
+        removeChainOfNodes(toRemove, endpoint, removedNodes, removedFileLocations);
       }
 
       // Maybe there are more outgoing blank edges from the endpoint,
       // also remove them.
       final CFANode endpoint2 = findEndOfBlankEdgeChain(endpoint);
-      removeChainOfNodes(endpoint, endpoint2, cfa, removedFileLocations);
+      removeChainOfNodes(endpoint, endpoint2, removedNodes, removedFileLocations);
 
       CFAEdge blankEdge = new BlankEdge("skipped unnecessary edges",
           FileLocation.merge(removedFileLocations), branchingPoint, endpoint2, "skipped unnecessary edges");
@@ -241,7 +281,7 @@ public class CFASimplifier {
   }
 
   private static void removeChainOfNodes(final CFANode start, final CFANode endpoint,
-      final MutableCFA cfa, final List<FileLocation> removedFileLocations) {
+      final List<CFANode> removedNodes, final List<FileLocation> removedFileLocations) {
     CFANode toRemove = start;
 
     while (!toRemove.equals(endpoint)) {
@@ -253,7 +293,7 @@ public class CFASimplifier {
 
       CFAEdge leavingEdge = toRemove.getLeavingEdge(0);
       toRemove.removeLeavingEdge(leavingEdge);
-      cfa.removeNode(toRemove);
+      removedNodes.add(toRemove);
 
       CFANode nextNode = leavingEdge.getSuccessor();
       nextNode.removeEnteringEdge(leavingEdge);
@@ -0,0 +1,340 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ConcurrentModificationException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.sosy_lab.common.AbstractMBean;
+import org.sosy_lab.common.Concurrency;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
+import org.sosy_lab.common.io.IO;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+
+/**
+ * Periodically samples the progress of a running analysis and exposes it via JMX (as
+ * "org.sosy_lab.cpachecker:type=AnalysisProgress") and optionally as a time series in a file.
+ *
+ * <p>Besides the reached set, the monitor reads the management beans that other components
+ * register, e.g., the number of refinements from {@link
+ * org.sosy_lab.cpachecker.core.algorithm.CEGARAlgorithm} and the solver statistics from all
+ * currently open {@link org.sosy_lab.cpachecker.util.predicates.smt.Solver} instances (which
+ * register their bean only if live statistics are enabled). All
+ * values are read without synchronization with the analysis and are thus only approximate.
+ */
+@Options(prefix = "statistics.live")
+public final class AnalysisProgressMonitor implements Runnable {
+
+  public interface AnalysisProgressMXBean {
+    int getReachedSetSize();
+
+    int getWaitlistSize();
+
+    double getStatesPerSecond();
+
+    int getNumberOfRefinements();
+
+    long getSolverTimeMillis();
+
+    double getSolverCacheHitRate();
+
+    long getUsedHeapMemory();
+  }
+
+  private class AnalysisProgressMBean extends AbstractMBean implements AnalysisProgressMXBean {
+
+    AnalysisProgressMBean() {
+      super("org.sosy_lab.cpachecker:type=AnalysisProgress", logger);
+    }
+
+    @Override
+    public int getReachedSetSize() {
+      return reachedSetSize;
+    }
+
+    @Override
+    public int getWaitlistSize() {
+      return waitlistSize;
+    }
+
+    @Override
+    public double getStatesPerSecond() {
+      return statesPerSecond;
+    }
+
+    @Override
+    public int getNumberOfRefinements() {
+      return refinements;
+    }
+
+    @Override
+    public long getSolverTimeMillis() {
+      return solverTimeMillis;
+    }
+
+    @Override
+    public double getSolverCacheHitRate() {
+      return solverCacheHitRate;
+    }
+
+    @Override
+    public long getUsedHeapMemory() {
+      return usedHeapMemory;
+    }
+  }
+
+  @Options(prefix = "statistics.live")
+  private static class EnableOption {
+    @Option(
+      secure = true,
+      description =
+          "Monitor the progress of the analysis while it is running "
+              + "and provide live statistics via JMX and statistics.live.file."
+    )
+    private boolean enable = false;
+  }
+
+  @Option(secure = true, description = "Time between two samples of the live statistics.")
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 1)
+  private TimeSpan interval = TimeSpan.ofSeconds(1);
+
+  @Option(
+    secure = true,
+    description = "Write a tab-separated time series of the live statistics to this file."
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path file = Paths.get("liveStatistics.tsv");
+
+  private static final String HEADER =
+      "time\treached\twaitlist\tstatesPerSecond\trefinements\tsolverTime\tsolverCacheHitRate"
+          + "\tusedHeapMemory";
+
+  private final boolean enable;
+  private final LogManager logger;
+  private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private final ObjectName cegarBean;
+  private final ObjectName solverBeans;
+
+  private @Nullable ReachedSet reached = null;
+  private @Nullable Thread thread = null;
+  private @Nullable AnalysisProgressMBean mxbean = null;
+
+  // latest sample, written only by the monitoring thread
+  private volatile int reachedSetSize = 0;
+  private volatile int waitlistSize = 0;
+  private volatile double statesPerSecond = 0;
+  private volatile int refinements = 0;
+  private volatile long solverTimeMillis = 0;
+  private volatile double solverCacheHitRate = 0;
+  private volatile long usedHeapMemory = 0;
+
+  AnalysisProgressMonitor(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    enable = isEnabled(pConfig);
+    logger = pLogger;
+    try {
+      cegarBean = new ObjectName("org.sosy_lab.cpachecker:type=CEGAR");
+      solverBeans = new ObjectName("org.sosy_lab.cpachecker:type=Solver,*");
+    } catch (MalformedObjectNameException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Check whether live statistics are enabled in the given configuration. Components that
+   * provide additional data for the monitor should register their management beans only in this
+   * case.
+   */
+  public static boolean isEnabled(Configuration pConfig) throws InvalidConfigurationException {
+    EnableOption options = new EnableOption();
+    pConfig.inject(options);
+    return options.enable;
+  }
+
+  /** Start monitoring the given reached set (does nothing if monitoring is disabled). */
+  void start(ReachedSet pReached) {
+    if (!enable) {
+      return;
+    }
+    checkState(thread == null, "Monitor is already running");
+    reached = pReached;
+    mxbean = new AnalysisProgressMBean();
+    mxbean.register();
+    thread = Concurrency.newDaemonThread("CPAchecker live statistics", this);
+    thread.start();
+  }
+
+  /** Stop monitoring after writing a last sample. */
+  void stop() {
+    if (thread != null) {
+      thread.interrupt();
+      Uninterruptibles.joinUninterruptibly(thread);
+      thread = null;
+    }
+    if (mxbean != null) {
+      mxbean.unregister();
+      mxbean = null;
+    }
+  }
+
+  @Override
+  public void run() {
+    Writer out = null;
+    if (file != null) {
+      try {
+        out = IO.openOutputFile(file, StandardCharsets.UTF_8);
+        out.write(HEADER);
+        out.write('\n');
+        out.flush();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write live statistics to file");
+        out = null;
+      }
+    }
+
+    long startTime = System.nanoTime();
+    long lastTime = startTime;
+    int lastReachedSetSize = 0;
+    boolean loggedSamplingFailure = false;
+    boolean stopped = false;
+    while (!stopped) {
+      try {
+        Thread.sleep(interval.asMillis());
+      } catch (InterruptedException e) {
+        stopped = true; // take a last sample before terminating
+      }
+
+      long now = System.nanoTime();
+      try {
+        sample();
+      } catch (RuntimeException e) {
+        // the analysis is not synchronized with us and the monitor must not terminate,
+        // keep the previous values and try again next time
+        if (loggedSamplingFailure) {
+          logger.logDebugException(e, "Could not sample live statistics");
+        } else {
+          logger.logException(Level.WARNING, e, "Could not sample live statistics");
+          loggedSamplingFailure = true;
+        }
+      }
+      double seconds = (now - lastTime) / 1e9;
+      statesPerSecond = seconds > 0 ? (reachedSetSize - lastReachedSetSize) / seconds : 0;
+      lastTime = now;
+      lastReachedSetSize = reachedSetSize;
+
+      if (out != null) {
+        try {
+          out.write(
+              String.format(
+                  Locale.ROOT,
+                  "%.3f\t%d\t%d\t%.1f\t%d\t%.3f\t%.4f\t%d\n",
+                  (now - startTime) / 1e9,
+                  reachedSetSize,
+                  waitlistSize,
+                  statesPerSecond,
+                  refinements,
+                  solverTimeMillis / 1e3,
+                  solverCacheHitRate,
+                  usedHeapMemory));
+          out.flush();
+        } catch (IOException e) {
+          logger.logUserException(Level.WARNING, e, "Could not write live statistics to file");
+          closeQuietly(out);
+          out = null;
+        }
+      }
+    }
+    if (out != null) {
+      closeQuietly(out);
+    }
+  }
+
+  private void sample() {
+    ReachedSet currentReached = reached;
+    try {
+      reachedSetSize = currentReached.size();
+      waitlistSize = currentReached.getWaitlist().size();
+    } catch (ConcurrentModificationException e) {
+      // Some waitlists iterate over their internal structure for size(),
+      // keep the previous value in this case.
+    }
+
+    usedHeapMemory = memory.getHeapMemoryUsage().getUsed();
+
+    try {
+      if (mbeanServer.isRegistered(cegarBean)) {
+        refinements = (Integer) mbeanServer.getAttribute(cegarBean, "NumberOfRefinements");
+      }
+
+      long solverTime = 0;
+      long satChecks = 0;
+      long cachedSatChecks = 0;
+      Set<ObjectName> solvers = mbeanServer.queryNames(solverBeans, null);
+      for (ObjectName solver : solvers) {
+        solverTime += (Long) mbeanServer.getAttribute(solver, "SolverTimeMillis");
+        satChecks += (Integer) mbeanServer.getAttribute(solver, "NumberOfSatChecks");
+        cachedSatChecks += (Integer) mbeanServer.getAttribute(solver, "NumberOfCachedSatChecks");
+      }
+      solverTimeMillis = solverTime;
+      solverCacheHitRate = satChecks > 0 ? (double) cachedSatChecks / satChecks : 0;
+    } catch (JMException e) {
+      // a bean was unregistered concurrently, try again next time
+      logger.logDebugException(e, "Could not read statistics of other components");
+    }
+  }
+
+  private void closeQuietly(Writer pOut) {
+    try {
+      pOut.close();
+    } catch (IOException e) {
+      logger.logDebugException(e, "Could not close file with live statistics");
+    }
+  }
+}
@@ -245,6 +245,7 @@ public class CPAchecker {
   private final ShutdownManager shutdownManager;
   private final ShutdownNotifier shutdownNotifier;
   private final CoreComponentsFactory factory;
+  private final AnalysisProgressMonitor progressMonitor;
 
 
   // The content of this String is read from a file that is created by the
@@ -289,6 +290,7 @@ public class CPAchecker {
     factory =
         new CoreComponentsFactory(
             pConfiguration, pLogManager, shutdownNotifier, new AggregatedReachedSets());
+    progressMonitor = new AnalysisProgressMonitor(pConfiguration, pLogManager);
   }
 
   public CPAcheckerResult run(
@@ -503,6 +505,7 @@ public class CPAchecker {
     // register management interface for CPAchecker
     CPAcheckerBean mxbean = new CPAcheckerBean(reached, logger, shutdownManager);
     mxbean.register();
+    progressMonitor.start(reached);
 
     stats.startAnalysisTimer();
     try {
@@ -527,6 +530,7 @@ public class CPAchecker {
 
     } finally {
       stats.stopAnalysisTimer();
+      progressMonitor.stop();
 
       // unregister management interface for CPAchecker
       mxbean.unregister();
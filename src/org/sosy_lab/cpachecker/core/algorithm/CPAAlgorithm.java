@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.core.algorithm;
 
 import com.google.common.base.Functions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,6 +34,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
@@ -63,6 +68,7 @@ import org.sosy_lab.cpachecker.core.reachedset.PseudoPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinCPAEnabledAnalysis;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.Pair;
@@ -92,6 +98,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     private int   countMerge        = 0;
     private int   countStop         = 0;
     private int   countBreak        = 0;
+    private int   countBatches      = 0;
+    private int   countDroppedBatchStates = 0;
 
     private Map<String, AbstractStatValue> reachedSetStatistics = new HashMap<>();
 
@@ -120,6 +128,11 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       out.println("Number of times merged:          " + countMerge);
       out.println("Number of times stopped:         " + countStop);
       out.println("Number of times breaked:         " + countBreak);
+      if (countBatches > 0) {
+        out.println("Number of parallel batches:      " + countBatches);
+        out.println("Average batch size:              " + countIterations / countBatches);
+        out.println("States dropped after merge:      " + countDroppedBatchStates);
+      }
       out.println();
       out.println("Total time for CPA algorithm:     " + totalTimer + " (Max: " + totalTimer.getMaxTime().formatAs(TimeUnit.SECONDS) + ")");
       out.println("  Time for choose from waitlist:  " + chooseTimer);
@@ -152,6 +165,24 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         + " Useful for incomplete analysis with no counterexample checking.")
     private boolean reportFalseAsUnknown = false;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of threads for computing successors of states from the waitlist in parallel."
+              + " Only the transfer relation is executed in parallel,"
+              + " precision adjustment, merge, and stop are applied sequentially."
+              + " This requires that the transfer relations of all CPAs are thread-safe."
+    )
+    private int parallelSuccessorThreads = 1;
+
+    @Option(
+      secure = true,
+      description =
+          "Maximal number of states taken from the waitlist at once"
+              + " if successors are computed in parallel."
+    )
+    private int parallelSuccessorBatchSize = 64;
+
     private final ForcedCovering forcedCovering;
 
     private final ConfigurableProgramAnalysis cpa;
@@ -172,11 +203,34 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         forcedCovering = null;
       }
 
+      if (parallelSuccessorThreads < 1 || parallelSuccessorBatchSize < 1) {
+        throw new InvalidConfigurationException(
+            "Options cpa.parallelSuccessorThreads and cpa.parallelSuccessorBatchSize"
+                + " need to be positive.");
+      }
+      if (parallelSuccessorThreads > 1) {
+        if (forcedCovering != null) {
+          throw new InvalidConfigurationException(
+              "Forced covering cannot be combined with parallel successor computation.");
+        }
+        if (!cpa.getTransferRelation().isThreadSafe()) {
+          throw new InvalidConfigurationException(
+              "Parallel successor computation (cpa.parallelSuccessorThreads) is only supported"
+                  + " if the transfer relations of all CPAs are thread-safe.");
+        }
+      }
     }
 
     @Override
     public CPAAlgorithm newInstance() {
-      return new CPAAlgorithm(cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown);
+      return new CPAAlgorithm(
+          cpa,
+          logger,
+          shutdownNotifier,
+          forcedCovering,
+          reportFalseAsUnknown,
+          parallelSuccessorThreads,
+          parallelSuccessorBatchSize);
     }
   }
 
@@ -202,10 +256,15 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
   private final AlgorithmStatus status;
 
+  private final int parallelThreads;
+  private final int parallelBatchSize;
+
   private CPAAlgorithm(ConfigurableProgramAnalysis cpa, LogManager logger,
       ShutdownNotifier pShutdownNotifier,
       ForcedCovering pForcedCovering,
-      boolean pIsImprecise) {
+      boolean pIsImprecise,
+      int pParallelThreads,
+      int pParallelBatchSize) {
 
     transferRelation = cpa.getTransferRelation();
     mergeOperator = cpa.getMergeOperator();
@@ -215,12 +274,17 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     this.shutdownNotifier = pShutdownNotifier;
     this.forcedCovering = pForcedCovering;
     status = AlgorithmStatus.SOUND_AND_PRECISE.withPrecise(!pIsImprecise);
+    parallelThreads = pParallelThreads;
+    parallelBatchSize = pParallelBatchSize;
   }
 
   @Override
   public AlgorithmStatus run(final ReachedSet reachedSet) throws CPAException, InterruptedException {
     stats.totalTimer.start();
     try {
+      if (parallelThreads > 1) {
+        return runParallel(reachedSet);
+      }
       return run0(reachedSet);
     } finally {
       stats.totalTimer.stopIfRunning();
@@ -305,6 +369,170 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     return status;
   }
 
+  /**
+   * Variant of {@link #run0(ReachedSet)} that takes batches of states from the waitlist
+   * and computes their successors in parallel with the transfer relation.
+   * The successors are then processed (precision adjustment, merge, stop)
+   * sequentially in the order in which the states were taken from the waitlist,
+   * such that the reached set is only modified by a single thread.
+   */
+  private AlgorithmStatus runParallel(final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelThreads,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("CPAAlgorithm-worker-%d")
+                .build());
+    try {
+      while (reachedSet.hasWaitingState()) {
+        shutdownNotifier.shutdownIfNecessary();
+        stats.countBatches++;
+
+        int size = reachedSet.getWaitlist().size();
+        if (size >= stats.maxWaitlistSize) {
+          stats.maxWaitlistSize = size;
+        }
+
+        stats.chooseTimer.start();
+        List<Pair<AbstractState, Precision>> batch = new ArrayList<>(parallelBatchSize);
+        while (batch.size() < parallelBatchSize && reachedSet.hasWaitingState()) {
+          AbstractState state = reachedSet.popFromWaitlist();
+          batch.add(Pair.of(state, reachedSet.getPrecision(state)));
+        }
+        stats.chooseTimer.stop();
+        stats.countIterations += batch.size();
+        stats.countWaitlistSize += (long) size * batch.size();
+
+        List<Collection<? extends AbstractState>> batchSuccessors;
+        try {
+          batchSuccessors = computeSuccessorsInParallel(batch, executor);
+        } catch (CPAException | InterruptedException | RuntimeException e) {
+          // nothing was added to the reached set so far, all states need to be handled again
+          for (Pair<AbstractState, Precision> p : batch) {
+            reachedSet.reAddToWaitlist(p.getFirst());
+          }
+          throw e;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+          final AbstractState state = batch.get(i).getFirst();
+          final Precision precision = batch.get(i).getSecond();
+
+          if (!reachedSet.contains(state)) {
+            // state was merged into another state while handling an earlier state of this batch,
+            // the merge result is in the waitlist and will be explored instead
+            stats.countDroppedBatchStates++;
+            discardSuccessors(batchSuccessors.get(i));
+            continue;
+          }
+
+          boolean stop;
+          try {
+            stop = handleSuccessors(state, precision, batchSuccessors.get(i), reachedSet);
+          } catch (Exception e) {
+            discardAllSuccessors(batchSuccessors.subList(i + 1, batch.size()));
+            reAddToWaitlist(batch.subList(i, batch.size()), reachedSet);
+            throw e;
+          }
+          if (stop) {
+            // Prec operator requested break
+            discardAllSuccessors(batchSuccessors.subList(i + 1, batch.size()));
+            reAddToWaitlist(batch.subList(i + 1, batch.size()), reachedSet);
+            return status;
+          }
+        }
+      }
+      return status;
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<Collection<? extends AbstractState>> computeSuccessorsInParallel(
+      List<Pair<AbstractState, Precision>> batch, ExecutorService executor)
+      throws CPAException, InterruptedException {
+    stats.transferTimer.start();
+    try {
+      List<Future<Collection<? extends AbstractState>>> futures = new ArrayList<>(batch.size());
+      for (Pair<AbstractState, Precision> p : batch) {
+        futures.add(
+            executor.submit(
+                () -> transferRelation.getAbstractSuccessors(p.getFirst(), p.getSecond())));
+      }
+
+      // Wait for all tasks before handling any result,
+      // such that no worker is still running while the reached set is modified.
+      List<Collection<? extends AbstractState>> result = new ArrayList<>(batch.size());
+      ExecutionException failure = null;
+      for (Future<Collection<? extends AbstractState>> future : futures) {
+        try {
+          result.add(future.get());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e;
+          }
+          result.add(null);
+        }
+      }
+
+      if (failure != null) {
+        // the states will be handled again, so the successors computed so far are not used
+        discardAllSuccessors(result);
+        Throwable t = failure.getCause();
+        if (t instanceof CPAException) {
+          throw (CPAException) t;
+        } else if (t instanceof InterruptedException) {
+          throw (InterruptedException) t;
+        } else if (t instanceof RuntimeException) {
+          throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+          throw (Error) t;
+        } else {
+          throw new AssertionError("Unexpected exception during successor computation", t);
+        }
+      }
+      return result;
+
+    } finally {
+      stats.transferTimer.stop();
+    }
+  }
+
+  private static void discardAllSuccessors(
+      List<? extends Collection<? extends AbstractState>> batchSuccessors) {
+    for (Collection<? extends AbstractState> successors : batchSuccessors) {
+      if (successors != null) {
+        discardSuccessors(successors);
+      }
+    }
+  }
+
+  /**
+   * Remove successors that were computed in advance for a state of a batch, but will not be
+   * handled, from the ARG. The ARG transfer relation attaches successors to their parent
+   * immediately, and they would otherwise stay in the ARG without being in the reached set (or
+   * be moved to the merge result if their parent is merged away).
+   */
+  private static void discardSuccessors(Collection<? extends AbstractState> successors) {
+    for (AbstractState successor : successors) {
+      if (successor instanceof ARGState && !((ARGState) successor).isDestroyed()) {
+        ((ARGState) successor).removeFromARG();
+      }
+    }
+  }
+
+  private static void reAddToWaitlist(
+      List<Pair<AbstractState, Precision>> states, ReachedSet reachedSet) {
+    for (Pair<AbstractState, Precision> p : states) {
+      if (reachedSet.contains(p.getFirst())) {
+        reachedSet.reAddToWaitlist(p.getFirst());
+      }
+    }
+  }
+
   /**
    * Handle one state from the waitlist, i.e., produce successors etc.
    * @param state The abstract state that was taken out of the waitlist
@@ -341,6 +569,24 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     // TODO When we have a nice way to mark the analysis result as incomplete,
     // we could continue analysis on a CPATransferException with the next state from waitlist.
 
+    return handleSuccessors(state, precision, successors, reachedSet);
+  }
+
+  /**
+   * Handle the successors of one state from the waitlist,
+   * i.e., apply precision adjustment, merge, and stop, and add them to the reached set.
+   * @param state The abstract state that was taken out of the waitlist
+   * @param precision The precision for this abstract state.
+   * @param successors The successors of this abstract state as returned by the transfer relation.
+   * @param reachedSet The reached set.
+   * @return true if analysis should terminate, false if analysis should continue with next state
+   */
+  private boolean handleSuccessors(
+      final AbstractState state,
+      final Precision precision,
+      final Collection<? extends AbstractState> successors,
+      final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
     int numSuccessors = successors.size();
     logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
     stats.countSuccessors += numSuccessors;
@@ -374,7 +620,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         stats.stopTimer.start();
         boolean stop;
         try {
-          stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
+          stop =
+              stopOperator.stop(
+                  successor, reachedSet.getCoverageCandidates(successor), successorPrecision);
         } finally {
           stats.stopTimer.stop();
         }
@@ -451,7 +699,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       stats.stopTimer.start();
       boolean stop;
       try {
-        stop = stopOperator.stop(successor, reached, successorPrecision);
+        stop =
+            stopOperator.stop(
+                successor, reachedSet.getCoverageCandidates(successor), successorPrecision);
       } finally {
         stats.stopTimer.stop();
       }
@@ -0,0 +1,91 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class CPAAlgorithmTest {
+
+  /**
+   * With parallel successor computation, successors are attached to their parent in the ARG
+   * before merges of earlier states of the same batch are handled. Successors of states that are
+   * merged away must not stay in the ARG.
+   */
+  @Test
+  public void parallelSuccessorsWithMergeJoinKeepARGConsistent() throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            ImmutableMap.<String, String>builder()
+                .put("cpa", "cpa.arg.ARGCPA")
+                .put("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+                .put(
+                    "CompositeCPA.cpas",
+                    "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.defuse.DefUseCPA")
+                .put("cpa.defuse.merge", "join")
+                .put("analysis.traversal.order", "bfs")
+                .put("cpa.parallelSuccessorThreads", "4")
+                .put("cpa.parallelSuccessorBatchSize", "8")
+                .build(),
+            "test/programs/simple/lock-loop.c");
+
+    UnmodifiableReachedSet reached = results.getCheckerResult().getReached();
+    assertThat(reached).isNotNull();
+    assertThat(reached.hasWaitingState()).isFalse();
+
+    ARGState root = (ARGState) reached.getFirstState();
+    Set<ARGState> visited = new HashSet<>();
+    Deque<ARGState> toVisit = new ArrayDeque<>();
+    toVisit.add(root);
+    while (!toVisit.isEmpty()) {
+      ARGState state = toVisit.pop();
+      if (!visited.add(state)) {
+        continue;
+      }
+      assertWithMessage("state in ARG").that(state.isDestroyed()).isFalse();
+      if (!state.isCovered()) {
+        assertWithMessage("uncovered ARG state %s is in reached set", state)
+            .that(reached.contains(state))
+            .isTrue();
+      }
+      toVisit.addAll(state.getChildren());
+    }
+
+    for (AbstractState state : reached) {
+      assertWithMessage("reached state %s is in ARG", state).that(visited).contains(state);
+    }
+  }
+}
@@ -35,12 +35,17 @@ import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.io.MoreFiles;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -53,6 +58,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -69,6 +75,7 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.CoreComponentsFactory;
 import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -109,6 +116,25 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private List<AnnotatedValue<Path>> configFiles;
 
+  @Option(
+    description =
+        "Run each analysis in a separate worker process with its own JVM instead of a thread"
+            + " of this JVM, such that the analyses do not share heap and garbage collector"
+            + " (cf. parallelAlgorithm.worker.jvmOptions). Options of this configuration are"
+            + " inherited by the analyses, but relative file names are resolved against the"
+            + " working directory in the worker process. Analyses that supply their reached set"
+            + " to other analyses are still run in this JVM, and worker processes cannot make"
+            + " use of supplied reached sets."
+  )
+  private boolean useWorkerProcesses = false;
+
+  @Option(
+    secure = true,
+    description = "Output directory for the worker processes, one sub-directory per analysis."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private Path workerDirectory = Paths.get("parallelAnalyses");
+
   private static final String SUCCESS_MESSAGE =
       "One of the parallel analyses has finished successfully, cancelling all other runs.";
 
@@ -126,6 +152,8 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
   private final List<ConditionAdjustmentEventSubscriber> conditionAdjustmentEventSubscribers =
       new CopyOnWriteArrayList<>();
 
+  private @Nullable Path serializedCfaFile = null; // lazily written for worker processes
+
   public ParallelAlgorithm(
       Configuration config,
       LogManager pLogger,
@@ -135,6 +163,11 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       AggregatedReachedSets pAggregatedReachedSets)
       throws InvalidConfigurationException {
     config.inject(this);
+    if (useWorkerProcesses && workerDirectory == null) {
+      throw new InvalidConfigurationException(
+          "Worker processes for parallel algorithm need an output directory,"
+              + " please set option parallelAlgorithm.workerDirectory.");
+    }
 
     stats = new ParallelAlgorithmStatistics(pLogger);
     globalConfig = config;
@@ -308,6 +341,16 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       return () -> { throw e; };
     }
 
+    if (useWorkerProcesses && !supplyReached && !supplyRefinableReached) {
+      return createWorkerAnalysis(
+          singleConfig,
+          singleConfigFileName,
+          analysisNumber,
+          singleLogger,
+          singleShutdownManager,
+          coreComponents);
+    }
+
     final ReachedSet reached = coreComponents.createReachedSet();
 
     AtomicBoolean terminated = new AtomicBoolean(false);
@@ -369,6 +412,80 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     };
   }
 
+  private Callable<ParallelAnalysisResult> createWorkerAnalysis(
+      final Configuration singleConfig,
+      final Path singleConfigFileName,
+      final int analysisNumber,
+      final LogManager singleLogger,
+      final ShutdownManager singleShutdownManager,
+      final CoreComponentsFactory coreComponents) {
+    final String analysisName = singleConfigFileName.toString();
+    final ParallelAnalysisWorker worker;
+    try {
+      worker =
+          new ParallelAnalysisWorker(
+              singleConfig,
+              globalConfig,
+              singleConfigFileName,
+              workerDirectory.resolve(analysisNumber + "-" + singleConfigFileName.getFileName()),
+              singleLogger,
+              singleShutdownManager.getNotifier());
+    } catch (InvalidConfigurationException e) {
+      return () -> { throw e; };
+    }
+
+    final ReachedSet reached = coreComponents.createReachedSet();
+    AtomicBoolean terminated = new AtomicBoolean(false);
+    stats.getNewSubStatistics(reached, analysisName, null, terminated);
+
+    return () -> {
+      try {
+        Result result =
+            worker.run(
+                getSerializedCfaFile(),
+                specification.getSpecFiles(),
+                cfa.getFileNames());
+
+        switch (result) {
+          case TRUE:
+            return ParallelAnalysisResult.of(
+                reached, AlgorithmStatus.SOUND_AND_PRECISE, analysisName);
+          case FALSE:
+            reached.add(worker.createTargetState(mainEntryNode), SingletonPrecision.getInstance());
+            reached.popFromWaitlist();
+            return ParallelAnalysisResult.of(
+                reached, AlgorithmStatus.SOUND_AND_PRECISE, analysisName);
+          default:
+            return ParallelAnalysisResult.absent(analysisName);
+        }
+
+      } catch (IOException e) {
+        throw new CPAException(
+            "Could not run analysis " + analysisName + " in worker process: " + e.getMessage(), e);
+      } catch (InterruptedException e) {
+        singleLogger.log(Level.INFO, "Analysis was terminated");
+        return ParallelAnalysisResult.absent(analysisName);
+      } finally {
+        terminated.set(true);
+      }
+    };
+  }
+
+  /** Serialize the CFA once such that worker processes do not need to parse the program again. */
+  private synchronized Path getSerializedCfaFile() throws IOException {
+    if (serializedCfaFile == null) {
+      Path file = workerDirectory.resolve("cfa.ser.gz");
+      MoreFiles.createParentDirectories(file);
+      try (OutputStream outputStream = Files.newOutputStream(file);
+          OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+          ObjectOutputStream oos = new ObjectOutputStream(gzipOutputStream)) {
+        oos.writeObject(cfa);
+      }
+      serializedCfaFile = file;
+    }
+    return serializedCfaFile;
+  }
+
   private ParallelAnalysisResult runParallelAnalysis(
       final String analysisName,
       final Algorithm algorithm,
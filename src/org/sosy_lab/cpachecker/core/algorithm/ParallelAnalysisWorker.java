@@ -0,0 +1,282 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.defaults.NamedProperty;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Property;
+import org.sosy_lab.cpachecker.core.interfaces.Targetable;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * A single analysis of the {@link ParallelAlgorithm} that is executed as a separate CPAchecker
+ * process with its own JVM. The process is started with the configuration file of the
+ * analysis, the options of the parallel algorithm's own configuration that are not
+ * overridden by this file, and a serialized copy of the already created CFA.
+ *
+ * <p>The output of the process is forwarded to the log, and its verdict is read from the
+ * "Verification result" line. The process is killed if a shutdown is requested, e.g., because
+ * another analysis already finished.
+ */
+@Options(prefix = "parallelAlgorithm.worker")
+final class ParallelAnalysisWorker {
+
+  private static final String MAIN_CLASS = "org.sosy_lab.cpachecker.cmdline.CPAMain";
+  private static final String RESULT_PREFIX = "Verification result: ";
+  private static final Pattern VIOLATION_PATTERN =
+      Pattern.compile(
+          "^FALSE\\. Property violation(?: \\((.*)\\))? found by chosen configuration\\.$");
+
+  /** Options of the parallel algorithm that are not passed to the worker processes. */
+  private static final ImmutableList<String> NOT_INHERITED_OPTION_PREFIXES =
+      ImmutableList.of(
+          "analysis.serializedCfaFile",
+          "analysis.useParallelAnalyses",
+          "configuration.",
+          "output.path",
+          "parallelAlgorithm.",
+          "specification");
+
+  @Option(
+    description =
+        "Additional options for the JVM of worker processes of the parallel algorithm,"
+            + " e.g., -Xmx8g. Can be set individually in the configuration file of each analysis."
+  )
+  private List<String> jvmOptions = ImmutableList.of();
+
+  private final Configuration singleConfig;
+  private final Configuration globalConfig;
+  private final Path configFile;
+  private final Path outputDirectory;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+
+  private String violatedPropertyDescription = "";
+
+  ParallelAnalysisWorker(
+      Configuration pSingleConfig,
+      Configuration pGlobalConfig,
+      Path pConfigFile,
+      Path pOutputDirectory,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    pSingleConfig.inject(this);
+    singleConfig = pSingleConfig;
+    globalConfig = checkNotNull(pGlobalConfig);
+    configFile = checkNotNull(pConfigFile);
+    outputDirectory = checkNotNull(pOutputDirectory);
+    logger = checkNotNull(pLogger);
+    shutdownNotifier = checkNotNull(pShutdownNotifier);
+  }
+
+  private List<String> getCommandLine(
+      Path pSerializedCfa, Set<Path> pSpecFiles, List<Path> pProgramFiles) {
+    List<String> cmd = new ArrayList<>();
+    cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    cmd.addAll(jvmOptions);
+    cmd.add("-cp");
+    cmd.add(System.getProperty("java.class.path"));
+    cmd.add(MAIN_CLASS);
+
+    cmd.add("-config");
+    cmd.add(configFile.toAbsolutePath().toString());
+    cmd.add("-outputpath");
+    cmd.add(outputDirectory.toAbsolutePath().toString());
+    if (!pSpecFiles.isEmpty()) {
+      cmd.add("-spec");
+      cmd.add(Joiner.on(',').join(pSpecFiles.stream().map(Path::toAbsolutePath).iterator()));
+    }
+    cmd.add("-setprop");
+    cmd.add("analysis.serializedCfaFile=" + pSerializedCfa.toAbsolutePath());
+
+    // Options of the parallel algorithm are inherited by the single analyses,
+    // unless the configuration file of the analysis overrides them.
+    for (String line : Splitter.on('\n').split(globalConfig.asPropertiesString())) {
+      int separator = line.indexOf(" = ");
+      if (separator < 0) {
+        continue;
+      }
+      String key = line.substring(0, separator);
+      String value = line.substring(separator + " = ".length());
+      if (NOT_INHERITED_OPTION_PREFIXES.stream().noneMatch(key::startsWith)
+          && value.equals(singleConfig.getProperty(key))) {
+        cmd.add("-setprop");
+        cmd.add(key + "=" + value);
+      }
+    }
+
+    for (Path programFile : pProgramFiles) {
+      cmd.add(programFile.toString());
+    }
+    return cmd;
+  }
+
+  /**
+   * Run the analysis in a new process and wait for its result.
+   *
+   * @return The verdict of the analysis, {@link Result#UNKNOWN} if it did not report one.
+   */
+  Result run(Path pSerializedCfa, Set<Path> pSpecFiles, List<Path> pProgramFiles)
+      throws IOException, InterruptedException {
+    Files.createDirectories(outputDirectory);
+    List<String> cmd = getCommandLine(pSerializedCfa, pSpecFiles, pProgramFiles);
+    logger.log(Level.FINE, "Starting worker process", cmd);
+
+    Process process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+    ShutdownRequestListener killProcess = reason -> process.destroyForcibly();
+    shutdownNotifier.registerAndCheckImmediately(killProcess);
+
+    Result result = Result.UNKNOWN;
+    try (BufferedReader output =
+        new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+      String line;
+      while ((line = output.readLine()) != null) {
+        if (line.startsWith(RESULT_PREFIX)) {
+          logger.log(Level.INFO, "Worker process finished:", line);
+          result = parseResult(line.substring(RESULT_PREFIX.length()));
+        } else {
+          logger.log(Level.FINE, line);
+        }
+      }
+
+      int exitCode = process.waitFor();
+      shutdownNotifier.shutdownIfNecessary();
+      if (exitCode != 0) {
+        logger.log(Level.WARNING, "Worker process terminated with exit code", exitCode);
+      }
+    } finally {
+      shutdownNotifier.unregister(killProcess);
+      process.destroyForcibly(); // no-op if already terminated
+    }
+    return result;
+  }
+
+  private Result parseResult(String pResult) {
+    if (pResult.startsWith("TRUE")) {
+      return Result.TRUE;
+    }
+    Matcher matcher = VIOLATION_PATTERN.matcher(pResult);
+    if (matcher.matches()) {
+      violatedPropertyDescription = Objects.toString(matcher.group(1), "");
+      return Result.FALSE;
+    }
+    return Result.UNKNOWN;
+  }
+
+  /**
+   * Create a state that represents the property violation that was found by the worker process,
+   * such that the result can be reported like the result of an analysis in this process.
+   */
+  TargetState createTargetState(CFANode pLocation) {
+    return new TargetState(pLocation, violatedPropertyDescription);
+  }
+
+  static final class TargetState implements AbstractStateWithLocation, Partitionable, Targetable {
+
+    private final CFANode location;
+    private final Set<Property> violatedProperties;
+
+    private TargetState(CFANode pLocation, String pViolatedPropertyDescription) {
+      location = checkNotNull(pLocation);
+      // the result is only reported as violation if there is a violated property
+      violatedProperties =
+          NamedProperty.singleton(
+              pViolatedPropertyDescription.isEmpty()
+                  ? "property violation reported by worker process"
+                  : pViolatedPropertyDescription);
+    }
+
+    @Override
+    public boolean isTarget() {
+      return true;
+    }
+
+    @Override
+    public Set<Property> getViolatedProperties() {
+      return violatedProperties;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    @Override
+    public Iterable<CFANode> getLocationNodes() {
+      return ImmutableSet.of(location);
+    }
+
+    @Override
+    public Iterable<CFAEdge> getOutgoingEdges() {
+      return CFAUtils.leavingEdges(location);
+    }
+
+    @Override
+    public Iterable<CFAEdge> getIngoingEdges() {
+      return CFAUtils.enteringEdges(location);
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return "Property violation found by worker process: " + violatedProperties;
+    }
+  }
+}
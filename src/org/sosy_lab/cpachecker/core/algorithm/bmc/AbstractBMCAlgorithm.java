@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.core.algorithm.bmc;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.AbstractStates.IS_TARGET_STATE;
@@ -32,10 +33,13 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -54,9 +58,16 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
@@ -163,12 +174,39 @@ abstract class AbstractBMCAlgorithm
   )
   private boolean usePropertyDirection = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Check the step case of k-induction for bound k in a separate thread and solver context"
+            + " while the base case for bound k+1 is already being checked."
+            + " A counterexample found by the base case cancels the step case."
+            + " A successful step case cannot interrupt a running satisfiability check"
+            + " of the base case, its result is only used after that check."
+  )
+  private boolean pipelineInduction = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Keep the formulas of the bounded model checks for all bounds asserted in the prover,"
+            + " guarded by activation literals that are passed as assumptions, instead of"
+            + " pushing and popping them for each check. This allows the solver to reuse its"
+            + " work on the common prefix of the formulas for consecutive bounds."
+  )
+  private boolean useActivationLiterals = false;
+
+  private int activationLiteralCounter = 0;
+
   protected final BMCStatistics stats;
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
 
-  private final @Nullable ConfigurableProgramAnalysis stepCaseCPA;
-  private final @Nullable Algorithm stepCaseAlgorithm;
+  // recreated if the step case was cancelled, because its shutdown notifier cannot be reset
+  private @Nullable ConfigurableProgramAnalysis stepCaseCPA;
+  private @Nullable Algorithm stepCaseAlgorithm;
+
+  /** Allows to cancel the step case without stopping the whole analysis. */
+  private ShutdownManager stepCaseShutdownManager;
 
   protected final InvariantGenerator invariantGenerator;
   private final InvariantGeneratorHeadStart invariantGeneratorHeadStart;
@@ -179,6 +217,7 @@ abstract class AbstractBMCAlgorithm
   private final Solver solver;
 
   protected final LogManager logger;
+  private final Configuration config;
   private final ReachedSetFactory reachedSetFactory;
   private final CFA cfa;
   private final Specification specification;
@@ -212,17 +251,24 @@ abstract class AbstractBMCAlgorithm
       throws InvalidConfigurationException, CPAException {
 
     pConfig.inject(this, AbstractBMCAlgorithm.class);
+    if (pipelineInduction && usePropertyDirection) {
+      throw new InvalidConfigurationException(
+          "Pipelined k-induction cannot be combined with property-directed k-induction"
+              + " (bmc.usePropertyDirection).");
+    }
 
     stats = pBMCStatistics;
     algorithm = pAlgorithm;
     cpa = pCPA;
     logger = pLogger;
+    config = pConfig;
     reachedSetFactory = pReachedSetFactory;
     cfa = pCFA;
     specification = checkNotNull(pSpecification);
 
     shutdownNotifier = pShutdownManager.getNotifier();
     targetLocationProvider = new CachingTargetLocationProvider(shutdownNotifier, logger, cfa);
+    stepCaseShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
 
     if (induction) {
       induction = checkIfInductionIsPossible(pCFA, pLogger);
@@ -231,13 +277,7 @@ abstract class AbstractBMCAlgorithm
     }
 
     if (induction) {
-      LogManager stepCaseLogger = logger.withComponentName("InductionStepCase");
-      CPABuilder builder =
-          new CPABuilder(
-              pConfig, stepCaseLogger, pShutdownManager.getNotifier(), pReachedSetFactory);
-      stepCaseCPA = builder.buildCPAs(cfa, pSpecification, new AggregatedReachedSets());
-      stepCaseAlgorithm =
-          CPAAlgorithm.create(stepCaseCPA, stepCaseLogger, pConfig, pShutdownManager.getNotifier());
+      createStepCase();
     } else {
       stepCaseCPA = null;
       stepCaseAlgorithm = null;
@@ -340,10 +380,26 @@ abstract class AbstractBMCAlgorithm
 
     AlgorithmStatus status;
 
+    if (induction && stepCaseShutdownManager.getNotifier().shouldShutdown()) {
+      shutdownNotifier.shutdownIfNecessary();
+      // The step case was cancelled at the end of a previous run because its result was no
+      // longer needed. Cancellation cannot be undone, so we need a fresh step case.
+      logger.log(Level.FINE, "Recreating step case of k-induction after its cancellation.");
+      CPAs.closeCpaIfPossible(stepCaseCPA, logger);
+      CPAs.closeIfPossible(stepCaseAlgorithm, logger);
+      stepCaseShutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+      try {
+        createStepCase();
+      } catch (InvalidConfigurationException e) {
+        throw new CPAException("Could not recreate step case of k-induction", e);
+      }
+    }
+
     try (ProverEnvironmentWithFallback prover =
             new ProverEnvironmentWithFallback(solver, ProverOptions.GENERATE_MODELS);
         @SuppressWarnings("resource")
-            KInductionProver kInductionProver = createInductionProver()) {
+            KInductionProver kInductionProver = createInductionProver();
+        StepCasePipeline pipeline = new StepCasePipeline(kInductionProver)) {
       invariantGeneratorHeadStart.waitForInvariantGenerator();
 
       do {
@@ -363,6 +419,11 @@ abstract class AbstractBMCAlgorithm
         }
         shutdownNotifier.shutdownIfNecessary();
 
+        // the step case for the previous bound may have finished during unrolling
+        if (pipeline.isDone() && pipeline.awaitSafety(candidateGenerator)) {
+          return AlgorithmStatus.SOUND_AND_PRECISE;
+        }
+
         if (invariantGenerator.isProgramSafe()) {
           TargetLocationCandidateInvariant.INSTANCE.assumeTruth(reachedSet);
           return AlgorithmStatus.SOUND_AND_PRECISE;
@@ -395,6 +456,12 @@ abstract class AbstractBMCAlgorithm
         // verify soundness, but don't bother if we are unsound anyway or we have found a bug
         if (status.isSound()) {
 
+          // the step case for the previous bound may have finished during the base case,
+          // then checking the bounding assertions is unnecessary
+          if (pipeline.isDone() && pipeline.awaitSafety(candidateGenerator)) {
+            return AlgorithmStatus.SOUND_AND_PRECISE;
+          }
+
           // check bounding assertions
           sound = candidateGenerator.hasCandidatesAvailable() ? checkBoundingAssertions(reachedSet, prover) : true;
 
@@ -403,7 +470,15 @@ abstract class AbstractBMCAlgorithm
           }
 
           // try to prove program safety via induction
-          if (induction && !sound) {
+          if (induction && !sound && pipelineInduction) {
+            // at most one step case is running, and its result decides about the next one
+            if (pipeline.hasPending() && pipeline.awaitSafety(candidateGenerator)) {
+              return AlgorithmStatus.SOUND_AND_PRECISE;
+            }
+            // the base case for this bound holds, so the step case for this bound can run
+            // while the next bound is unrolled and checked
+            pipeline.submit(prepareStepCase(reachedSet, candidateGenerator, ctiBlockingClauses));
+          } else if (induction && !sound) {
             if (usePropertyDirection) {
               usePropertyDirection =
                   refineCtiBlockingClauses(reachedSet, prover, ctiBlockingClauses, checkedClauses);
@@ -422,10 +497,17 @@ abstract class AbstractBMCAlgorithm
 
         if (!candidateGenerator.hasCandidatesAvailable()) {
           // no remaining invariants to be proven
+          if (pipeline.hasPending() && pipeline.awaitSafety(candidateGenerator)) {
+            return AlgorithmStatus.SOUND_AND_PRECISE;
+          }
           return status;
         }
       }
       while (status.isSound() && adjustConditions());
+
+      if (pipeline.hasPending() && pipeline.awaitSafety(candidateGenerator)) {
+        return AlgorithmStatus.SOUND_AND_PRECISE;
+      }
     }
 
     return AlgorithmStatus.UNSOUND_AND_PRECISE;
@@ -438,6 +520,23 @@ abstract class AbstractBMCAlgorithm
       Set<Obligation> pCtiBlockingClauses)
       throws InterruptedException, CPAException, SolverException {
 
+    StepCase stepCase = prepareStepCase(reachedSet, candidateGenerator, pCtiBlockingClauses);
+
+    shutdownNotifier.shutdownIfNecessary();
+
+    return proveStepCase(
+        stepCase, kInductionProver, pCtiBlockingClauses, candidateGenerator::confirmCandidates);
+  }
+
+  /**
+   * Collects everything that the step case needs from the reached set of the base case, such that
+   * the step case can be checked without accessing the reached set.
+   */
+  private StepCase prepareStepCase(
+      final ReachedSet reachedSet,
+      final CandidateGenerator candidateGenerator,
+      Set<Obligation> pCtiBlockingClauses) {
+
     final int k = CPAs.retrieveCPA(cpa, LoopIterationBounding.class).getMaxLoopIterations();
 
     Set<Object> checkedKeys = getCheckedKeys(reachedSet);
@@ -446,12 +545,28 @@ abstract class AbstractBMCAlgorithm
 
     Set<CandidateInvariant> candidates =
         FluentIterable.concat(pCtiBlockingClauses, candidateGenerator).filter(isApplicable).toSet();
-    Set<SymbolicCandiateInvariant> checked = new HashSet<>();
+    return new StepCase(k, checkedKeys, candidates);
+  }
 
-    shutdownNotifier.shutdownIfNecessary();
+  /**
+   * Tries to prove the candidates of the step case by k-induction.
+   *
+   * @param pConfirm receives the candidates that were proven, does not need to be thread-safe.
+   * @return whether all candidates (or the target-location candidate) were proven.
+   */
+  private boolean proveStepCase(
+      StepCase pStepCase,
+      KInductionProver kInductionProver,
+      Set<Obligation> pCtiBlockingClauses,
+      Consumer<Iterable<CandidateInvariant>> pConfirm)
+      throws InterruptedException, CPAException, SolverException {
+
+    final int k = pStepCase.k;
+    Set<Object> checkedKeys = pStepCase.checkedKeys;
+    Set<SymbolicCandiateInvariant> checked = new HashSet<>();
 
     boolean sound = true;
-    Iterable<CandidateInvariant> candidatesToCheck = candidates;
+    Iterable<CandidateInvariant> candidatesToCheck = pStepCase.candidates;
     for (CandidateInvariant candidate : candidatesToCheck) {
       // No need to check the same clause twice
       if (candidate instanceof Obligation) {
@@ -481,8 +596,7 @@ abstract class AbstractBMCAlgorithm
         Iterables.addAll(
             confirmedCandidates,
             CandidateInvariantCombination.getConjunctiveParts(candidate));
-        candidateGenerator.confirmCandidates(
-            CandidateInvariantCombination.getConjunctiveParts(candidate));
+        pConfirm.accept(CandidateInvariantCombination.getConjunctiveParts(candidate));
         if (candidate == TargetLocationCandidateInvariant.INSTANCE) {
           sound = true;
           break;
@@ -506,8 +620,7 @@ abstract class AbstractBMCAlgorithm
               Iterables.addAll(
                   confirmedCandidates,
                   CandidateInvariantCombination.getConjunctiveParts(weakening));
-              candidateGenerator.confirmCandidates(
-                  CandidateInvariantCombination.getConjunctiveParts(weakening));
+              pConfirm.accept(CandidateInvariantCombination.getConjunctiveParts(weakening));
               break;
             }
           }
@@ -597,8 +710,19 @@ abstract class AbstractBMCAlgorithm
     BooleanFormula program = bfmgr.not(pCandidateInvariant.getAssertion(pReachedSet, fmgr, pmgr));
     logger.log(Level.INFO, "Starting satisfiability check...");
     stats.satCheck.start();
-    pProver.push(program);
-    boolean safe = pProver.isUnsat();
+    @Nullable BooleanFormula activationLiteral = null;
+    boolean safe;
+    if (useActivationLiterals) {
+      activationLiteral = addGuarded(pProver, program);
+      safe = isUnsatUnderActivation(pProver, activationLiteral);
+      if (!safe) {
+        // activate the program formula on the solver stack for creating the error path
+        pProver.push(activationLiteral);
+      }
+    } else {
+      pProver.push(program);
+      safe = pProver.isUnsat();
+    }
     stats.satCheck.stop();
     // Leave program formula on solver stack until error path is created
 
@@ -611,11 +735,61 @@ abstract class AbstractBMCAlgorithm
       }
     }
 
-    pProver.pop();
+    if (activationLiteral == null || !safe) {
+      pProver.pop();
+    }
+    if (activationLiteral != null) {
+      retire(pProver, activationLiteral);
+    }
 
     return safe;
   }
 
+  /**
+   * Permanently asserts the given formula guarded by a fresh activation literal, which needs to be
+   * passed as assumption in order to activate the formula.
+   */
+  private BooleanFormula addGuarded(ProverEnvironmentWithFallback pProver, BooleanFormula pFormula)
+      throws InterruptedException {
+    BooleanFormula activationLiteral =
+        bfmgr.makeVariable("__bmc_activation_" + activationLiteralCounter++);
+    pProver.addConstraint(bfmgr.implication(activationLiteral, pFormula));
+    return activationLiteral;
+  }
+
+  private boolean isUnsatUnderActivation(
+      ProverEnvironmentWithFallback pProver, BooleanFormula pActivationLiteral)
+      throws SolverException, InterruptedException {
+    if (useActivationLiterals) {
+      try {
+        return pProver.isUnsatWithAssumptions(ImmutableList.of(pActivationLiteral));
+      } catch (UnsupportedOperationException e) {
+        logger.logDebugException(e);
+        logger.log(
+            Level.WARNING,
+            "Solver does not support checks under assumptions,"
+                + " falling back to pushing and popping the BMC formulas.");
+        useActivationLiterals = false;
+      }
+    }
+    // same semantics, but the activation literal is asserted only temporarily
+    pProver.push(pActivationLiteral);
+    try {
+      return pProver.isUnsat();
+    } finally {
+      pProver.pop();
+    }
+  }
+
+  /**
+   * Disables the formula guarded by the given activation literal for good, such that the solver
+   * can simplify the corresponding clauses away.
+   */
+  private void retire(ProverEnvironmentWithFallback pProver, BooleanFormula pActivationLiteral)
+      throws InterruptedException {
+    pProver.addConstraint(bfmgr.not(pActivationLiteral));
+  }
+
   private boolean refineCtiBlockingClauses(
       ReachedSet pReachedSet,
       ProverEnvironmentWithFallback pProver,
@@ -754,9 +928,16 @@ abstract class AbstractBMCAlgorithm
       logger.log(Level.INFO, "Starting assertions check...");
 
       stats.assertionsCheck.start();
-      prover.push(assertions);
-      boolean sound = prover.isUnsat();
-      prover.pop();
+      boolean sound;
+      if (useActivationLiterals) {
+        BooleanFormula activationLiteral = addGuarded(prover, assertions);
+        sound = isUnsatUnderActivation(prover, activationLiteral);
+        retire(prover, activationLiteral);
+      } else {
+        prover.push(assertions);
+        sound = prover.isUnsat();
+        prover.pop();
+      }
       stats.assertionsCheck.stop();
 
       logger.log(Level.FINER, "Soundness after assertion checks:", sound);
@@ -779,6 +960,21 @@ abstract class AbstractBMCAlgorithm
     }
   }
 
+  /**
+   * Create the CPA and algorithm for the step case of k-induction, using the notifier of the
+   * current {@link #stepCaseShutdownManager}.
+   */
+  private void createStepCase() throws InvalidConfigurationException, CPAException {
+    LogManager stepCaseLogger = logger.withComponentName("InductionStepCase");
+    CPABuilder builder =
+        new CPABuilder(
+            config, stepCaseLogger, stepCaseShutdownManager.getNotifier(), reachedSetFactory);
+    stepCaseCPA = builder.buildCPAs(cfa, specification, new AggregatedReachedSets());
+    stepCaseAlgorithm =
+        CPAAlgorithm.create(
+            stepCaseCPA, stepCaseLogger, config, stepCaseShutdownManager.getNotifier());
+  }
+
   protected @Nullable KInductionProver createInductionProver() {
     return induction
         ? new KInductionProver(
@@ -789,7 +985,7 @@ abstract class AbstractBMCAlgorithm
             invariantGenerator,
             stats,
             reachedSetFactory,
-            shutdownNotifier,
+            stepCaseShutdownManager.getNotifier(),
             getLoopHeads(),
             usePropertyDirection)
         : null;
@@ -1155,6 +1351,138 @@ abstract class AbstractBMCAlgorithm
     }
   }
 
+  /** The inputs of a step-case check for one bound. */
+  private static final class StepCase {
+
+    private final int k;
+
+    private final Set<Object> checkedKeys;
+
+    private final Set<CandidateInvariant> candidates;
+
+    private StepCase(int pK, Set<Object> pCheckedKeys, Set<CandidateInvariant> pCandidates) {
+      k = pK;
+      checkedKeys = pCheckedKeys;
+      candidates = pCandidates;
+    }
+  }
+
+  private static final class StepCaseResult {
+
+    private final boolean sound;
+
+    private final List<CandidateInvariant> confirmed;
+
+    private StepCaseResult(boolean pSound, List<CandidateInvariant> pConfirmed) {
+      sound = pSound;
+      confirmed = pConfirmed;
+    }
+  }
+
+  /**
+   * Runs the step case of k-induction in a separate thread, which uses the solver context of the
+   * step-case CPA, while the main thread continues with the base case for the next bound. The
+   * candidates proven by the step case are passed to the candidate generator only by the main
+   * thread, because candidate generators are not thread-safe.
+   *
+   * <p>The result of the step case is only looked at between the satisfiability checks of the
+   * main thread, i.e., after unrolling and before checking the bounding assertions. A step case
+   * that proves safety cannot interrupt a running check of the base case: the base-case prover
+   * belongs to the solver context of the main analysis, which only listens to the shutdown
+   * notifier of the whole analysis, so there is no way to cancel this single check.
+   */
+  private final class StepCasePipeline implements AutoCloseable {
+
+    private final @Nullable KInductionProver kInductionProver;
+
+    private @Nullable ExecutorService executor = null;
+
+    private @Nullable Future<StepCaseResult> pending = null;
+
+    private StepCasePipeline(@Nullable KInductionProver pKInductionProver) {
+      kInductionProver = pKInductionProver;
+    }
+
+    private boolean hasPending() {
+      return pending != null;
+    }
+
+    private boolean isDone() {
+      return pending != null && pending.isDone();
+    }
+
+    private void submit(StepCase pStepCase) {
+      checkState(pending == null, "Only one step case may run at the same time.");
+      checkState(kInductionProver != null);
+      if (executor == null) {
+        executor =
+            Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("BMC-step-case-%d")
+                    .build());
+      }
+      logger.log(Level.FINE, "Starting step case for k =", pStepCase.k, "in background");
+      pending =
+          executor.submit(
+              () -> {
+                List<CandidateInvariant> confirmed = new ArrayList<>();
+                // property direction is not supported with pipelining,
+                // so there are no obligations
+                boolean sound =
+                    proveStepCase(
+                        pStepCase,
+                        kInductionProver,
+                        new TreeSet<>(),
+                        parts -> Iterables.addAll(confirmed, parts));
+                return new StepCaseResult(sound, confirmed);
+              });
+    }
+
+    /**
+     * Waits for the running step case and confirms the candidates it proved.
+     *
+     * @return whether the step case proved the program safe and there are no further candidates.
+     */
+    private boolean awaitSafety(CandidateGenerator pCandidateGenerator)
+        throws CPAException, InterruptedException, SolverException {
+      checkState(pending != null);
+      StepCaseResult result;
+      try {
+        result = pending.get();
+      } catch (ExecutionException e) {
+        Throwable t = e.getCause();
+        Throwables.propagateIfPossible(t, CPAException.class, SolverException.class);
+        Throwables.propagateIfPossible(t, InterruptedException.class);
+        throw new UnexpectedCheckedException("step case of k-induction", t);
+      } finally {
+        pending = null;
+      }
+      pCandidateGenerator.confirmCandidates(result.confirmed);
+      return result.sound && !pCandidateGenerator.produceMoreCandidates();
+    }
+
+    @Override
+    public void close() {
+      if (pending != null) {
+        if (!pending.isDone()) {
+          // the analysis is finished without the result of the step case
+          stepCaseShutdownManager.requestShutdown("Step case of k-induction is no longer needed");
+        }
+        try {
+          // the prover must not be closed while the step case still uses it
+          Uninterruptibles.getUninterruptibly(pending);
+        } catch (ExecutionException | CancellationException e) {
+          logger.logDebugException(e, "Step case of k-induction was cancelled");
+        }
+        pending = null;
+      }
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
   private static class BmcResult {
 
     private final Set<AbstractState> checkedStates = new HashSet<>();
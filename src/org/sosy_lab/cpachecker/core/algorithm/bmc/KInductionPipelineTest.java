@@ -0,0 +1,83 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Paths;
+import java.util.Collection;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/**
+ * Smoke test for k-induction with the step case running in parallel to the base case
+ * (bmc.pipelineInduction): it has to produce the same verdict as sequential k-induction.
+ */
+@RunWith(Parameterized.class)
+public class KInductionPipelineTest {
+
+  private static final String TEST_DIR_PATH = "test/programs/induction/";
+  private static final String CONFIG_FILE = "config/components/kInduction/kInduction.properties";
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> data() {
+    return ImmutableList.of(
+        new Object[] {"pipeline-mod3_true-unreach-label.c", Result.TRUE},
+        new Object[] {"pipeline-counter_false-unreach-label.c", Result.FALSE});
+  }
+
+  @Parameter(0)
+  public String filename;
+
+  @Parameter(1)
+  public Result expected;
+
+  private TestResults run(boolean pPipelineInduction) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile(CONFIG_FILE)
+            .setOption("bmc.pipelineInduction", Boolean.toString(pPipelineInduction))
+            .build();
+    return CPATestRunner.run(config, Paths.get(TEST_DIR_PATH, filename).toString());
+  }
+
+  @Test
+  public void testSameVerdictAsSequential() throws Exception {
+    TestResults sequential = run(false);
+    sequential.assertIs(expected);
+
+    TestResults pipelined = run(true);
+    assertThat(pipelined.getCheckerResult().getResult())
+        .isEqualTo(sequential.getCheckerResult().getResult());
+  }
+}
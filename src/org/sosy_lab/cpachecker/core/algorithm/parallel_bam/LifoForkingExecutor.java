@@ -0,0 +1,81 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Executor for the jobs of {@link ReachedSetExecutor}s on a {@link ForkJoinPool}.
+ *
+ * <p>Jobs that are submitted while a worker executes a job (e.g., a sub-analysis that is
+ * registered by the current analysis, or the continuation of the current analysis that is
+ * triggered when its job completes) are not submitted to the pool directly. Instead, they are
+ * forked onto the deque of the current worker after the current job is finished, in reverse order
+ * of their submission. As the worker takes its own tasks in LIFO order, it continues with the job
+ * that was submitted first, i.e., the sub-analysis on which the current analysis waits, and idle
+ * workers steal the other jobs, e.g., the continuation of the parent analysis.
+ */
+class LifoForkingExecutor implements Executor {
+
+  private final ForkJoinPool pool;
+
+  /** Jobs submitted by the job that is currently executed by the worker, most recent first. */
+  private final ThreadLocal<Deque<Runnable>> deferredJobs = new ThreadLocal<>();
+
+  LifoForkingExecutor(ForkJoinPool pPool) {
+    pool = checkNotNull(pPool);
+  }
+
+  @Override
+  public void execute(Runnable pJob) {
+    checkNotNull(pJob);
+    Deque<Runnable> deferred = deferredJobs.get();
+    if (deferred != null) {
+      deferred.push(pJob);
+    } else {
+      // not within a job of this executor, e.g., the initial job of the analysis
+      pool.execute(() -> runAndForkDeferredJobs(pJob));
+    }
+  }
+
+  private void runAndForkDeferredJobs(Runnable pJob) {
+    Deque<Runnable> deferred = new ArrayDeque<>();
+    deferredJobs.set(deferred);
+    try {
+      pJob.run();
+    } finally {
+      deferredJobs.remove();
+      // the job that was submitted first is forked last and thus executed next by this worker
+      for (Runnable job : deferred) {
+        ForkJoinTask.adapt(() -> runAndForkDeferredJobs(job)).fork();
+      }
+    }
+  }
+}
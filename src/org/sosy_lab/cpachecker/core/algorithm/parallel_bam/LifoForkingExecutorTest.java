@@ -0,0 +1,126 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LifoForkingExecutorTest {
+
+  private ForkJoinPool pool;
+  private LifoForkingExecutor executor;
+  private List<String> executed;
+
+  @Before
+  public void setUp() {
+    // a single worker makes the order of execution deterministic
+    pool = new ForkJoinPool(1, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+    executor = new LifoForkingExecutor(pool);
+    executed = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  private Runnable job(String name) {
+    return () -> executed.add(name);
+  }
+
+  /** A job that signals the test that all jobs are executed. */
+  private Runnable lastJob(String name, CountDownLatch done) {
+    return () -> {
+      executed.add(name);
+      done.countDown();
+    };
+  }
+
+  /**
+   * Chains jobs like {@link ReachedSetExecutor#addNewTask(Runnable)}: the parent analysis
+   * registers a sub-analysis and afterwards its own continuation, which is only submitted when the
+   * current job of the parent is finished. The sub-analysis needs to be executed first.
+   */
+  @Test
+  public void testSubAnalysisBeforeContinuation() throws Exception {
+    CompletableFuture<Void> subChain = CompletableFuture.completedFuture(null);
+    List<CompletableFuture<Void>> subJobs = new ArrayList<>();
+    CompletableFuture<Void> parentChain =
+        CompletableFuture.runAsync(
+            () -> {
+              executed.add("parent");
+              subJobs.add(subChain.thenRunAsync(job("sub"), executor));
+            },
+            executor);
+    CompletableFuture<Void> continuation =
+        parentChain.thenRunAsync(job("parent continuation"), executor);
+
+    continuation.get(10, TimeUnit.SECONDS);
+    subJobs.get(0).get(10, TimeUnit.SECONDS);
+    assertThat(executed).containsExactly("parent", "sub", "parent continuation").inOrder();
+  }
+
+  @Test
+  public void testJobsSubmittedFirstAreExecutedFirst() throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          executed.add("root");
+          executor.execute(job("first"));
+          executor.execute(job("second"));
+          executor.execute(lastJob("third", done));
+        });
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(executed).containsExactly("root", "first", "second", "third").inOrder();
+  }
+
+  @Test
+  public void testNestedJobsAreExecutedDepthFirst() throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          executed.add("root");
+          executor.execute(
+              () -> {
+                executed.add("child");
+                executor.execute(job("grandchild"));
+              });
+          executor.execute(lastJob("sibling", done));
+        });
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(executed).containsExactly("root", "child", "grandchild", "sibling").inOrder();
+  }
+}
@@ -35,8 +35,10 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -44,6 +46,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -55,6 +58,7 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm.CPAAlgorithmFactory;
@@ -78,6 +82,20 @@ import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 @Options(prefix="algorithm.parallelBam")
 public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
 
+  /** The thread pool that executes the {@link ReachedSetExecutor}s. */
+  enum Scheduler {
+    /** a fixed thread pool with a single shared FIFO queue. */
+    FIXED_THREAD_POOL,
+
+    /**
+     * a work-stealing pool where each worker first executes the sub-analysis it scheduled itself
+     * (LIFO), such that blocks on the critical path are analyzed before their parents, and idle
+     * workers steal the remaining tasks, e.g., the continuation of the parent analysis (cf. {@link
+     * LifoForkingExecutor}).
+     */
+    WORK_STEALING,
+  }
+
   @Option(
     description =
         "number of threads, positive values match exactly, "
@@ -90,6 +108,9 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path runningRSESeriesFile = Paths.get("RSESeries.csv");
 
+  @Option(description = "which kind of thread pool to use for scheduling RSEs", secure = true)
+  private Scheduler scheduler = Scheduler.WORK_STEALING;
+
   private final ParallelBAMStatistics stats = new ParallelBAMStatistics();
   private final LogManager logger;
   private final LogManagerWithoutDuplicates oneTimeLogger;
@@ -129,7 +150,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
         new ConcurrentHashMap<>();
     final int numberOfCores = getNumberOfCores();
     oneTimeLogger.logfOnce(Level.INFO, "creating pool for %d threads", numberOfCores);
-    final ExecutorService pool = Executors.newFixedThreadPool(numberOfCores);
+    final ExecutorService pool = createPool(numberOfCores);
+    final Executor jobExecutor =
+        pool instanceof ForkJoinPool ? new LifoForkingExecutor((ForkJoinPool) pool) : pool;
+    stats.poolSize = numberOfCores;
     final AtomicReference<Throwable> error = new AtomicReference<>(null);
     final AtomicBoolean terminateAnalysis = new AtomicBoolean(false);
 
@@ -147,6 +171,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
             true,
             reachedSetMapping,
             pool,
+            jobExecutor,
             algorithmFactory,
             shutdownNotifier,
             stats,
@@ -172,6 +197,9 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
         isSound = false;
         pool.shutdownNow();
       }
+      if (pool instanceof ForkJoinPool) {
+        stats.numSteals.add(((ForkJoinPool) pool).getStealCount());
+      }
     }
 
     collectExceptions(reachedSetMapping, error, mainReachedSet);
@@ -194,6 +222,19 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     return AlgorithmStatus.SOUND_AND_PRECISE.withSound(isSound);
   }
 
+  private ExecutorService createPool(int numberOfCores) {
+    switch (scheduler) {
+      case FIXED_THREAD_POOL:
+        return Executors.newFixedThreadPool(numberOfCores);
+      case WORK_STEALING:
+        // asyncMode=false: local tasks are executed in LIFO order, stealing happens in FIFO order
+        return new ForkJoinPool(
+            numberOfCores, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+      default:
+        throw new AssertionError("unhandled scheduler " + scheduler);
+    }
+  }
+
   private int getNumberOfCores() {
     if (numberOfThreads > 0) {
       return numberOfThreads;
@@ -282,6 +323,18 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final StatHist histActiveThreads = new StatHist("Active threads");
     final StatHist executionCounter = new StatHist("RSE execution counter");
     private final StatCounter unfinishedRSEcounter = new StatCounter("unfinished reached-sets");
+    final LongAdder numSteals = new LongAdder();
+    private int poolSize = 0;
+
+    /**
+     * busy time (in nanoseconds) of all workers, summed up over all executed RSE jobs. This does
+     * not depend on the worker threads, which might be retired and recreated by the pool.
+     */
+    private final LongAdder totalBusyTime = new LongAdder();
+
+    void addBusyTime(long pNanos) {
+      totalBusyTime.add(pNanos);
+    }
 
     final StatisticsSeries<Integer> runningRSESeries =
         (runningRSESeriesFile == null) ? new NoopStatisticsSeries<>() : new StatisticsSeries<>();
@@ -296,6 +349,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       StatisticsUtils.write(pOut, 0, 50, threadTime);
       StatisticsUtils.write(pOut, 1, 50, addingStatesTime);
       StatisticsUtils.write(pOut, 1, 50, terminationCheckTime);
+      printWorkerStatistics(pOut);
 
       if (runningRSESeriesFile != null) {
         try {
@@ -306,6 +360,37 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       }
     }
 
+    private void printWorkerStatistics(PrintStream pOut) {
+      StatisticsUtils.write(pOut, 0, 50, "scheduler", scheduler);
+      if (scheduler == Scheduler.WORK_STEALING) {
+        StatisticsUtils.write(pOut, 0, 50, "number of stolen tasks", numSteals.sum());
+      }
+      long wallNanos = wallTime.getConsumedTime().asNanos();
+      if (poolSize == 0 || wallNanos == 0) {
+        return;
+      }
+      long totalBusyNanos = totalBusyTime.sum();
+      long avgIdleNanos = Math.max(0, wallNanos - totalBusyNanos / poolSize);
+      StatisticsUtils.write(
+          pOut,
+          0,
+          50,
+          "total busy time of workers",
+          TimeSpan.ofNanos(totalBusyNanos).formatAs(TimeUnit.SECONDS));
+      StatisticsUtils.write(
+          pOut,
+          0,
+          50,
+          "worker utilization",
+          StatisticsUtils.toPercent(totalBusyNanos, (double) wallNanos * poolSize));
+      StatisticsUtils.write(
+          pOut,
+          1,
+          50,
+          "average idle time per worker",
+          TimeSpan.ofNanos(avgIdleNanos).formatAs(TimeUnit.SECONDS));
+    }
+
     @Override
     public @Nullable String getName() {
       return "BAM-parallel";
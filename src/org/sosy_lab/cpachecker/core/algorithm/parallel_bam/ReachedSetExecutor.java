@@ -45,6 +45,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -102,6 +103,9 @@ class ReachedSetExecutor {
 
   private final ExecutorService pool;
 
+  /** executes the jobs of the RSEs on the {@link #pool}. */
+  private final Executor jobExecutor;
+
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final AlgorithmFactory algorithmFactory;
   private final ShutdownNotifier shutdownNotifier;
@@ -141,6 +145,7 @@ class ReachedSetExecutor {
       boolean pIsMainReachedSet,
       ConcurrentMap<ReachedSet, ReachedSetExecutor> pReachedSetMapping,
       ExecutorService pPool,
+      Executor pJobExecutor,
       AlgorithmFactory pAlgorithmFactory,
       ShutdownNotifier pShutdownNotifier,
       ParallelBAMStatistics pStats,
@@ -153,6 +158,7 @@ class ReachedSetExecutor {
     isMainReachedSet = pIsMainReachedSet;
     reachedSetMapping = pReachedSetMapping;
     pool = pPool;
+    jobExecutor = pJobExecutor;
     algorithmFactory = pAlgorithmFactory;
     shutdownNotifier = pShutdownNotifier;
     stats = pStats;
@@ -184,7 +190,7 @@ class ReachedSetExecutor {
   }
 
   synchronized void addNewTask(Runnable r) {
-    waitingTask = waitingTask.thenRunAsync(r, pool).exceptionally(new ExceptionHandler(this));
+    waitingTask = waitingTask.thenRunAsync(r, jobExecutor).exceptionally(new ExceptionHandler(this));
   }
 
   /** use only for debugging and exception handling */
@@ -200,6 +206,7 @@ class ReachedSetExecutor {
    * ReachedSet to ReachedSetExecutor that guarantees single-threaded access to each ReachedSet.
    */
   private void apply(Collection<AbstractState> pStatesToBeAdded) {
+    final long startTime = System.nanoTime();
     threadTimer.start();
     int running = stats.numActiveThreads.incrementAndGet();
     stats.histActiveThreads.insertValue(running);
@@ -267,6 +274,7 @@ class ReachedSetExecutor {
     } finally {
       stats.numActiveThreads.decrementAndGet();
       threadTimer.stop();
+      stats.addBusyTime(System.nanoTime() - startTime);
     }
   }
 
@@ -522,6 +530,7 @@ class ReachedSetExecutor {
             false, // mainReachedSet is never nested in another reached-set
             reachedSetMapping,
             pool,
+            jobExecutor,
             algorithmFactory,
             shutdownNotifier,
             stats,
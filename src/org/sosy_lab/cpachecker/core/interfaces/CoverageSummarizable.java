@@ -0,0 +1,54 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+
+/**
+ * Interface for abstract states that can summarize the part of their information that needs to
+ * be equal for coverage. The reached set can index states by this key and skip all states with a
+ * different key when looking for covering states (cf. {@link
+ * UnmodifiableReachedSet#getCoverageCandidates(AbstractState)}).
+ *
+ * <p>In contrast to the key of {@link Partitionable}, this key is only used for coverage checks
+ * and not for merging, so states with different keys may still be merged with each other.
+ */
+public interface CoverageSummarizable {
+
+  /**
+   * Returns a key that summarizes this state for coverage checks.
+   *
+   * <p>If this state is less or equal than another state (regarding the abstract domain of its
+   * CPA), and both keys are non-null, both keys need to be equal. The result may be null if the
+   * state can be compared with states of any key, e.g., for the top element of the lattice.
+   *
+   * <p>The same restrictions regarding equals() and hashCode() as for {@link
+   * Partitionable#getPartitionKey()} apply.
+   *
+   * @return a key for coverage checks, or null
+   */
+  @Nullable
+  Object getCoverageSummaryKey();
+}
@@ -83,6 +83,18 @@ public interface TransferRelation {
       CFAEdge cfaEdge)
           throws CPATransferException, InterruptedException;
 
+  /**
+   * Return whether {@link #getAbstractSuccessors(AbstractState, Precision)} may be called
+   * concurrently from several threads (for different states).
+   * This allows algorithms to compute successors of several states in parallel.
+   *
+   * <p>Transfer relations that wrap other transfer relations need to return true
+   * only if all wrapped transfer relations are thread-safe.
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
   /**
    * Updates an abstract state with information from the abstract states of other CPAs. An
    * implementation of this method should only modify the abstract state of the domain it belongs
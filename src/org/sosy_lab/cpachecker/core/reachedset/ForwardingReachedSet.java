@@ -78,6 +78,12 @@ public class ForwardingReachedSet implements ReachedSet, StatisticsProvider {
     return delegate.getReached(pState);
   }
 
+  @Override
+  public Collection<AbstractState> getCoverageCandidates(AbstractState pState)
+      throws UnsupportedOperationException {
+    return delegate.getCoverageCandidates(pState);
+  }
+
   @Override
   public Collection<AbstractState> getReached(CFANode pLocation) {
     return delegate.getReached(pLocation);
@@ -25,15 +25,25 @@ package org.sosy_lab.cpachecker.core.reachedset;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageSummarizable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
@@ -52,6 +62,16 @@ import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
  * for merging and coverage checks), it will return a subset of the set of all
  * reached states. This subset contains exactly those states, whose partition
  * key is equal to the key of the state given as a parameter.
+ *
+ * Optionally, each partition is further indexed by the keys of
+ * {@link CoverageSummarizable#getCoverageSummaryKey()}, such that
+ * {@link #getCoverageCandidates(AbstractState)} can skip all states
+ * that are known to not cover the given state without looking at them.
+ * In this case, the states are also indexed by the states they wrap,
+ * such that an exact duplicate of the given state is found by a hash lookup
+ * and returned as first candidate.
+ * Wrapper states like ARGState are compared by the states they wrap,
+ * because their own equality is identity.
  */
 public class PartitionedReachedSet extends DefaultReachedSet {
 
@@ -60,22 +80,68 @@ public class PartitionedReachedSet extends DefaultReachedSet {
   @SuppressFBWarnings("SE_BAD_FIELD")
   private final Multimap<Object, AbstractState> partitionedReached = LinkedHashMultimap.create(100, 1);
 
+  /** Marker for states without a coverage-summary key, these may cover any state. */
+  private static final Object ANY_SUMMARY = new Object();
+
+  /**
+   * Secondary index for coverage checks: partition key -> summary key -> states,
+   * or null if disabled. Partition keys may be null, thus a HashMap is used.
+   */
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final @Nullable Map<Object, SetMultimap<Object, AbstractState>> coverageIndex;
+
+  /**
+   * Index for finding exact duplicates: key of the wrapped states -> states,
+   * or null if the coverage index is disabled.
+   */
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final @Nullable SetMultimap<Object, AbstractState> duplicateIndex;
+
   public PartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    this(waitlistFactory, false);
+  }
+
+  /**
+   * @param pUseCoverageIndex whether to index the states by their coverage-summary keys
+   */
+  public PartitionedReachedSet(WaitlistFactory waitlistFactory, boolean pUseCoverageIndex) {
     super(waitlistFactory);
+    coverageIndex = pUseCoverageIndex ? new HashMap<>() : null;
+    duplicateIndex = pUseCoverageIndex ? LinkedHashMultimap.create() : null;
   }
 
   @Override
   public void add(AbstractState pState, Precision pPrecision) {
     super.add(pState, pPrecision);
 
-    partitionedReached.put(getPartitionKey(pState), pState);
+    Object key = getPartitionKey(pState);
+    partitionedReached.put(key, pState);
+
+    if (coverageIndex != null) {
+      coverageIndex
+          .computeIfAbsent(key, k -> LinkedHashMultimap.create())
+          .put(getCoverageSummaryKey(pState), pState);
+      duplicateIndex.put(getDuplicateKey(pState), pState);
+    }
   }
 
   @Override
   public void remove(AbstractState pState) {
     super.remove(pState);
 
-    partitionedReached.remove(getPartitionKey(pState), pState);
+    Object key = getPartitionKey(pState);
+    partitionedReached.remove(key, pState);
+
+    if (coverageIndex != null) {
+      SetMultimap<Object, AbstractState> index = coverageIndex.get(key);
+      if (index != null) {
+        index.remove(getCoverageSummaryKey(pState), pState);
+        if (index.isEmpty()) {
+          coverageIndex.remove(key);
+        }
+      }
+      duplicateIndex.remove(getDuplicateKey(pState), pState);
+    }
   }
 
   @Override
@@ -83,6 +149,10 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     super.clear();
 
     partitionedReached.clear();
+    if (coverageIndex != null) {
+      coverageIndex.clear();
+      duplicateIndex.clear();
+    }
   }
 
   @Override
@@ -90,6 +160,57 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return getReachedForKey(getPartitionKey(pState));
   }
 
+  @Override
+  public Collection<AbstractState> getCoverageCandidates(AbstractState pState) {
+    if (coverageIndex == null) {
+      return getReached(pState);
+    }
+    Collection<AbstractState> candidates = getIndexedCoverageCandidates(pState);
+    if (candidates.isEmpty()) {
+      return candidates;
+    }
+
+    // Shortcut for exact duplicates: check them first, they are covering for sure.
+    Set<AbstractState> duplicates =
+        ImmutableSet.copyOf(
+            Sets.filter(duplicateIndex.get(getDuplicateKey(pState)), candidates::contains));
+    if (duplicates.isEmpty()) {
+      return candidates;
+    }
+    return new AbstractCollection<AbstractState>() {
+      @Override
+      public Iterator<AbstractState> iterator() {
+        return Iterators.concat(
+            duplicates.iterator(),
+            Iterators.filter(candidates.iterator(), state -> !duplicates.contains(state)));
+      }
+
+      @Override
+      public int size() {
+        return candidates.size();
+      }
+    };
+  }
+
+  private Collection<AbstractState> getIndexedCoverageCandidates(AbstractState pState) {
+    Object summaryKey = getCoverageSummaryKey(pState);
+    if (summaryKey == ANY_SUMMARY) {
+      // no information, the state may be covered by any state of its partition
+      return getReached(pState);
+    }
+    SetMultimap<Object, AbstractState> index = coverageIndex.get(getPartitionKey(pState));
+    if (index == null) {
+      return Collections.emptySet();
+    }
+
+    Set<AbstractState> matching = index.get(summaryKey);
+    Set<AbstractState> unrestricted = index.get(ANY_SUMMARY);
+    if (unrestricted.isEmpty()) {
+      return Collections.unmodifiableSet(matching);
+    }
+    return Collections.unmodifiableSet(Sets.union(matching, unrestricted));
+  }
+
   public int getNumberOfPartitions() {
     return partitionedReached.keySet().size();
   }
@@ -114,6 +235,31 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return ((Partitionable)pState).getPartitionKey();
   }
 
+  private static Object getCoverageSummaryKey(AbstractState pState) {
+    if (pState instanceof CoverageSummarizable) {
+      Object key = ((CoverageSummarizable) pState).getCoverageSummaryKey();
+      if (key != null) {
+        return key;
+      }
+    }
+    return ANY_SUMMARY;
+  }
+
+  /**
+   * Key for finding exact duplicates of a state. Wrapper states (e.g., ARGState) are replaced by
+   * the keys of the states they wrap, because the wrappers themselves are compared by identity.
+   */
+  private static Object getDuplicateKey(AbstractState pState) {
+    if (pState instanceof AbstractWrapperState) {
+      ImmutableList.Builder<Object> keys = ImmutableList.builder();
+      for (AbstractState wrapped : ((AbstractWrapperState) pState).getWrappedStates()) {
+        keys.add(getDuplicateKey(wrapped));
+      }
+      return keys.build();
+    }
+    return pState;
+  }
+
   protected Collection<AbstractState> getReachedForKey(@Nullable Object key) {
     return Collections.unmodifiableCollection(partitionedReached.get(key));
   }
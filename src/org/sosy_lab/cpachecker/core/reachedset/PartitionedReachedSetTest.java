@@ -0,0 +1,217 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageSummarizable;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+
+public class PartitionedReachedSetTest {
+
+  private static final ImmutableList<String> SUMMARY_KEYS = ImmutableList.of("a", "b", "c");
+
+  private static final class TestState
+      implements AbstractState, Partitionable, PseudoPartitionable, CoverageSummarizable {
+
+    private final int id;
+    private final int partition;
+    private final @Nullable String summary;
+
+    private TestState(int pId, int pPartition, @Nullable String pSummary) {
+      id = pId;
+      partition = pPartition;
+      summary = pSummary;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partition;
+    }
+
+    @Override
+    public Comparable<?> getPseudoPartitionKey() {
+      return id % 4;
+    }
+
+    @Override
+    public Object getPseudoHashCode() {
+      return id % 2;
+    }
+
+    @Override
+    public @Nullable Object getCoverageSummaryKey() {
+      return summary;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (!(pObj instanceof TestState)) {
+        return false;
+      }
+      TestState other = (TestState) pObj;
+      return id == other.id
+          && partition == other.partition
+          && Objects.equals(summary, other.summary);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, partition, summary);
+    }
+
+    @Override
+    public String toString() {
+      return "State " + id + " (partition " + partition + ", summary " + summary + ")";
+    }
+  }
+
+  private List<TestState> states;
+
+  @Before
+  public void createStates() {
+    states = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      String summary = i % 5 == 0 ? null : SUMMARY_KEYS.get(i % SUMMARY_KEYS.size());
+      states.add(new TestState(i, i % 2, summary));
+    }
+  }
+
+  /** Candidates that a full scan of {@link ReachedSet#getReached(AbstractState)} would keep. */
+  private static List<AbstractState> scanForCandidates(ReachedSet reached, AbstractState state) {
+    Object stateKey = ((CoverageSummarizable) state).getCoverageSummaryKey();
+    return FluentIterable.from(reached.getReached(state))
+        .filter(
+            candidate -> {
+              Object key = ((CoverageSummarizable) candidate).getCoverageSummaryKey();
+              return key == null || stateKey == null || Objects.equals(key, stateKey);
+            })
+        .toList();
+  }
+
+  private void checkCandidates(ReachedSet reached) {
+    List<TestState> queries = new ArrayList<>(states);
+    queries.add(new TestState(100, 0, "a"));
+    queries.add(new TestState(101, 1, null));
+    queries.add(new TestState(102, 2, "b")); // partition without states
+    for (TestState state : queries) {
+      assertThat(reached.getCoverageCandidates(state))
+          .containsExactlyElementsIn(scanForCandidates(reached, state));
+    }
+  }
+
+  private void checkCandidatesAfterAddAndRemove(ReachedSet reached) {
+    for (TestState state : states) {
+      reached.add(state, SingletonPrecision.getInstance());
+    }
+    checkCandidates(reached);
+
+    for (int i = 0; i < states.size(); i += 3) {
+      reached.remove(states.get(i));
+    }
+    checkCandidates(reached);
+  }
+
+  @Test
+  public void testCoverageCandidatesWithIndex() {
+    checkCandidatesAfterAddAndRemove(new PartitionedReachedSet(TraversalMethod.BFS, true));
+  }
+
+  @Test
+  public void testCoverageCandidatesWithoutIndex() {
+    ReachedSet reached = new PartitionedReachedSet(TraversalMethod.BFS, false);
+    for (TestState state : states) {
+      reached.add(state, SingletonPrecision.getInstance());
+    }
+    for (TestState state : states) {
+      assertThat(reached.getCoverageCandidates(state))
+          .containsExactlyElementsIn(reached.getReached(state));
+    }
+  }
+
+  @Test
+  public void testCoverageCandidatesSkipOtherSummaries() {
+    ReachedSet reached = new PartitionedReachedSet(TraversalMethod.BFS, true);
+    TestState a = new TestState(0, 0, "a");
+    TestState b = new TestState(1, 0, "b");
+    TestState any = new TestState(2, 0, null);
+    reached.add(a, SingletonPrecision.getInstance());
+    reached.add(b, SingletonPrecision.getInstance());
+    reached.add(any, SingletonPrecision.getInstance());
+
+    assertThat(reached.getCoverageCandidates(new TestState(3, 0, "a")))
+        .containsExactly(a, any);
+    assertThat(reached.getCoverageCandidates(new TestState(4, 0, null)))
+        .containsExactly(a, b, any);
+  }
+
+  @Test
+  public void testCoverageCandidatesReturnDuplicatesFirst() {
+    ReachedSet reached = new PartitionedReachedSet(TraversalMethod.BFS, true);
+    List<ARGState> argStates = new ArrayList<>();
+    for (TestState state : states) {
+      ARGState argState = new ARGState(state, null);
+      argStates.add(argState);
+      reached.add(argState, SingletonPrecision.getInstance());
+    }
+
+    for (int i = states.size() - 1; i >= 0; i--) {
+      TestState state = states.get(i);
+      // new wrapper, which is not equal to the wrapper in the reached set
+      ARGState query =
+          new ARGState(new TestState(state.id, state.partition, state.summary), null);
+      Collection<AbstractState> candidates = reached.getCoverageCandidates(query);
+      assertThat(candidates).containsExactlyElementsIn(scanForCandidates(reached, query));
+      assertThat(candidates.iterator().next()).isSameAs(argStates.get(i));
+    }
+
+    reached.remove(argStates.get(0));
+    ARGState query = new ARGState(new TestState(0, 0, null), null);
+    assertThat(reached.getCoverageCandidates(query)).doesNotContain(argStates.get(0));
+    assertThat(reached.getCoverageCandidates(query))
+        .containsExactlyElementsIn(scanForCandidates(reached, query));
+  }
+
+  @Test
+  public void testPseudoPartitionedCoverageCandidates() {
+    checkCandidatesAfterAddAndRemove(new PseudoPartitionedReachedSet(TraversalMethod.BFS, true));
+  }
+}
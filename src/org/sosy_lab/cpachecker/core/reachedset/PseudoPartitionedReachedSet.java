@@ -35,7 +35,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageSummarizable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
@@ -55,6 +57,12 @@ import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
  *
  * This type of reached-set might work best in combination with an analysis
  * that uses the operators merge_sep and stop_sep.
+ *
+ * Optionally, {@link #getCoverageCandidates(AbstractState)} additionally skips states
+ * whose key of {@link CoverageSummarizable#getCoverageSummaryKey()} differs.
+ * In contrast to {@link PartitionedReachedSet}, there is no separate index for this,
+ * because the candidates are spread over several pseudo-partitions anyway,
+ * and are only filtered while iterating over them.
  */
 public class PseudoPartitionedReachedSet extends DefaultReachedSet {
 
@@ -70,8 +78,20 @@ public class PseudoPartitionedReachedSet extends DefaultReachedSet {
   private final HashBasedTable<Optional<Object>, Comparable<?>, SetMultimap<Object, AbstractState>>
       partitionedReached = HashBasedTable.create(1, 1);
 
+  private final boolean filterByCoverageSummary;
+
   public PseudoPartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    this(waitlistFactory, false);
+  }
+
+  /**
+   * @param pFilterByCoverageSummary whether to skip states with different coverage-summary keys
+   *     when returning candidates for coverage checks
+   */
+  public PseudoPartitionedReachedSet(
+      WaitlistFactory waitlistFactory, boolean pFilterByCoverageSummary) {
     super(waitlistFactory);
+    filterByCoverageSummary = pFilterByCoverageSummary;
   }
 
   @Override
@@ -150,6 +170,32 @@ public class PseudoPartitionedReachedSet extends DefaultReachedSet {
     return Collections.unmodifiableSet(states);
   }
 
+  @Override
+  public Set<AbstractState> getCoverageCandidates(AbstractState pState) {
+    Set<AbstractState> candidates = getReached(pState);
+    if (!filterByCoverageSummary) {
+      return candidates;
+    }
+    Object summaryKey = getCoverageSummaryKey(pState);
+    if (summaryKey == null) {
+      // no information, the state may be covered by any candidate
+      return candidates;
+    }
+    return Sets.filter(
+        candidates,
+        candidate -> {
+          Object candidateKey = getCoverageSummaryKey(candidate);
+          return candidateKey == null || candidateKey.equals(summaryKey);
+        });
+  }
+
+  private static @Nullable Object getCoverageSummaryKey(AbstractState pState) {
+    if (pState instanceof CoverageSummarizable) {
+      return ((CoverageSummarizable) pState).getCoverageSummaryKey();
+    }
+    return null;
+  }
+
   private static Comparable<?> getPseudoPartitionKey(AbstractState pState) {
     checkNotNull(pState);
     assert pState instanceof PseudoPartitionable
@@ -192,6 +192,17 @@ public class ReachedSetFactory {
   )
   private ReachedSetType reachedSet = ReachedSetType.PARTITIONED;
 
+  @Option(
+    secure = true,
+    name = "reachedSet.useCoverageIndex",
+    description =
+        "index the states of each partition by coverage-summary keys "
+            + "(e.g., the automaton states), such that coverage checks only need to look at "
+            + "states that may cover the new state (only for PARTITIONED and PSEUDOPARTITIONED, "
+            + "the latter only filters the candidates without an index)"
+  )
+  private boolean useCoverageIndex = false;
+
   private final Configuration config;
   private @Nullable BlockConfiguration blockConfig;
   private final LogManager logger;
@@ -263,10 +274,10 @@ public class ReachedSetFactory {
 
     switch (reachedSet) {
     case PARTITIONED:
-      return new PartitionedReachedSet(waitlistFactory);
+      return new PartitionedReachedSet(waitlistFactory, useCoverageIndex);
 
     case PSEUDOPARTITIONED:
-      return new PseudoPartitionedReachedSet(waitlistFactory);
+      return new PseudoPartitionedReachedSet(waitlistFactory, useCoverageIndex);
 
     case LOCATIONMAPPED:
       return new LocationMappedReachedSet(waitlistFactory);
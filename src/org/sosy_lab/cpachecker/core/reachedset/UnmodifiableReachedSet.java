@@ -64,6 +64,22 @@ public interface UnmodifiableReachedSet extends Iterable<AbstractState> {
   Collection<AbstractState> getReached(AbstractState state)
     throws UnsupportedOperationException;
 
+  /**
+   * Returns a subset of {@link #getReached(AbstractState)}, which contains at least all abstract
+   * states that may cover the given state. This should be used only for coverage checks, but not
+   * for merging, because implementations may exclude states that could be merged with the given
+   * state.
+   *
+   * <p>The returned collection is unmodifiable, but it is not guaranteed to be a view.
+   *
+   * @param state An abstract state for which covering states should be retrieved.
+   * @return A subset of the reached set.
+   */
+  default Collection<AbstractState> getCoverageCandidates(AbstractState state)
+      throws UnsupportedOperationException {
+    return getReached(state);
+  }
+
   /**
    * Returns a subset of the reached set, which contains at least all abstract
    * states belonging to given location. It may even
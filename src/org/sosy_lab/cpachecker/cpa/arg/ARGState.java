@@ -32,6 +32,7 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
 import com.google.common.collect.Sets;
 import com.google.common.graph.Traverser;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -54,14 +55,18 @@ import org.sosy_lab.cpachecker.util.AbstractStates;
 public class ARGState extends AbstractSingleWrapperState
     implements Comparable<ARGState>, Graphable, Splitable{
 
-  private static final long serialVersionUID = 2608287648397165040L;
+  private static final long serialVersionUID = 2608287648397165041L;
 
-  // We use a List here although we would like to have a Set
-  // because ArrayList is much more memory efficient than e.g. LinkedHashSet.
-  // Also these collections are small and so a slow contains() method won't hurt.
-  // To enforce set semantics, do not add elements except through addparent()!
-  private final Collection<ARGState> children = new ArrayList<>(1);
-  private final Collection<ARGState> parents = new ArrayList<>(1);
+  // Large analyses create millions of ARG states, and most of them have exactly one parent
+  // and at most one child, so we do not pay for a collection object per relation.
+  // Each of these fields is either null (no states), a single ARGState,
+  // or an ARGState[] with at least two elements (cf. asCollection(), with(), and without()).
+  // Arrays are never modified but replaced, so the views returned by getParents() and
+  // getChildren() do not change when the ARG is modified.
+  // Contains() is linear, but the relations are small, so this won't hurt.
+  // To enforce set semantics, do not add elements except through addParent()!
+  private @Nullable Object children = null;
+  private @Nullable Object parents = null;
 
   private ARGState mCoveredBy = null;
   private Set<ARGState> mCoveredByThis = null; // lazy initialization because rarely needed
@@ -94,9 +99,10 @@ public class ARGState extends AbstractSingleWrapperState
   /**
    * Get the parent elements of this state.
    * @return A unmodifiable collection of ARGStates without duplicates.
+   *     The collection is a snapshot and is not updated if the parents change.
    */
   public Collection<ARGState> getParents() {
-    return Collections.unmodifiableCollection(parents);
+    return asCollection(parents);
   }
 
   public void addParent(ARGState pOtherParent) {
@@ -104,22 +110,23 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (!parents.contains(pOtherParent)) {
-      assert !pOtherParent.children.contains(this);
-      parents.add(pOtherParent);
-      pOtherParent.children.add(this);
+    if (!contains(parents, pOtherParent)) {
+      assert !contains(pOtherParent.children, this);
+      parents = with(parents, pOtherParent);
+      pOtherParent.children = with(pOtherParent.children, this);
     } else {
-      assert pOtherParent.children.contains(this);
+      assert contains(pOtherParent.children, this);
     }
   }
 
   /**
    * Get the child elements of this state.
    * @return An unmodifiable collection of ARGStates without duplicates.
+   *     The collection is a snapshot and is not updated if the children change.
    */
   public Collection<ARGState> getChildren() {
     assert !destroyed : "Don't use destroyed ARGState " + this;
-    return Collections.unmodifiableCollection(children);
+    return asCollection(children);
   }
 
   /**
@@ -298,10 +305,10 @@ public class ARGState extends AbstractSingleWrapperState
   }
 
   void deleteChild(ARGState child) {
-    assert (children.contains(child));
-    assert (child.parents.contains(this));
-    children.remove(child);
-    child.parents.remove(this);
+    assert contains(children, child);
+    assert contains(child.parents, this);
+    children = without(children, child);
+    child.parents = without(child.parents, this);
   }
 
   // counterexample
@@ -389,9 +396,9 @@ public class ARGState extends AbstractSingleWrapperState
     sb.append(stateId);
     if (!destroyed) {
       sb.append(", Parents: ");
-      sb.append(stateIdsOf(parents));
+      sb.append(stateIdsOf(asCollection(parents)));
       sb.append(", Children: ");
-      sb.append(stateIdsOf(children));
+      sb.append(stateIdsOf(asCollection(children)));
 
       if (mCoveredBy != null) {
         sb.append(", Covered by: ");
@@ -476,18 +483,18 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // clear children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this));
-      child.parents.remove(this);
+    for (ARGState child : asCollection(children)) {
+      assert contains(child.parents, this);
+      child.parents = without(child.parents, this);
     }
-    children.clear();
+    children = null;
 
     // clear parents
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this));
-      parent.children.remove(this);
+    for (ARGState parent : asCollection(parents)) {
+      assert contains(parent.children, this);
+      parent.children = without(parent.children, this);
     }
-    parents.clear();
+    parents = null;
   }
 
   /**
@@ -507,19 +514,19 @@ public class ARGState extends AbstractSingleWrapperState
     assert !(this==replacement) : "Don't replace ARGState " + this + " with itself";
 
     // copy children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this)) : "Inconsistent ARG at " + this;
-      child.parents.remove(this);
+    for (ARGState child : asCollection(children)) {
+      assert contains(child.parents, this) : "Inconsistent ARG at " + this;
+      child.parents = without(child.parents, this);
       child.addParent(replacement);
     }
-    children.clear();
+    children = null;
 
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this)) : "Inconsistent ARG at " + this;
-      parent.children.remove(this);
+    for (ARGState parent : asCollection(parents)) {
+      assert contains(parent.children, this) : "Inconsistent ARG at " + this;
+      parent.children = without(parent.children, this);
       replacement.addParent(parent);
     }
-    parents.clear();
+    parents = null;
 
     if (mCoveredByThis != null) {
       if (replacement.mCoveredByThis == null) {
@@ -584,12 +591,74 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (parents.contains(pOtherParent)) {
-      assert pOtherParent.children.contains(this);
-      parents.remove(pOtherParent);
-      pOtherParent.children.remove(this);
+    if (contains(parents, pOtherParent)) {
+      assert contains(pOtherParent.children, this);
+      parents = without(parents, pOtherParent);
+      pOtherParent.children = without(pOtherParent.children, this);
     } else {
-      assert !pOtherParent.children.contains(this) : "Problem detected!";
+      assert !contains(pOtherParent.children, this) : "Problem detected!";
     }
   }
+
+  // compact representation of parent & child relations, cf. fields parents and children
+
+  private static Collection<ARGState> asCollection(@Nullable Object pStates) {
+    if (pStates == null) {
+      return Collections.emptyList();
+    } else if (pStates instanceof ARGState) {
+      return Collections.singletonList((ARGState) pStates);
+    } else {
+      return Collections.unmodifiableList(Arrays.asList((ARGState[]) pStates));
+    }
+  }
+
+  private static boolean contains(@Nullable Object pStates, ARGState pState) {
+    return indexOf(pStates, pState) >= 0;
+  }
+
+  /** Returns the position of a state in the relation, or -1 if it is not contained. */
+  private static int indexOf(@Nullable Object pStates, ARGState pState) {
+    if (pStates instanceof ARGState[]) {
+      ARGState[] states = (ARGState[]) pStates;
+      for (int i = 0; i < states.length; i++) {
+        if (states[i] == pState) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    return pStates == pState ? 0 : -1;
+  }
+
+  /** Returns the relation extended by a state that is not yet contained. */
+  private static Object with(@Nullable Object pStates, ARGState pState) {
+    if (pStates == null) {
+      return pState;
+    } else if (pStates instanceof ARGState) {
+      return new ARGState[] {(ARGState) pStates, pState};
+    } else {
+      ARGState[] states = (ARGState[]) pStates;
+      ARGState[] result = Arrays.copyOf(states, states.length + 1);
+      result[states.length] = pState;
+      return result;
+    }
+  }
+
+  /** Returns the relation without the given state (unchanged if it is not contained). */
+  private static @Nullable Object without(@Nullable Object pStates, ARGState pState) {
+    int index = indexOf(pStates, pState);
+    if (index < 0) {
+      return pStates;
+    } else if (!(pStates instanceof ARGState[])) {
+      return null;
+    }
+    ARGState[] states = (ARGState[]) pStates;
+    if (states.length == 2) {
+      return states[1 - index];
+    }
+    ARGState[] result = new ARGState[states.length - 1];
+    System.arraycopy(states, 0, result, 0, index);
+    System.arraycopy(states, index + 1, result, index, result.length - index);
+    return result;
+  }
 }
@@ -77,6 +77,12 @@ public class ARGTransferRelation implements TransferRelation {
     return wrappedSuccessors;
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    // successors of different states are attached to different parents in the ARG
+    return transferRelation.isThreadSafe();
+  }
+
   @Override
   public Collection<? extends AbstractState> getAbstractSuccessorsForEdge(
       AbstractState pState, Precision pPrecision, CFAEdge pCfaEdge) {
@@ -43,6 +43,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -59,6 +61,7 @@ import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -72,7 +75,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import javax.xml.parsers.ParserConfigurationException;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
 import org.sosy_lab.cpachecker.cfa.ast.AExpressionStatement;
@@ -130,10 +132,9 @@ import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.AssumeCase;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlWriter;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
 import org.sosy_lab.cpachecker.util.automaton.VerificationTaskMetaData;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
@@ -142,7 +143,6 @@ import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
 import org.sosy_lab.cpachecker.util.expressions.Or;
 import org.sosy_lab.cpachecker.util.expressions.Simplifier;
-import org.w3c.dom.Element;
 
 class WitnessWriter implements EdgeAppender {
 
@@ -1184,15 +1184,31 @@ class WitnessWriter implements EdgeAppender {
     // merge redundant sibling edges leading to the sink together, if possible
     mergeRedundantSinkEdges();
 
+    // Collect the data of all reachable nodes and edges first,
+    // because the keys need to be declared before the graph is written.
+    Map<String, ListMultimap<KeyDef, String>> nodes = new LinkedHashMap<>();
+    List<Edge> edges = new ArrayList<>();
+    collectElementsOfGraph(entryStateNodeId, nodes, edges);
+
+    Set<KeyDef> usedKeys = EnumSet.noneOf(KeyDef.class);
+    for (ListMultimap<KeyDef, String> nodeData : nodes.values()) {
+      usedKeys.addAll(nodeData.keySet());
+    }
+    for (Edge edge : edges) {
+      usedKeys.addAll(getEdgeData(edge).keySet());
+    }
+
     // Write elements
-    final GraphMlBuilder doc;
-    try {
-      doc = new GraphMlBuilder(graphType, defaultSourcefileName, cfa, verificationTaskMetaData);
-    } catch (ParserConfigurationException e) {
-      throw new IOException(e);
-    }
-    writeElementsOfGraphToDoc(doc, entryStateNodeId);
-    doc.appendTo(pTarget);
+    try (GraphMlWriter doc =
+        new GraphMlWriter(
+            pTarget, graphType, defaultSourcefileName, cfa, verificationTaskMetaData, usedKeys)) {
+      for (Map.Entry<String, ListMultimap<KeyDef, String>> node : nodes.entrySet()) {
+        doc.writeNode(node.getKey(), node.getValue().entries());
+      }
+      for (Edge edge : edges) {
+        doc.writeEdge(edge.getSource(), edge.getTarget(), getEdgeData(edge).entrySet());
+      }
+    }
   }
 
   /**
@@ -1312,28 +1328,28 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private void writeElementsOfGraphToDoc(GraphMlBuilder doc, String entryStateNodeId) {
-    Map<String, Element> nodes = Maps.newHashMap();
+  private void collectElementsOfGraph(
+      String entryStateNodeId, Map<String, ListMultimap<KeyDef, String>> nodes, List<Edge> edges) {
     Deque<String> waitlist = Queues.newArrayDeque();
     waitlist.push(entryStateNodeId);
-    Element entryNode = createNewNode(doc, entryStateNodeId);
-    addInvariantsData(doc, entryNode, entryStateNodeId);
+    ListMultimap<KeyDef, String> entryNode = createNewNode(entryStateNodeId);
+    addInvariantsData(entryNode, entryStateNodeId);
     nodes.put(entryStateNodeId, entryNode);
     while (!waitlist.isEmpty()) {
       String source = waitlist.pop();
       for (Edge edge : leavingEdges.get(source)) {
         setLoopHeadInvariantIfApplicable(edge.getTarget());
 
-        Element targetNode = nodes.get(edge.getTarget());
+        ListMultimap<KeyDef, String> targetNode = nodes.get(edge.getTarget());
         if (targetNode == null) {
-          targetNode = createNewNode(doc, edge.getTarget());
-          if (!ExpressionTrees.getFalse()
-              .equals(addInvariantsData(doc, targetNode, edge.getTarget()))) {
+          targetNode = createNewNode(edge.getTarget());
+          if (!ExpressionTrees.getFalse().equals(addInvariantsData(targetNode, edge.getTarget()))) {
             waitlist.push(edge.getTarget());
           }
           nodes.put(edge.getTarget(), targetNode);
         }
-        createNewEdge(doc, edge, targetNode);
+        addNodeDataOfEdge(edge, targetNode);
+        edges.add(edge);
       }
     }
   }
@@ -1374,16 +1390,16 @@ class WitnessWriter implements EdgeAppender {
   }
 
   private ExpressionTree<Object> addInvariantsData(
-      GraphMlBuilder pDoc, Element pNode, String pStateId) {
+      ListMultimap<KeyDef, String> pNode, String pStateId) {
     if (!invariantExportStates.contains(pStateId)) {
       return ExpressionTrees.getTrue();
     }
     ExpressionTree<Object> tree = getStateInvariant(pStateId);
     if (!tree.equals(ExpressionTrees.getTrue())) {
-      pDoc.addDataElementChild(pNode, KeyDef.INVARIANT, tree.toString());
+      pNode.put(KeyDef.INVARIANT, tree.toString());
       String scope = stateScopes.get(pStateId);
       if (scope != null && !scope.isEmpty() && !tree.equals(ExpressionTrees.getFalse())) {
-        pDoc.addDataElementChild(pNode, KeyDef.INVARIANTSCOPE, scope);
+        pNode.put(KeyDef.INVARIANTSCOPE, scope);
       }
     }
     return tree;
@@ -1660,38 +1676,37 @@ class WitnessWriter implements EdgeAppender {
     return false;
   }
 
-  private Element createNewEdge(GraphMlBuilder pDoc, Edge pEdge, Element pTargetNode) {
-    Element edge = pDoc.createEdgeElement(pEdge.getSource(), pEdge.getTarget());
+  private static Map<KeyDef, String> getEdgeData(Edge pEdge) {
+    return Maps.filterKeys(
+        pEdge.getLabel().getMapping(), keyDef -> keyDef.keyFor.equals(ElementType.EDGE));
+  }
+
+  private void addNodeDataOfEdge(Edge pEdge, ListMultimap<KeyDef, String> pTargetNode) {
     for (Map.Entry<KeyDef, String> entry : pEdge.getLabel().getMapping().entrySet()) {
-      KeyDef keyDef = entry.getKey();
-      String value = entry.getValue();
-      if (keyDef.keyFor.equals(ElementType.EDGE)) {
-        pDoc.addDataElementChild(edge, keyDef, value);
-      } else if (keyDef.keyFor.equals(ElementType.NODE)) {
-        pDoc.addDataElementChild(pTargetNode, keyDef, value);
+      if (entry.getKey().keyFor.equals(ElementType.NODE)) {
+        pTargetNode.put(entry.getKey(), entry.getValue());
       }
     }
-    return edge;
   }
 
-  private Element createNewNode(GraphMlBuilder pDoc, String pEntryStateNodeId) {
-    Element result = pDoc.createNodeElement(pEntryStateNodeId, NodeType.ONPATH);
+  private ListMultimap<KeyDef, String> createNewNode(String pEntryStateNodeId) {
+    ListMultimap<KeyDef, String> result = LinkedListMultimap.create();
 
     if (witnessOptions.exportNodeLabel()) {
       // add a printable label that for example is shown in yEd
-      pDoc.addDataElementChild(result, KeyDef.LABEL, pEntryStateNodeId);
+      result.put(KeyDef.LABEL, pEntryStateNodeId);
     }
 
     for (NodeFlag f : nodeFlags.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, f.key, "true");
+      result.put(f.key, "true");
     }
     for (Property violation : violatedProperties.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, KeyDef.VIOLATEDPROPERTY, violation.toString());
+      result.put(KeyDef.VIOLATEDPROPERTY, violation.toString());
     }
 
     if(stateQuasiInvariants.containsKey(pEntryStateNodeId)) {
       ExpressionTree<Object> tree = getQuasiInvariant(pEntryStateNodeId);
-        pDoc.addDataElementChild(result, KeyDef.INVARIANT, tree.toString());
+      result.put(KeyDef.INVARIANT, tree.toString());
     }
 
     return result;
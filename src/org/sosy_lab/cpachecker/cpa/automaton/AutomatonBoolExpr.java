@@ -403,6 +403,10 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       this.functionName = pFunctionName;
     }
 
+    String getFunctionName() {
+      return functionName;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       CFAEdge edge = pArgs.getCfaEdge();
@@ -510,6 +514,10 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       this.functionName = pFunctionName;
     }
 
+    String getFunctionName() {
+      return functionName;
+    }
+
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
       CFAEdge edge = pArgs.getCfaEdge();
@@ -1028,6 +1036,14 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           .anyMatch(matchDescriptor);
     }
 
+    FunctionEntryNode getMainEntry() {
+      return mainEntry;
+    }
+
+    java.util.function.Predicate<FileLocation> getMatchDescriptor() {
+      return matchDescriptor;
+    }
+
     @Override
     public String toString() {
       return "MATCH " + matchDescriptor;
@@ -30,6 +30,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
@@ -53,7 +54,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -68,11 +69,13 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nullable;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -107,11 +110,6 @@ import org.sosy_lab.cpachecker.util.expressions.DefaultExpressionTreeVisitor;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -935,34 +933,37 @@ public class AutomatonGraphmlParser {
       InputStream pInputStream, Set<Property> pProperties)
       throws IOException, WitnessParseException {
 
-    GraphMLDocumentData docDat = parseXML(pInputStream);
+    Map<String, GraphMLState> states = Maps.newHashMap();
+    Multimap<GraphMLState, GraphMLTransition> enteringTransitions = HashMultimap.create();
+    Multimap<GraphMLState, GraphMLTransition> leavingTransitions = HashMultimap.create();
+    NumericIdProvider numericIdProvider = NumericIdProvider.create();
+    Set<GraphMLState> entryStates = Sets.newHashSet();
+
+    // Transitions are collected while the document is read
+    GraphMLDocumentData docDat =
+        GraphMLDocumentData.read(
+            pInputStream,
+            (data, transition) ->
+                collectEdgeData(
+                    data,
+                    states,
+                    entryStates,
+                    leavingTransitions,
+                    enteringTransitions,
+                    numericIdProvider,
+                    transition));
 
     checkFields(docDat.getGraph());
 
     WitnessType graphType = getWitnessType(docDat.getGraph());
 
     // Extract the information on the automaton ----
-    Node nameAttribute = docDat.getGraph().getAttributes().getNamedItem("name");
+    String nameAttribute = docDat.getGraph().getAttribute("name");
     String automatonName = WITNESS_AUTOMATON_NAME;
     if (nameAttribute != null) {
-      automatonName += "_" + nameAttribute.getTextContent();
+      automatonName += "_" + nameAttribute;
     }
 
-    Map<String, GraphMLState> states = Maps.newHashMap();
-    Multimap<GraphMLState, GraphMLTransition> enteringTransitions = HashMultimap.create();
-    Multimap<GraphMLState, GraphMLTransition> leavingTransitions = HashMultimap.create();
-    NumericIdProvider numericIdProvider = NumericIdProvider.create();
-    Set<GraphMLState> entryStates = Sets.newHashSet();
-    for (Node transition : docDat.getTransitions()) {
-      collectEdgeData(
-          docDat,
-          states,
-          entryStates,
-          leavingTransitions,
-          enteringTransitions,
-          numericIdProvider,
-          transition);
-    }
     if (states.size() < docDat.idToNodeMap.size()) {
       for (String stateId : docDat.idToNodeMap.keySet()) {
         if (!states.containsKey(stateId)) {
@@ -1007,24 +1008,7 @@ public class AutomatonGraphmlParser {
     return state;
   }
 
-  private GraphMLDocumentData parseXML(InputStream pInputStream)
-      throws WitnessParseException, IOException {
-
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
-
-    return new GraphMLDocumentData(doc);
-  }
-
-  private void checkFields(Node graphNode) throws IOException, WitnessParseException {
+  private void checkFields(GraphMLElement graphNode) throws IOException, WitnessParseException {
 
     checkHashSum(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.PROGRAMHASH));
     checkArchitecture(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.ARCHITECTURE));
@@ -1062,7 +1046,7 @@ public class AutomatonGraphmlParser {
     return functionExitMatcher;
   }
 
-  private static boolean entersLoopHead(Node pTransition) throws WitnessParseException {
+  private static boolean entersLoopHead(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> loopHeadFlags =
         GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENTERLOOPHEAD);
     if (!loopHeadFlags.isEmpty()) {
@@ -1109,7 +1093,7 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which line numbers to assume.
    * @return a predicate to match file locations based on the line numbers specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(Node pTransition)
+  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(GraphMLElement pTransition)
       throws WitnessParseException {
     Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
     checkParsable(
@@ -1163,7 +1147,7 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which character offset to assume.
    * @return a predicate to match file locations based on the offsets specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(Node pTransition) throws WitnessParseException {
+  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
@@ -1217,7 +1201,7 @@ public class AutomatonGraphmlParser {
    * @return an automaton-transition condition for specific branches of an assumption corresponding
    *     to the control case specified by the given transition.
    */
-  private static AutomatonBoolExpr getAssumeCaseMatcher(Node pTransition) throws WitnessParseException {
+  private static AutomatonBoolExpr getAssumeCaseMatcher(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> assumeCaseTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.CONTROLCASE);
 
     if (assumeCaseTags.size() > 0) {
@@ -1248,7 +1232,7 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> getThread(
-      Node pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
     return parseThreadId(pTransition, pNumericIdProvider, KeyDef.THREADID, "At most one threadId tag must be provided for each transition.");
   }
 
@@ -1264,7 +1248,7 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> parseThreadId(
-      Node pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
       throws WitnessParseException {
     Set<String> threadIdTags = GraphMLDocumentData.getDataOnNode(pTransition, pKey);
 
@@ -1310,7 +1294,7 @@ public class AutomatonGraphmlParser {
       Multimap<GraphMLState, GraphMLTransition> pLeavingEdges,
       Multimap<GraphMLState, GraphMLTransition> pEnteringEdges,
       NumericIdProvider pNumericThreadIdProvider,
-      Node pTransition)
+      GraphMLElement pTransition)
       throws WitnessParseException {
     String sourceStateId =
         GraphMLDocumentData.getAttributeValue(
@@ -1358,14 +1342,14 @@ public class AutomatonGraphmlParser {
     pLeavingEdges.put(source, transition);
     pEnteringEdges.put(target, transition);
 
-    Element sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
+    GraphMLElement sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
     if (sourceStateNode == null) {
       throw new WitnessParseException(
           String.format(
               "Source %s of transition %s does not exist.",
               sourceStateId, transitionToString(pTransition)));
     }
-    Element targetStateNode = pDocDat.getNodeWithId(targetStateId);
+    GraphMLElement targetStateNode = pDocDat.getNodeWithId(targetStateId);
     if (targetStateNode == null) {
       throw new WitnessParseException(
           String.format(
@@ -1401,14 +1385,14 @@ public class AutomatonGraphmlParser {
       GraphMLDocumentData pDocDat,
       Map<String, GraphMLState> pStates,
       String pStateId,
-      Optional<Node> pReference)
+      Optional<GraphMLElement> pReference)
       throws WitnessParseException {
     GraphMLState result = pStates.get(pStateId);
     if (result != null) {
       return result;
     }
 
-    Element stateNode = pDocDat.getNodeWithId(pStateId);
+    GraphMLElement stateNode = pDocDat.getNodeWithId(pStateId);
     if (stateNode == null) {
       final String message;
       if (pReference.isPresent()) {
@@ -1437,7 +1421,7 @@ public class AutomatonGraphmlParser {
     return result;
   }
 
-  private static Optional<String> parseSingleDataValue(Node pEdge,
+  private static Optional<String> parseSingleDataValue(GraphMLElement pEdge,
       KeyDef pKey,
       String pErrorMessage) throws WitnessParseException {
     Set<String> values =
@@ -1453,7 +1437,7 @@ public class AutomatonGraphmlParser {
    * @param pAutomaton the GraphML graph node representing the witness automaton.
    * @return the witness-automaton type of an automaton represented as a GraphML graph.
    */
-  private WitnessType getWitnessType(Node pAutomaton) throws WitnessParseException {
+  private WitnessType getWitnessType(GraphMLElement pAutomaton) throws WitnessParseException {
     Set<String> witnessTypeText =
         GraphMLDocumentData.getDataOnNode(pAutomaton, KeyDef.WITNESS_TYPE);
     final WitnessType witnessType;
@@ -1477,26 +1461,24 @@ public class AutomatonGraphmlParser {
     return witnessType;
   }
 
-  private static String transitionToString(Node pTransition) {
+  private static String transitionToString(GraphMLElement pTransition) {
     if (pTransition == null) {
       return "null";
     }
-    NamedNodeMap attributes = pTransition.getAttributes();
-    if (attributes != null) {
-      Node id = attributes.getNamedItem("id");
-      if (id != null) {
-        return id.getNodeValue();
-      }
+    String id = pTransition.getAttribute("id");
+    if (id != null) {
+      return id;
     }
     return pTransition.toString();
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey)
+  private static void checkRequiredField(GraphMLElement pGraphNode, KeyDef pKey)
       throws WitnessParseException {
     checkRequiredField(pGraphNode, pKey, false);
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
+  private static void checkRequiredField(
+      GraphMLElement pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
       throws WitnessParseException {
     Iterable<String> data = GraphMLDocumentData.getDataOnNode(pGraphNode, pKey);
     if (Iterables.isEmpty(data)) {
@@ -1742,117 +1724,253 @@ public class AutomatonGraphmlParser {
 
   }
 
+  /** A GraphML element (graph, node, or edge) with its attributes and the values of its data. */
+  private static final class GraphMLElement {
+
+    private final String tagName;
+
+    private final ImmutableMap<String, String> attributes;
+
+    /** Map from data keys to the text contents of the data elements with this key. */
+    private final ImmutableListMultimap<String, String> data;
+
+    private GraphMLElement(
+        String pTagName,
+        ImmutableMap<String, String> pAttributes,
+        ImmutableListMultimap<String, String> pData) {
+      tagName = pTagName;
+      attributes = pAttributes;
+      data = pData;
+    }
+
+    private @Nullable String getAttribute(String pName) {
+      return attributes.get(pName);
+    }
+
+    @Override
+    public String toString() {
+      return tagName + " " + attributes;
+    }
+  }
+
+  /** Handler for GraphML edges that is called during reading of a GraphML document. */
+  @FunctionalInterface
+  private interface TransitionHandler {
+
+    void handle(GraphMLDocumentData pDocDat, GraphMLElement pTransition)
+        throws WitnessParseException;
+  }
+
+  /**
+   * The graph and the nodes of a GraphML document.
+   *
+   * <p>The document is read with a streaming XML reader and no document tree is built. Edges are
+   * not stored, but given to a {@link TransitionHandler}: If the source and target node of an edge
+   * have already been read, the edge is handled immediately. Otherwise, it is buffered until the
+   * end of the document, and so are all later edges, such that edges are handled in document
+   * order.
+   */
   private static class GraphMLDocumentData {
 
-    private final Node graph;
+    private @Nullable GraphMLElement graph = null;
 
-    private final ImmutableMap<String, Element> idToNodeMap;
+    private final Map<String, GraphMLElement> idToNodeMap = new LinkedHashMap<>();
 
-    private final Iterable<Node> transitions;
+    private GraphMLDocumentData() {}
 
-    public GraphMLDocumentData(Document pDocument) throws WitnessParseException {
+    /**
+     * Read a GraphML document.
+     *
+     * @param pInputStream the stream to read the document from.
+     * @param pTransitionHandler the handler for the edges of the graph, or null if only the data of
+     *     the graph is of interest and nodes and edges should be skipped.
+     */
+    static GraphMLDocumentData read(
+        InputStream pInputStream, @Nullable TransitionHandler pTransitionHandler)
+        throws IOException, WitnessParseException {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
 
-      NodeList graphs = pDocument.getElementsByTagName(GraphMLTag.GRAPH.toString());
-      checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-      graph = Objects.requireNonNull(graphs.item(0));
+      GraphMLDocumentData result = new GraphMLDocumentData();
+      try {
+        XMLStreamReader reader = factory.createXMLStreamReader(pInputStream);
+        try {
+          result.read(reader, pTransitionHandler);
+        } finally {
+          reader.close();
+        }
+      } catch (XMLStreamException e) {
+        if (e.getNestedException() instanceof IOException) {
+          throw (IOException) e.getNestedException();
+        }
+        throw new WitnessParseException(e);
+      }
+      return result;
+    }
+
+    private void read(XMLStreamReader pReader, @Nullable TransitionHandler pTransitionHandler)
+        throws XMLStreamException, WitnessParseException {
+      int graphs = 0;
+      List<GraphMLElement> pendingTransitions = new ArrayList<>();
+
+      // the graph and the node or edge that is currently read, if any
+      ElementBuilder graphBuilder = null;
+      ElementBuilder elementBuilder = null;
+
+      while (pReader.hasNext()) {
+        int event = pReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String tag = pReader.getLocalName();
+          if (tag.equals(GraphMLTag.GRAPH.toString())) {
+            graphs++;
+            checkParsable(graphs == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+            graphBuilder = new ElementBuilder(pReader);
+          } else if (graphBuilder != null
+              && elementBuilder == null
+              && (tag.equals(GraphMLTag.NODE.toString())
+                  || tag.equals(GraphMLTag.EDGE.toString()))) {
+            elementBuilder = new ElementBuilder(pReader);
+          } else if (tag.equals(GraphMLTag.DATA.toString())) {
+            String key = pReader.getAttributeValue(null, "key");
+            checkParsable(key != null, "Every data element must have a key attribute!");
+            String text = readTextContent(pReader);
+            ElementBuilder owner = elementBuilder != null ? elementBuilder : graphBuilder;
+            if (owner != null) {
+              owner.data.put(key, text);
+            }
+          }
 
-      ImmutableMap.Builder<String, Element> idToNodeMapBuilder = ImmutableMap.builder();
-      NodeList nodes = pDocument.getElementsByTagName(GraphMLTag.NODE.toString());
-      for (Node stateNode : asIterable(nodes)) {
-        String stateId = getAttributeValue(stateNode, "id", "Every state needs an ID!");
-        idToNodeMapBuilder.put(stateId, (Element) stateNode);
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          String tag = pReader.getLocalName();
+          if (elementBuilder != null && tag.equals(elementBuilder.tagName)) {
+            GraphMLElement element = elementBuilder.build();
+            elementBuilder = null;
+            if (pTransitionHandler == null) {
+              // only the graph is of interest
+            } else if (tag.equals(GraphMLTag.NODE.toString())) {
+              String stateId = element.getAttribute("id");
+              checkParsable(stateId != null, "Every state needs an ID!");
+              checkParsable(
+                  idToNodeMap.put(stateId, element) == null,
+                  String.format("The state id <%s> is not unique.", stateId));
+            } else if (pendingTransitions.isEmpty() && hasSourceAndTargetNodes(element)) {
+              pTransitionHandler.handle(this, element);
+            } else {
+              pendingTransitions.add(element);
+            }
+          } else if (graphBuilder != null && tag.equals(GraphMLTag.GRAPH.toString())) {
+            graph = graphBuilder.build();
+            graphBuilder = null;
+          }
+        }
       }
-      idToNodeMap = idToNodeMapBuilder.build();
 
-      transitions = asIterable(pDocument.getElementsByTagName(GraphMLTag.EDGE.toString()));
+      checkParsable(graph != null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+      for (GraphMLElement transition : pendingTransitions) {
+        pTransitionHandler.handle(this, transition);
+      }
     }
 
-    public Node getGraph() {
-      return graph;
+    private boolean hasSourceAndTargetNodes(GraphMLElement pTransition) {
+      String source = pTransition.getAttribute("source");
+      String target = pTransition.getAttribute("target");
+      return source != null
+          && target != null
+          && idToNodeMap.containsKey(source)
+          && idToNodeMap.containsKey(target);
+    }
+
+    /** Read the text content of the current element including all its descendants. */
+    private static String readTextContent(XMLStreamReader pReader) throws XMLStreamException {
+      StringBuilder result = new StringBuilder();
+      int depth = 1;
+      while (depth > 0) {
+        int event = pReader.next();
+        switch (event) {
+          case XMLStreamConstants.START_ELEMENT:
+            depth++;
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            result.append(pReader.getText());
+            break;
+          default:
+            break;
+        }
+      }
+      return result.toString();
     }
 
-    public Iterable<Node> getTransitions() {
-      return transitions;
+    public GraphMLElement getGraph() {
+      return graph;
     }
 
-    public EnumSet<NodeFlag> getNodeFlags(Element pStateNode) {
+    public EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
       EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
-
-      NodeList dataChilds = pStateNode.getElementsByTagName(GraphMLTag.DATA.toString());
-
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String key = attribute.getTextContent();
+      for (String key : pStateNode.data.keySet()) {
         NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
         if (flag != null) {
           result.add(flag);
         }
       }
-
       return result;
     }
 
-    private static String getAttributeValue(Node of, String attributeName, String exceptionMessage)
+    private static String getAttributeValue(
+        GraphMLElement of, String attributeName, String exceptionMessage)
         throws WitnessParseException {
-      Node attribute = of.getAttributes().getNamedItem(attributeName);
+      String attribute = of.getAttribute(attributeName);
       if (attribute == null) {
         throw new WitnessParseException(exceptionMessage);
       }
-      return attribute.getTextContent();
+      return attribute;
     }
 
-    private @Nullable Element getNodeWithId(String nodeId) {
-      Element result = idToNodeMap.get(nodeId);
-      if (result == null
-          || !result.getTagName().equals(GraphMLTag.NODE.toString())) {
-        return null;
+    private @Nullable GraphMLElement getNodeWithId(String nodeId) {
+      return idToNodeMap.get(nodeId);
+    }
+
+    private static Set<String> getDataOnNode(GraphMLElement node, final KeyDef dataKey) {
+      Preconditions.checkNotNull(node);
+      Set<String> result = Sets.newHashSet(node.data.get(dataKey.id));
+      // Backwards-compatibility: type/graph-type
+      if (result.isEmpty() && dataKey.equals(KeyDef.WITNESS_TYPE)) {
+        List<String> alternative = node.data.get("type");
+        if (!alternative.isEmpty()) {
+          result.add(alternative.get(0));
+        }
       }
       return result;
     }
 
-    private static Set<String> getDataOnNode(Node node, final KeyDef dataKey) {
-      Preconditions.checkNotNull(node);
-      Preconditions.checkArgument(node.getNodeType() == Node.ELEMENT_NODE);
+    /** Collects attributes and data of an element while it is read. */
+    private static class ElementBuilder {
 
-      Element nodeElement = (Element) node;
-      Set<Node> dataNodes = findKeyedDataNode(nodeElement, dataKey);
+      private final String tagName;
 
-      Set<String> result = Sets.newHashSet();
-      for (Node n: dataNodes) {
-        result.add(n.getTextContent());
-      }
+      private final ImmutableMap<String, String> attributes;
 
-      return result;
-    }
+      private final ImmutableListMultimap.Builder<String, String> data =
+          ImmutableListMultimap.builder();
 
-    private static Set<Node> findKeyedDataNode(Element of, final KeyDef dataKey) {
-      Set<Node> result = Sets.newHashSet();
-      Set<Node> alternative = null;
-      NodeList dataChilds = of.getElementsByTagName(GraphMLTag.DATA.toString());
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String nodeKey = attribute.getTextContent();
-        if (nodeKey.equals(dataKey.id)) {
-          result.add(dataChild);
-          alternative = null;
-        }
-        // Backwards-compatibility: type/graph-type
-        if (alternative == null
-            && result.isEmpty()
-            && dataKey.equals(KeyDef.WITNESS_TYPE)
-            && nodeKey.equals("type")) {
-          alternative = Sets.newHashSet();
-          alternative.add(dataChild);
+      private ElementBuilder(XMLStreamReader pReader) {
+        tagName = pReader.getLocalName();
+        Map<String, String> attributesBuilder = new LinkedHashMap<>();
+        for (int i = 0; i < pReader.getAttributeCount(); i++) {
+          attributesBuilder.put(pReader.getAttributeLocalName(i), pReader.getAttributeValue(i));
         }
+        attributes = ImmutableMap.copyOf(attributesBuilder);
       }
-      if (result.isEmpty() && alternative != null) {
-        return alternative;
+
+      private GraphMLElement build() {
+        return new GraphMLElement(tagName, attributes, data.build());
       }
-      return result;
     }
-
   }
 
   public static boolean isGraphmlAutomatonFromConfiguration(Path pPath)
@@ -1904,20 +2022,8 @@ public class AutomatonGraphmlParser {
 
   private static AutomatonGraphmlCommon.WitnessType getWitnessType(InputStream pInputStream)
       throws InvalidConfigurationException, IOException {
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
-
-    // (The one) root node of the graph ----
-    NodeList graphs = doc.getElementsByTagName(GraphMLTag.GRAPH.toString());
-    checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-    Node graphNode = graphs.item(0);
+    // Read only the data of (the one) graph, nodes and edges are skipped ----
+    GraphMLElement graphNode = GraphMLDocumentData.read(pInputStream, null).getGraph();
 
     checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
 
@@ -2038,28 +2144,4 @@ public class AutomatonGraphmlParser {
     }
   }
 
-
-  /** return a nice {@link Iterable} wrapping the interface {@link NodeList}. */
-  private static Iterable<Node> asIterable(final NodeList pNodeList) {
-    return new Iterable<Node>() {
-
-      @Override
-      public Iterator<Node> iterator() {
-        return new Iterator<Node>() {
-
-          private int index = 0;
-
-          @Override
-          public boolean hasNext() {
-            return index < pNodeList.getLength();
-          }
-
-          @Override
-          public Node next() {
-            return pNodeList.item(index++);
-          }
-        };
-      }
-    };
-  }
 }
@@ -24,10 +24,13 @@
 package org.sosy_lab.cpachecker.cpa.automaton;
 
 import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.UniqueIdGenerator;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.StringExpression;
 
 /** Represents a State in the automaton.
@@ -89,6 +92,9 @@ public class AutomatonInternalState {
   /** Outgoing transitions of this state. */
   private final ImmutableList<AutomatonTransition> transitions;
 
+  /** Index for finding the transitions that may match an edge, null for small states. */
+  private final @Nullable AutomatonTransitionIndex transitionIndex;
+
   private final boolean mIsTarget;
 
   /**
@@ -106,6 +112,10 @@ public class AutomatonInternalState {
       boolean pIsCycleStart) {
     this.name = pName;
     this.transitions = ImmutableList.copyOf(pTransitions);
+    this.transitionIndex =
+        transitions.size() >= AutomatonTransitionIndex.MIN_TRANSITIONS
+            ? new AutomatonTransitionIndex(transitions)
+            : null;
     this.mIsTarget = pIsTarget;
     this.mAllTransitions = pAllTransitions;
     this.isCycleStart = pIsCycleStart;
@@ -176,6 +186,19 @@ public class AutomatonInternalState {
     return transitions;
   }
 
+  /**
+   * Returns the positions (in {@link #getTransitions()}) of all transitions whose trigger may
+   * match the given edge. The triggers of all other transitions evaluate to false for this edge.
+   */
+  BitSet getCandidateTransitions(CFAEdge pEdge) {
+    if (transitionIndex == null) {
+      BitSet all = new BitSet(transitions.size());
+      all.set(0, transitions.size());
+      return all;
+    }
+    return transitionIndex.getCandidates(pEdge);
+  }
+
   @Override
   public String toString() {
     return this.name;
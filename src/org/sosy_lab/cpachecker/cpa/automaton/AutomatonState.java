@@ -37,9 +37,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithAssumptions;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageSummarizable;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
@@ -53,7 +55,9 @@ import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
  * This class combines a AutomatonInternal State with a variable Configuration.
  * Instances of this class are passed to the CPAchecker as AbstractState.
  */
-public class AutomatonState implements AbstractQueryableState, Targetable, Serializable, AbstractStateWithAssumptions, Graphable {
+public class AutomatonState
+    implements AbstractQueryableState, Targetable, Serializable, AbstractStateWithAssumptions,
+        Graphable, CoverageSummarizable {
 
   private static final long serialVersionUID = -4665039439114057346L;
   private static final String AutomatonAnalysisNamePrefix = "AutomatonAnalysis_";
@@ -84,6 +88,12 @@ public class AutomatonState implements AbstractQueryableState, Targetable, Seria
     public String toString() {
       return "AutomatonState.TOP";
     }
+
+    @Override
+    public @Nullable Object getCoverageSummaryKey() {
+      // covers all other states
+      return null;
+    }
   }
 
   static class BOTTOM extends AutomatonState {
@@ -401,6 +411,12 @@ public class AutomatonState implements AbstractQueryableState, Targetable, Seria
     return candidateInvariants;
   }
 
+  @Override
+  public @Nullable Object getCoverageSummaryKey() {
+    // the domain is flat, so states with different internal states never cover each other
+    return internalState;
+  }
+
   AutomatonInternalState getInternalState() {
     return internalState;
   }
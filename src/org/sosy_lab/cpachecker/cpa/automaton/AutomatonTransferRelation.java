@@ -35,6 +35,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -162,7 +163,16 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     List<Pair<AutomatonTransition, Map<Integer, AAstNode>>> transitionsToBeTaken =
         new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+    // only transitions that may match the edge need to be checked,
+    // the other ones are counted as failed matches
+    List<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    BitSet candidates = state.getInternalState().getCandidateTransitions(edge);
+    int nextUnchecked = 0;
+
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      AutomatonTransition t = transitions.get(i);
+      failedMatches += i - nextUnchecked;
+      nextUnchecked = i + 1;
       exprArgs.clearTransitionVariables();
 
       matchTime.start();
@@ -231,6 +241,10 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
         }
       }
     }
+    if (nonDetState || !edgeMatched) {
+      // no break happened, so all remaining transitions were not matching
+      failedMatches += transitions.size() - nextUnchecked;
+    }
 
     if (edgeMatched) {
       // execute Transitions
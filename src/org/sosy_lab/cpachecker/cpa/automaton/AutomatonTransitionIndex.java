@@ -0,0 +1,237 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdgeType;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchAssumeEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionCall;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionCallStatement;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionExit;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.OffsetMatcher;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
+
+/**
+ * Index over the outgoing transitions of an {@link AutomatonInternalState} that determines the
+ * transitions whose triggers may match a given CFA edge without evaluating the triggers.
+ *
+ * <p>The top-level conjuncts of each trigger are searched for conditions that depend only on the
+ * CFA edge (source lines, character offsets, entered or exited function, edge type), and the
+ * transition is registered under the most selective one. Transitions without such a condition
+ * are candidates for every edge. A conjunction evaluates to false as soon as one of its conjuncts
+ * does, so a transition that is not a candidate for an edge would never have matched it.
+ */
+final class AutomatonTransitionIndex {
+
+  /** States with fewer transitions are not indexed, because checking all of them is cheap. */
+  static final int MIN_TRANSITIONS = 8;
+
+  /** Transitions matching larger line ranges are not indexed by line. */
+  private static final int MAX_LINE_RANGE = 100;
+
+  /** Transitions matching larger offset ranges are not indexed by offset. */
+  private static final int MAX_OFFSET_RANGE = 10000;
+
+  private @Nullable FunctionEntryNode mainEntry = null;
+  private final RangeIndex originLines = new RangeIndex();
+  private final RangeIndex lines = new RangeIndex();
+  private final RangeIndex offsets = new RangeIndex();
+  private final Map<String, BitSet> functionEntries = new HashMap<>();
+  private final Map<String, BitSet> functionExits = new HashMap<>();
+  private final Map<CFAEdgeType, BitSet> edgeTypes = new EnumMap<>(CFAEdgeType.class);
+  private final BitSet unindexed = new BitSet();
+
+  AutomatonTransitionIndex(List<AutomatonTransition> pTransitions) {
+    for (int i = 0; i < pTransitions.size(); i++) {
+      List<AutomatonBoolExpr> conjuncts = new ArrayList<>();
+      collectConjuncts(pTransitions.get(i).getTrigger(), conjuncts);
+      if (!addByLocation(conjuncts, i)
+          && !addByFunction(conjuncts, i)
+          && !addByEdgeType(conjuncts, i)) {
+        unindexed.set(i);
+      }
+    }
+  }
+
+  private static void collectConjuncts(AutomatonBoolExpr pExpr, List<AutomatonBoolExpr> pResult) {
+    if (pExpr instanceof And) {
+      collectConjuncts(((And) pExpr).a, pResult);
+      collectConjuncts(((And) pExpr).b, pResult);
+    } else {
+      pResult.add(pExpr);
+    }
+  }
+
+  private boolean addByLocation(List<AutomatonBoolExpr> pConjuncts, int pIndex) {
+    for (AutomatonBoolExpr conjunct : pConjuncts) {
+      if (!(conjunct instanceof MatchLocationDescriptor)) {
+        continue;
+      }
+      MatchLocationDescriptor descriptor = (MatchLocationDescriptor) conjunct;
+      // all indexed descriptors need to compute the locations of an edge in the same way
+      if (mainEntry == null) {
+        mainEntry = descriptor.getMainEntry();
+      } else if (!Objects.equals(mainEntry, descriptor.getMainEntry())) {
+        continue;
+      }
+      Predicate<FileLocation> matcher = descriptor.getMatchDescriptor();
+      if (matcher instanceof LineMatcher) {
+        LineMatcher lineMatcher = (LineMatcher) matcher;
+        RangeIndex index = lineMatcher.isOrigin() ? originLines : lines;
+        if (index.add(
+            lineMatcher.getStartLineNumber(),
+            lineMatcher.getEndLineNumber(),
+            MAX_LINE_RANGE,
+            pIndex)) {
+          return true;
+        }
+      } else if (matcher instanceof OffsetMatcher) {
+        OffsetMatcher offsetMatcher = (OffsetMatcher) matcher;
+        if (offsets.add(
+            offsetMatcher.getStartOffset(),
+            offsetMatcher.getEndOffset(),
+            MAX_OFFSET_RANGE,
+            pIndex)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean addByFunction(List<AutomatonBoolExpr> pConjuncts, int pIndex) {
+    for (AutomatonBoolExpr conjunct : pConjuncts) {
+      if (conjunct instanceof MatchFunctionCall) {
+        // matches only edges whose successor belongs to the called function
+        String function = ((MatchFunctionCall) conjunct).getFunctionName();
+        functionEntries.computeIfAbsent(function, k -> new BitSet()).set(pIndex);
+        return true;
+      } else if (conjunct instanceof MatchFunctionExit) {
+        // matches only edges whose predecessor belongs to the exited function
+        String function = ((MatchFunctionExit) conjunct).getFunctionName();
+        functionExits.computeIfAbsent(function, k -> new BitSet()).set(pIndex);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean addByEdgeType(List<AutomatonBoolExpr> pConjuncts, int pIndex) {
+    for (AutomatonBoolExpr conjunct : pConjuncts) {
+      if (conjunct instanceof MatchFunctionCallStatement) {
+        edgeTypes.computeIfAbsent(CFAEdgeType.StatementEdge, k -> new BitSet()).set(pIndex);
+        return true;
+      } else if (conjunct == MatchAssumeEdge.INSTANCE) {
+        edgeTypes.computeIfAbsent(CFAEdgeType.AssumeEdge, k -> new BitSet()).set(pIndex);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the positions of all transitions that may match the given edge. All other
+   * transitions are guaranteed to not match it.
+   */
+  BitSet getCandidates(CFAEdge pEdge) {
+    BitSet result = (BitSet) unindexed.clone();
+
+    if (!originLines.isEmpty() || !lines.isEmpty() || !offsets.isEmpty()) {
+      for (FileLocation location :
+          AutomatonGraphmlCommon.getFileLocationsFromCfaEdge(pEdge, mainEntry)) {
+        originLines.collect(
+            location.getStartingLineInOrigin(), location.getEndingLineInOrigin(), result);
+        lines.collect(location.getStartingLineNumber(), location.getEndingLineNumber(), result);
+        offsets.collect(
+            location.getNodeOffset(),
+            location.getNodeOffset() + location.getNodeLength() - 1,
+            result);
+      }
+    }
+
+    orIfPresent(result, functionEntries.get(pEdge.getSuccessor().getFunctionName()));
+    orIfPresent(result, functionExits.get(pEdge.getPredecessor().getFunctionName()));
+    orIfPresent(result, edgeTypes.get(pEdge.getEdgeType()));
+    return result;
+  }
+
+  private static void orIfPresent(BitSet pTarget, @Nullable BitSet pBits) {
+    if (pBits != null) {
+      pTarget.or(pBits);
+    }
+  }
+
+  /** Index of closed ranges by their start, such that overlapping ranges can be found quickly. */
+  private static final class RangeIndex {
+
+    private final NavigableMap<Integer, BitSet> byStart = new TreeMap<>();
+    private int maxLength = 0;
+
+    private boolean add(int pStart, int pEnd, int pMaxLength, int pIndex) {
+      int length = pEnd - pStart;
+      if (length > pMaxLength) {
+        return false;
+      }
+      maxLength = Math.max(maxLength, length);
+      byStart.computeIfAbsent(pStart, k -> new BitSet()).set(pIndex);
+      return true;
+    }
+
+    private boolean isEmpty() {
+      return byStart.isEmpty();
+    }
+
+    /**
+     * Add all indexed ranges that may overlap with the given range to the result. Ranges that
+     * start within maxLength before the given range are included even if they end before it.
+     */
+    private void collect(int pStart, int pEnd, BitSet pResult) {
+      if (byStart.isEmpty()) {
+        return;
+      }
+      // empty locations have an end before their start, but may still be matched
+      int low = Math.min(pStart, pEnd);
+      int high = Math.max(pStart, pEnd);
+      for (BitSet bits : byStart.subMap(low - maxLength, true, high, true).values()) {
+        pResult.or(bits);
+      }
+    }
+  }
+}
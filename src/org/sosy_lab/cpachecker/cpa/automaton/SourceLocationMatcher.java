@@ -101,6 +101,19 @@ class SourceLocationMatcher {
       this(pFileName, pStartLineNumber, pEndLineNumber, true);
     }
 
+    int getStartLineNumber() {
+      return startLineNumber;
+    }
+
+    int getEndLineNumber() {
+      return endLineNumber;
+    }
+
+    /** Whether this matcher refers to line numbers in the original source file. */
+    boolean isOrigin() {
+      return origin;
+    }
+
     @Override
     public int hashCode() {
       return Objects.hash(getOriginFileName(), startLineNumber, endLineNumber, origin);
@@ -160,6 +173,14 @@ class SourceLocationMatcher {
       this.endOffset = pEndOffset;
     }
 
+    int getStartOffset() {
+      return startOffset;
+    }
+
+    int getEndOffset() {
+      return endOffset;
+    }
+
     @Override
     public int hashCode() {
       return Objects.hash(getOriginFileName(), startOffset, endOffset);
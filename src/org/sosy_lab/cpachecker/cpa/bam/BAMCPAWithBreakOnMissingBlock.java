@@ -38,6 +38,7 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheStriped;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheSynchronized;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerSynchronized;
@@ -56,6 +57,14 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
   )
   private boolean breakForMissingBlock = true;
 
+  @Option(
+    secure = true,
+    description =
+        "use a lock-striped cache for block abstractions instead of guarding "
+            + "the whole cache with a single lock"
+  )
+  private boolean useStripedCache = true;
+
   private final BAMCache cache;
   private final BAMDataManager data;
 
@@ -71,7 +80,11 @@ public class BAMCPAWithBreakOnMissingBlock extends AbstractBAMCPA {
     super(pCpa, pConfig, pLogger, pShutdownNotifier, pSpecification, pCfa);
     pConfig.inject(this);
 
-    cache = new BAMCacheSynchronized(pConfig, getReducer(), pLogger);
+    if (useStripedCache) {
+      cache = new BAMCacheStriped(pConfig, getReducer(), pLogger);
+    } else {
+      cache = new BAMCacheSynchronized(pConfig, getReducer(), pLogger);
+    }
     data = new BAMDataManagerSynchronized(cache, reachedsetFactory, pLogger);
   }
 
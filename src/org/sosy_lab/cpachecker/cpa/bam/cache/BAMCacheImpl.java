@@ -48,12 +48,26 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
 
-@Options(prefix = "cpa.bam")
 public class BAMCacheImpl implements BAMCache {
 
-  @Option(secure=true, description = "If enabled, the reached set cache is analysed "
-      + "for each cache miss to find the cause of the miss.")
-  private boolean gatherCacheMissStatistics = false;
+  /** The option for cache-miss statistics, also used by {@link BAMCacheStriped}. */
+  @Options(prefix = "cpa.bam")
+  static final class CacheMissStatisticsOption {
+
+    @Option(secure=true, description = "If enabled, the reached set cache is analysed "
+        + "for each cache miss to find the cause of the miss.")
+    private boolean gatherCacheMissStatistics = false;
+
+    CacheMissStatisticsOption(Configuration pConfig) throws InvalidConfigurationException {
+      pConfig.inject(this);
+    }
+
+    boolean isEnabled() {
+      return gatherCacheMissStatistics;
+    }
+  }
+
+  private final boolean gatherCacheMissStatistics;
 
   private final Timer hashingTimer = new Timer();
   private final Timer equalsTimer = new Timer();
@@ -77,7 +91,7 @@ public class BAMCacheImpl implements BAMCache {
       Configuration config,
       Reducer reducer,
       LogManager logger) throws InvalidConfigurationException {
-    config.inject(this, BAMCacheImpl.class);
+    gatherCacheMissStatistics = new CacheMissStatisticsOption(config).isEnabled();
     this.reducer = reducer;
     this.logger = logger;
   }
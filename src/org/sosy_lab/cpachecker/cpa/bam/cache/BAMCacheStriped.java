@@ -0,0 +1,377 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.ImmutableList;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.StatHist;
+
+/**
+ * A thread-safe cache that splits its entries into several stripes, each guarded by its own
+ * lock, such that threads accessing different blocks or states do not block each other.
+ * Like in {@link BAMCacheImpl}, the entries of each stripe are kept in a linked order to avoid
+ * non-determinism, here in the order of their last access.
+ *
+ * <p>Optionally, the number of entries is bounded. If a stripe grows too large, its least-recently
+ * used entries whose analysis is finished are evicted. An evicted block is simply analyzed again
+ * on the next request for it. Entries whose analysis is still running are never evicted. Note that
+ * this bounds only the number of cache entries and not the memory usage: the reached sets of
+ * evicted entries are still referenced by the {@link BAMDataManager}.
+ */
+@Options(prefix = "cpa.bam.cache")
+public class BAMCacheStriped implements BAMCache {
+
+  @Option(secure = true, description = "number of independently locked parts of the BAM cache")
+  @IntegerOption(min = 1)
+  private int stripes = 64;
+
+  @Option(
+    secure = true,
+    description =
+        "maximum number of entries in the BAM cache (0 for unbounded). "
+            + "The least-recently used entries of finished blocks are removed if necessary "
+            + "and recomputed on demand. This limit counts entries, not memory: "
+            + "entries of different size count the same, the reached-sets of removed entries "
+            + "are still kept for the ARG, and a recomputed block is stored again."
+  )
+  @IntegerOption(min = 0)
+  private int maxEntries = 0;
+
+  private final boolean gatherCacheMissStatistics;
+  private final Stripe[] stripeArray;
+  private final int maxEntriesPerStripe;
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  private volatile @Nullable BAMCacheEntry lastAnalyzedEntry = null;
+
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder partialCacheHits = new LongAdder();
+  private final LongAdder fullCacheHits = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder abstractionCausedMisses = new LongAdder();
+  private final LongAdder precisionCausedMisses = new LongAdder();
+  private final LongAdder noSimilarCausedMisses = new LongAdder();
+  private final LongAdder lockAccesses = new LongAdder();
+  private final LongAdder contendedLockAccesses = new LongAdder();
+
+  public BAMCacheStriped(Configuration pConfig, Reducer pReducer, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    gatherCacheMissStatistics = new BAMCacheImpl.CacheMissStatisticsOption(pConfig).isEnabled();
+    reducer = pReducer;
+    logger = pLogger;
+    stripeArray = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      stripeArray[i] = new Stripe();
+    }
+    // round up such that the total number of entries is at least maxEntries
+    maxEntriesPerStripe = (maxEntries + stripes - 1) / stripes;
+  }
+
+  /** Key of a cache entry, its hash code is computed once outside of any lock. */
+  private static final class Key {
+
+    private final Object wrappedHash;
+    private final Block context;
+    private final int hashCode;
+
+    // only used for finding the cause of cache misses
+    private final AbstractState stateKey;
+    private final Precision precisionKey;
+
+    private Key(
+        Object pWrappedHash, Block pContext, AbstractState pStateKey, Precision pPrecisionKey) {
+      wrappedHash = checkNotNull(pWrappedHash);
+      context = checkNotNull(pContext);
+      stateKey = pStateKey;
+      precisionKey = pPrecisionKey;
+      hashCode = wrappedHash.hashCode() * 17 + context.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) pObj;
+      return hashCode == other.hashCode
+          && context.equals(other.context)
+          && wrappedHash.equals(other.wrappedHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return "Key [hash=" + hashCode + ", wrappedHash=" + wrappedHash + ", context=" + context + "]";
+    }
+  }
+
+  private final class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // we use LinkedHashMaps to avoid non-determinism,
+    // in access order such that eviction removes the least-recently used entries first
+    private final Map<Key, BAMCacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private void lock() {
+      lockAccesses.increment();
+      if (!lock.tryLock()) {
+        contendedLockAccesses.increment();
+        lock.lock();
+      }
+    }
+
+    /** Remove the least-recently used entries of finished blocks, requires the lock. */
+    private void evictIfNecessary() {
+      if (maxEntriesPerStripe <= 0) {
+        return;
+      }
+      Iterator<BAMCacheEntry> it = entries.values().iterator();
+      while (entries.size() > maxEntriesPerStripe && it.hasNext()) {
+        BAMCacheEntry entry = it.next();
+        if (entry.getExitStates() != null) {
+          it.remove();
+          evictions.increment();
+        }
+      }
+    }
+  }
+
+  private Key getKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return new Key(
+        reducer.getHashCodeForState(stateKey, precisionKey), context, stateKey, precisionKey);
+  }
+
+  private Stripe getStripe(Key key) {
+    int h = key.hashCode;
+    return stripeArray[Math.floorMod(h ^ (h >>> 16), stripeArray.length)];
+  }
+
+  @Override
+  public BAMCacheEntry put(
+      AbstractState stateKey, Precision precisionKey, Block context, ReachedSet rs) {
+    Key key = getKey(stateKey, precisionKey, context);
+    BAMCacheEntry entry = new BAMCacheEntry(rs);
+    Stripe stripe = getStripe(key);
+    stripe.lock();
+    try {
+      stripe.entries.put(key, entry);
+      stripe.evictIfNecessary();
+    } finally {
+      stripe.lock.unlock();
+    }
+    return entry;
+  }
+
+  @Override
+  public BAMCacheEntry get(AbstractState stateKey, Precision precisionKey, Block context) {
+    Key key = getKey(stateKey, precisionKey, context);
+    Stripe stripe = getStripe(key);
+    final BAMCacheEntry entry;
+    stripe.lock();
+    try {
+      entry = stripe.entries.get(key);
+    } finally {
+      stripe.lock.unlock();
+    }
+
+    lastAnalyzedEntry = entry;
+    if (entry == null) {
+      cacheMisses.increment();
+      logger.log(Level.FINEST, "CACHE_ACCESS: entry not available");
+      if (gatherCacheMissStatistics) {
+        findCacheMissCause(stateKey, precisionKey, context);
+      }
+    } else if (entry.getExitStates() == null) {
+      // we have cached a partly computed reached-set
+      partialCacheHits.increment();
+      logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+    } else {
+      fullCacheHits.increment();
+      logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+    }
+    return entry;
+  }
+
+  private void findCacheMissCause(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    for (Stripe stripe : stripeArray) {
+      // copy the keys such that the reducer is not called while holding the lock
+      final List<Key> cacheKeys;
+      stripe.lock();
+      try {
+        cacheKeys = new ArrayList<>(stripe.entries.keySet());
+      } finally {
+        stripe.lock.unlock();
+      }
+
+      for (Key cacheKey : cacheKeys) {
+        // check whether it is the same if we ignore the precision
+        Key ignorePrecisionSearchKey = getKey(pStateKey, cacheKey.precisionKey, pContext);
+        if (ignorePrecisionSearchKey.equals(cacheKey)) {
+          precisionCausedMisses.increment();
+          return;
+        }
+
+        // Precision was not the cause. Check abstraction.
+        Key ignoreAbsSearchKey = getKey(cacheKey.stateKey, pPrecisionKey, pContext);
+        if (ignoreAbsSearchKey.equals(cacheKey)) {
+          abstractionCausedMisses.increment();
+          return;
+        }
+      }
+    }
+    noSimilarCausedMisses.increment();
+  }
+
+  @Override
+  @Deprecated
+  public ARGState getLastAnalyzedBlock() {
+    BAMCacheEntry entry = lastAnalyzedEntry;
+    return entry == null ? null : entry.getRootOfBlock();
+  }
+
+  @Override
+  public boolean containsPreciseKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    Key key = getKey(stateKey, precisionKey, context);
+    Stripe stripe = getStripe(key);
+    stripe.lock();
+    try {
+      return stripe.entries.containsKey(key);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /** Returns a snapshot of all currently cached reached-sets. */
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    ImmutableList.Builder<ReachedSet> result = ImmutableList.builder();
+    for (Stripe stripe : stripeArray) {
+      stripe.lock();
+      try {
+        for (BAMCacheEntry entry : stripe.entries.values()) {
+          result.add(entry.getReachedSet());
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return result.build();
+  }
+
+  @Override
+  public void clear() {
+    for (Stripe stripe : stripeArray) {
+      stripe.lock();
+      try {
+        stripe.entries.clear();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    lastAnalyzedEntry = null;
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+    long misses = cacheMisses.sum();
+    long partialHits = partialCacheHits.sum();
+    long fullHits = fullCacheHits.sum();
+    long sumCalls = misses + partialHits + fullHits;
+    long accesses = lockAccesses.sum();
+    long contended = contendedLockAccesses.sum();
+
+    StatHist argStats = new StatHist("") {
+          @Override
+          public String toString() {
+            // overriding, because printing all sizes is not that interesting
+            return String.format("%.0f (#=%d, avg=%.2f, dev=%.2f, min=%d, max=%d)",
+                getSum(), getUpdateCount(), getAvg(), getStdDeviation(), getMin(), getMax());
+          }
+        };
+    for (UnmodifiableReachedSet subreached : getAllCachedReachedStates()) {
+      argStats.insertValue(subreached.size());
+    }
+
+    out.println("Total size of all ARGs:                              " + argStats);
+    out.println("Total number of recursive CPA calls:                 " + sumCalls);
+    out.println("  Number of cache misses:                            " + misses + " (" + toPercent(misses, sumCalls) + " of all calls)");
+    out.println("  Number of partial cache hits:                      " + partialHits + " (" + toPercent(partialHits, sumCalls) + " of all calls)");
+    out.println("  Number of full cache hits:                         " + fullHits + " (" + toPercent(fullHits, sumCalls) + " of all calls)");
+    if (gatherCacheMissStatistics) {
+      long abstractionMisses = abstractionCausedMisses.sum();
+      long precisionMisses = precisionCausedMisses.sum();
+      long noSimilarMisses = noSimilarCausedMisses.sum();
+      out.println("Cause for cache misses:                              ");
+      out.println("  Number of abstraction caused misses:               " + abstractionMisses + " (" + toPercent(abstractionMisses, misses) + " of all misses)");
+      out.println("  Number of precision caused misses:                 " + precisionMisses + " (" + toPercent(precisionMisses, misses) + " of all misses)");
+      out.println("  Number of misses with no similar elements:         " + noSimilarMisses + " (" + toPercent(noSimilarMisses, misses) + " of all misses)");
+    }
+    out.println("Number of cache stripes:                             " + stripeArray.length);
+    out.println("Number of evicted cache entries:                     " + evictions.sum());
+    out.println("Number of contended cache accesses:                  " + contended + " (" + toPercent(contended, accesses) + " of all accesses)");
+  }
+
+  @Override
+  public String getName() {
+    return "BAMCache";
+  }
+}
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.callstack;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.io.Serializable;
@@ -60,6 +61,13 @@ public class CallstackState
   protected transient CFANode callerNode;
   private final int depth;
 
+  /**
+   * Cached collection with this state as only element, such that the transfer relation does not
+   * need to allocate anything for the many edges that do not change the callstack. Created lazily,
+   * concurrent initializations are harmless because the collection is immutable.
+   */
+  private transient @Nullable ImmutableList<CallstackState> asSingleton;
+
   public CallstackState(
       @Nullable CallstackState pPreviousElement,
       @Nonnull String pFunction,
@@ -92,6 +100,15 @@ public class CallstackState
     return depth;
   }
 
+  ImmutableList<CallstackState> asSingleton() {
+    ImmutableList<CallstackState> result = asSingleton;
+    if (result == null) {
+      result = ImmutableList.of(this);
+      asSingleton = result;
+    }
+    return result;
+  }
+
   /** for logging and debugging */
   private List<String> getStack() {
     final List<String> stack = new ArrayList<>();
@@ -26,8 +26,12 @@ package org.sosy_lab.cpachecker.cpa.callstack;
 import static org.sosy_lab.cpachecker.util.CFAUtils.leavingEdges;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -78,8 +82,9 @@ public class CallstackTransferRelation extends SingleEdgeTransferRelation {
    * into two calls f-g and g-f, which are both non-recursive.)
    * A function-call in a recursive context will be skipped,
    * if the Option 'skipRecursion' is enabled.
+   * Volatile, because the flag is read by the threads that compute successors.
    */
-  private boolean isRecursiveContext = false;
+  private volatile boolean isRecursiveContext = false;
 
   @Option(secure=true, description = "Skip recursion if it happens only by going via a function pointer (this is unsound)." +
       " Imprecise function pointer tracking often lead to false recursions.")
@@ -88,11 +93,36 @@ public class CallstackTransferRelation extends SingleEdgeTransferRelation {
   @Option(secure=true, description = "Skip recursion if it happens only by going via a void function (this is unsound).")
   protected boolean skipVoidRecursion = false;
 
-  protected final LogManagerWithoutDuplicates logger;
+  protected final LogManager logger;
+
+  /**
+   * Messages that were already logged by {@link #logOnce(Level, Object...)}.
+   * This is a concurrent set instead of a {@link LogManagerWithoutDuplicates},
+   * because successors might be computed by several threads.
+   */
+  private final Set<List<Object>> loggedMessages = ConcurrentHashMap.newKeySet();
 
   public CallstackTransferRelation(Configuration config, LogManager pLogger) throws InvalidConfigurationException {
     config.inject(this, CallstackTransferRelation.class);
-    logger = new LogManagerWithoutDuplicates(pLogger);
+    logger = pLogger;
+  }
+
+  /**
+   * The options are only set during construction, {@link #isRecursiveContext} is volatile,
+   * messages are logged only once via a concurrent set,
+   * and callstack states are immutable and can be shared between threads.
+   * This also holds for {@link CallstackTransferRelationBackwards}.
+   */
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  /** Log a message, but only if the same message was not logged before. */
+  protected void logOnce(Level pLevel, Object... pArgs) {
+    if (logger.wouldBeLogged(pLevel) && loggedMessages.add(Arrays.asList(pArgs))) {
+      logger.log(pLevel, pArgs);
+    }
   }
 
   @Override
@@ -141,7 +171,7 @@ public class CallstackTransferRelation extends SingleEdgeTransferRelation {
         if (hasRecursion(e, calledFunction)) {
           if (skipRecursiveFunctionCall(e, (FunctionCallEdge)pEdge)) {
             // skip recursion, don't enter function
-            logger.logOnce(Level.WARNING, "Skipping recursive function call from",
+            logOnce(Level.WARNING, "Skipping recursive function call from",
                 pred.getFunctionName(), "to", calledFunction);
             return Collections.emptySet();
           } else {
@@ -185,14 +215,14 @@ public class CallstackTransferRelation extends SingleEdgeTransferRelation {
                 || isWildcardState(returnElement, AnalysisDirection.FORWARD);
         }
 
-        return Collections.singleton(returnElement);
+        return returnElement.asSingleton();
       }
 
     default:
       break;
     }
 
-    return Collections.singleton(pElement);
+    return e.asSingleton();
   }
 
   /**
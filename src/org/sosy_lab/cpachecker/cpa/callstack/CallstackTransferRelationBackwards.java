@@ -103,7 +103,7 @@ public class CallstackTransferRelationBackwards extends CallstackTransferRelatio
       CFANode correspondingCallNode = edge.getSummaryEdge().getPredecessor();
         if (hasRecursion(e, nextAnalysisFunction)) {
           if (skipRecursion) {
-            logger.logOnce(
+            logOnce(
                 Level.WARNING, "Skipping recursive function call from",
                 prevAnalysisFunction, "to", nextAnalysisFunction);
 
@@ -158,7 +158,7 @@ public class CallstackTransferRelationBackwards extends CallstackTransferRelatio
       break;
     }
 
-    return Collections.singleton(pElement);
+    return e.asSingleton();
   }
 
   @Override
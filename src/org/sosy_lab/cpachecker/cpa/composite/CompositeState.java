@@ -37,8 +37,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageSummarizable;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
@@ -48,12 +50,16 @@ import org.sosy_lab.cpachecker.cpa.arg.Splitable;
 
 public class CompositeState
     implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable, Serializable,
-        Graphable, Splitable {
+        Graphable, Splitable, CoverageSummarizable {
   private static final long serialVersionUID = -5143296331663510680L;
   private final ImmutableList<AbstractState> states;
   private transient Object partitionKey; // lazily initialized
   private transient Comparable<?> pseudoPartitionKey; // lazily initialized
   private transient Object pseudoHashCode; // lazily initialized
+  private transient Object coverageSummaryKey; // lazily initialized
+
+  /** Cached instead of null if one of the components has no coverage-summary key. */
+  private static final Object NO_COVERAGE_SUMMARY = new Object();
 
   public CompositeState(List<AbstractState> elements) {
     this.states = ImmutableList.copyOf(elements);
@@ -200,6 +206,32 @@ public class CompositeState
     return pseudoHashCode;
   }
 
+  @Override
+  public @Nullable Object getCoverageSummaryKey() {
+    if (coverageSummaryKey == null) {
+      Object[] keys = new Object[states.size()];
+      Object result = null;
+
+      int i = 0;
+      for (AbstractState element : states) {
+        if (element instanceof CoverageSummarizable) {
+          keys[i] = ((CoverageSummarizable) element).getCoverageSummaryKey();
+          if (keys[i] == null) {
+            // this component may be covered by or cover states with any key
+            result = NO_COVERAGE_SUMMARY;
+            break;
+          }
+        }
+        i++;
+      }
+
+      // wrap array of keys in object to enable overriding of equals and hashCode
+      coverageSummaryKey = result != null ? result : new CompositePartitionKey(keys);
+    }
+
+    return coverageSummaryKey == NO_COVERAGE_SUMMARY ? null : coverageSummaryKey;
+  }
+
   private static final class CompositePartitionKey implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -104,6 +104,11 @@ final class CompositeTransferRelation implements TransferRelation {
     return results;
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return transferRelations.stream().allMatch(TransferRelation::isThreadSafe);
+  }
+
   @Override
   public Collection<CompositeState> getAbstractSuccessorsForEdge(
       AbstractState element, Precision precision, CFAEdge cfaEdge)
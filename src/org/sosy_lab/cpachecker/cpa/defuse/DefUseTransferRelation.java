@@ -91,4 +91,9 @@ public class DefUseTransferRelation extends SingleEdgeTransferRelation {
 
     return Collections.singleton(defUseState);
   }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
 }
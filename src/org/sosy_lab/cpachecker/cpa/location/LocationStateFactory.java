@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.location;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
 
 import org.sosy_lab.common.configuration.Configuration;
@@ -36,6 +37,7 @@ import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.AnalysisDirection;
 import org.sosy_lab.cpachecker.cpa.location.LocationState.BackwardsLocationState;
+import org.sosy_lab.cpachecker.util.CFAUtils;
 
 import java.util.Collection;
 
@@ -44,6 +46,11 @@ public class LocationStateFactory {
 
   private final LocationState[] states;
 
+  // Collections of states that are returned as successors by the transfer relations,
+  // cached such that successor computation does not need to allocate anything.
+  private final ImmutableList<LocationState>[] singletonStates;
+  private final ImmutableList<LocationState>[] successorStates;
+
   private final AnalysisDirection locationType;
 
   @Option(
@@ -55,6 +62,7 @@ public class LocationStateFactory {
   )
   private boolean followFunctionCalls = true;
 
+  @SuppressWarnings("unchecked")
   public LocationStateFactory(CFA pCfa, AnalysisDirection pLocationType, Configuration config)
       throws InvalidConfigurationException {
     config.inject(this);
@@ -70,9 +78,12 @@ public class LocationStateFactory {
 
     int maxNodeNumber = allNodes.last().getNodeNumber();
     states = new LocationState[maxNodeNumber + 1];
+    singletonStates = new ImmutableList[maxNodeNumber + 1];
+    successorStates = new ImmutableList[maxNodeNumber + 1];
     for (CFANode node : allNodes) {
       LocationState state = createLocationState(node);
       states[node.getNodeNumber()] = state;
+      singletonStates[node.getNodeNumber()] = ImmutableList.of(state);
     }
   }
 
@@ -92,6 +103,45 @@ public class LocationStateFactory {
     }
   }
 
+  /** Return a collection with the state for the given node as its only element. */
+  ImmutableList<LocationState> getSingletonState(CFANode node) {
+    int nodeNumber = checkNotNull(node).getNodeNumber();
+
+    if (nodeNumber >= 0 && nodeNumber < states.length && states[nodeNumber] != null) {
+      return singletonStates[nodeNumber];
+    } else {
+      return ImmutableList.of(getState(node));
+    }
+  }
+
+  /**
+   * Return the states for the successors of the given node (excluding the one reachable via the
+   * summary edge).
+   */
+  ImmutableList<LocationState> getSuccessorStates(CFANode node) {
+    int nodeNumber = checkNotNull(node).getNodeNumber();
+
+    if (nodeNumber >= 0 && nodeNumber < states.length && states[nodeNumber] != null) {
+      // computed lazily, because only forward analyses need it,
+      // concurrent computations are harmless as the result is immutable
+      ImmutableList<LocationState> successors = successorStates[nodeNumber];
+      if (successors == null) {
+        successors = computeSuccessorStates(node);
+        successorStates[nodeNumber] = successors;
+      }
+      return successors;
+    } else {
+      return computeSuccessorStates(node);
+    }
+  }
+
+  private ImmutableList<LocationState> computeSuccessorStates(CFANode node) {
+    if (node.getNumLeavingEdges() == 1) {
+      return getSingletonState(node.getLeavingEdge(0).getSuccessor());
+    }
+    return CFAUtils.successorsOf(node).transform(this::getState).toList();
+  }
+
   private LocationState createLocationState(CFANode node) {
     return locationType == AnalysisDirection.BACKWARD
         ? new BackwardsLocationState(node, followFunctionCalls)
@@ -23,15 +23,14 @@
  */
 package org.sosy_lab.cpachecker.cpa.location;
 
+import com.google.common.collect.ImmutableList;
 import java.util.Collection;
-import java.util.Collections;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
-import org.sosy_lab.cpachecker.util.CFAUtils;
 
 public class LocationTransferRelation implements TransferRelation {
 
@@ -47,11 +46,17 @@ public class LocationTransferRelation implements TransferRelation {
 
     CFANode node = ((LocationState) element).getLocationNode();
 
-    if (CFAUtils.allLeavingEdges(node).contains(cfaEdge)) {
-      return Collections.singleton(factory.getState(cfaEdge.getSuccessor()));
+    // this is called for every edge in nearly every analysis, so avoid allocations here
+    if (cfaEdge.equals(node.getLeavingSummaryEdge())) {
+      return factory.getSingletonState(cfaEdge.getSuccessor());
+    }
+    for (int i = 0; i < node.getNumLeavingEdges(); i++) {
+      if (cfaEdge.equals(node.getLeavingEdge(i))) {
+        return factory.getSingletonState(cfaEdge.getSuccessor());
+      }
     }
 
-    return Collections.emptySet();
+    return ImmutableList.of();
   }
 
   @Override
@@ -59,6 +64,11 @@ public class LocationTransferRelation implements TransferRelation {
       Precision prec) throws CPATransferException {
 
     CFANode node = ((LocationState) element).getLocationNode();
-    return CFAUtils.successorsOf(node).transform(n -> factory.getState(n)).toList();
+    return factory.getSuccessorStates(node);
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
   }
 }
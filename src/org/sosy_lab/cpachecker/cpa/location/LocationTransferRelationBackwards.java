@@ -51,8 +51,13 @@ public class LocationTransferRelationBackwards implements TransferRelation {
     LocationState predState = (LocationState) state;
     CFANode predLocation = predState.getLocationNode();
 
-    if (CFAUtils.allEnteringEdges(predLocation).contains(cfaEdge)) {
-      return Collections.singleton(factory.getState(cfaEdge.getPredecessor()));
+    if (cfaEdge.equals(predLocation.getEnteringSummaryEdge())) {
+      return factory.getSingletonState(cfaEdge.getPredecessor());
+    }
+    for (int i = 0; i < predLocation.getNumEnteringEdges(); i++) {
+      if (cfaEdge.equals(predLocation.getEnteringEdge(i))) {
+        return factory.getSingletonState(cfaEdge.getPredecessor());
+      }
     }
 
     return Collections.emptySet();
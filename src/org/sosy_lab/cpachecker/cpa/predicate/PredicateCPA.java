@@ -23,9 +23,12 @@
  */
 package org.sosy_lab.cpachecker.cpa.predicate;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -131,6 +134,9 @@ public class PredicateCPA
   private final FormulaManagerView formulaManager;
   private final PredicateCpaOptions options;
 
+  // additional solvers for worker threads, e.g., of concurrent refinement
+  private final List<Solver> workerSolvers = new ArrayList<>();
+
   // path formulas for PCC
   private final Map<PredicateAbstractState, PathFormula> computedPathFormulaePcc = new HashMap<>();
 
@@ -164,7 +170,7 @@ public class PredicateCPA
 
     PathFormulaManager pfMgr = new PathFormulaManagerImpl(formulaManager, config, logger, shutdownNotifier, cfa, direction);
     if (useCache) {
-      pfMgr = new CachingPathFormulaManager(pfMgr);
+      pfMgr = new CachingPathFormulaManager(pfMgr, config);
     }
     pathFormulaManager = pfMgr;
 
@@ -286,6 +292,18 @@ public class PredicateCPA
     return shutdownNotifier;
   }
 
+  /**
+   * Get separate solvers for the given number of worker threads. They are created on first use
+   * and kept until this CPA is closed, because creating a solver context is expensive.
+   */
+  synchronized List<Solver> getWorkerSolvers(int pNumThreads)
+      throws InvalidConfigurationException {
+    while (workerSolvers.size() < pNumThreads) {
+      workerSolvers.add(Solver.create(config, logger, shutdownNotifier));
+    }
+    return ImmutableList.copyOf(workerSolvers.subList(0, pNumThreads));
+  }
+
   @Override
   public AbstractState getInitialState(CFANode node, StateSpacePartition pPartition) {
     return PredicateAbstractState.mkAbstractionState(
@@ -321,6 +339,10 @@ public class PredicateCPA
 
   @Override
   public void close() {
+    synchronized (this) {
+      workerSolvers.forEach(Solver::close);
+      workerSolvers.clear();
+    }
     solver.close();
   }
 
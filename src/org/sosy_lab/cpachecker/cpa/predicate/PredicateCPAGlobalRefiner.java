@@ -27,20 +27,35 @@ import static java.util.Collections.unmodifiableList;
 import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.getPredicateState;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsWriter.writingStatisticsTo;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -61,6 +76,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -84,16 +100,33 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
   @IntegerOption(min = 0)
   private int stopAfterNRefinements = 0;
 
+  @Option(
+    secure = true,
+    description =
+        "Number of threads for checking the feasibility of the error paths and computing their"
+            + " interpolants concurrently. Each thread uses its own solver instance."
+            + " With 1 thread, the error paths are checked sequentially in a tree-like manner"
+            + " such that common prefixes are checked only once."
+  )
+  @IntegerOption(min = 1)
+  private int threads = 1;
+
   // statistics
   private final StatTimer totalTime = new StatTimer("Time for refinement");
   private final StatTimer interpolationTime = new StatTimer("Time for interpolation");
   private final StatTimer satCheckTime = new StatTimer("Time for sat-checks");
+  private final StatTimer concurrentCheckTime =
+      new StatTimer("Time for concurrent checks of error paths");
+  private final StatCounter concurrentlyCheckedPaths =
+      new StatCounter("Number of concurrently checked error paths");
 
   private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
   private final GlobalRefinementStrategy strategy;
   private final Solver solver;
   private final BooleanFormulaManager bfmgr;
   private final ARGCPA argCPA;
+  private final PredicateCPA predicateCPA;
 
   public PredicateCPAGlobalRefiner(
       final LogManager pLogger,
@@ -101,14 +134,19 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       final GlobalRefinementStrategy pStrategy,
       final Solver pSolver,
       final ARGCPA pArgcpa,
-      final Configuration pConfig) throws InvalidConfigurationException {
+      final PredicateCPA pPredicateCpa,
+      final Configuration pConfig,
+      final ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
     pConfig.inject(this);
 
     logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
     bfmgr = pFmgr.getBooleanFormulaManager();
     solver = pSolver;
     strategy = pStrategy;
     argCPA = pArgcpa;
+    predicateCPA = pPredicateCpa;
 
     logger.log(
         Level.INFO,
@@ -185,6 +223,10 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
     final ARGState root = (ARGState) pReached.asReachedSet().getFirstState();
     assert successors.containsKey(root);
 
+    if (threads > 1 && targets.size() > 1) {
+      return doConcurrentRefinement(root, predecessors, pReached, targets);
+    }
+
     // Now predecessors/successors contains all abstraction states on all error
     // paths and their relations.
     // These states and the relation form a tree.
@@ -352,6 +394,210 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
     strategy.performRefinement(reached, pAbstractionStatesTrace, interpolants, false);
   }
 
+  /**
+   * Check all error paths independently of each other and concurrently, with one solver instance
+   * per thread, and afterwards perform refinement on the infeasible paths sequentially.
+   *
+   * <p>Formulas cannot be shared between solver instances, thus block formulas and interpolants
+   * are exchanged as SMT-LIB strings. The solver of the predicate analysis is accessed only from
+   * the current thread. If several paths share an infeasible prefix, refinement is performed only
+   * for one of them, like in the sequential variant.
+   */
+  private Optional<ARGState> doConcurrentRefinement(
+      final ARGState root,
+      final Map<ARGState, ARGState> predecessors,
+      final ARGReachedSet pReached,
+      final List<AbstractState> targets)
+      throws CPAException, InterruptedException, SolverException {
+    final FormulaManagerView fmgr = solver.getFormulaManager();
+
+    // collect the abstraction states (without the root) and block formulas of each path
+    final List<List<ARGState>> paths = new ArrayList<>(targets.size());
+    final List<List<String>> pathFormulas = new ArrayList<>(targets.size());
+    final Map<ARGState, String> dumpedBlockFormulas = new HashMap<>();
+    for (AbstractState target : targets) {
+      List<ARGState> path = new ArrayList<>();
+      for (ARGState current = (ARGState) target; current != root; ) {
+        path.add(current);
+        current = predecessors.get(current);
+      }
+      path = Lists.reverse(path);
+
+      List<String> formulas = new ArrayList<>(path.size());
+      for (ARGState state : path) {
+        formulas.add(
+            dumpedBlockFormulas.computeIfAbsent(
+                state,
+                s ->
+                    fmgr.dumpFormula(
+                            getPredicateState(s)
+                                .getAbstractionFormula()
+                                .getBlockFormula()
+                                .getFormula())
+                        .toString()));
+      }
+      paths.add(path);
+      pathFormulas.add(formulas);
+    }
+
+    // check the paths concurrently
+    final List<PathCheckResult> results;
+    concurrentCheckTime.start();
+    final int numThreads = Math.min(threads, paths.size());
+    final AtomicReferenceArray<PathCheckResult> pathResults =
+        new AtomicReferenceArray<>(paths.size());
+    final AtomicInteger nextPath = new AtomicInteger(0);
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            numThreads,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("PredicateGlobalRefiner-worker-%d")
+                .build());
+    try {
+      final List<Solver> solvers = predicateCPA.getWorkerSolvers(numThreads);
+      final List<Future<?>> futures = new ArrayList<>(numThreads);
+      for (Solver workerSolver : solvers) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  int i;
+                  while ((i = nextPath.getAndIncrement()) < paths.size()) {
+                    shutdownNotifier.shutdownIfNecessary();
+                    pathResults.set(i, checkPath(workerSolver, pathFormulas.get(i)));
+                    concurrentlyCheckedPaths.inc();
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      results = new ArrayList<>(paths.size());
+      for (int i = 0; i < paths.size(); i++) {
+        results.add(pathResults.get(i));
+      }
+
+    } catch (InvalidConfigurationException e) {
+      throw new CPAException("Could not create solver for concurrent refinement", e);
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      Throwables.propagateIfPossible(
+          t, CPAException.class, SolverException.class, InterruptedException.class);
+      throw new UnexpectedCheckedException("concurrent refinement", t);
+    } finally {
+      // Let the remaining workers stop after their current path (in case of an exception)
+      // and wait for them, because the solvers are used again in the next refinement.
+      nextPath.set(paths.size());
+      executor.shutdownNow();
+      awaitTerminationUninterruptibly(executor);
+      concurrentCheckTime.stop();
+    }
+
+    for (int i = 0; i < paths.size(); i++) {
+      if (!results.get(i).isInfeasible()) {
+        // We have found a reachable target state, immediately abort refinement.
+        ARGState target = (ARGState) targets.get(i);
+        logger.log(Level.FINE, "Found reachable target state", target);
+        return Optional.of(target);
+      }
+    }
+
+    Set<ARGState> refinedUnreachableStates = new HashSet<>();
+    for (int i = 0; i < paths.size(); i++) {
+      List<ARGState> path = paths.get(i);
+      PathCheckResult result = results.get(i);
+      ARGState unreachableState = path.get(result.interpolants.size());
+      if (!refinedUnreachableStates.add(unreachableState)) {
+        continue; // another path with the same infeasible prefix was already refined
+      }
+      logger.log(Level.FINE, "Found unreachable state", unreachableState);
+
+      // The last interpolant would always be false, thus it is not included.
+      List<BooleanFormula> interpolants = new ArrayList<>(path.size() - 1);
+      for (String interpolant : result.interpolants) {
+        interpolants.add(fmgr.parse(interpolant));
+      }
+      while (interpolants.size() < path.size() - 1) {
+        interpolants.add(bfmgr.makeFalse());
+      }
+
+      // TODO repeated counterexample is always false currently, we also ignore the return value
+      strategy.performRefinement(pReached, path, interpolants, false);
+    }
+    return Optional.empty();
+  }
+
+  private static void awaitTerminationUninterruptibly(ExecutorService pExecutor) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          if (pExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            return;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Check the feasibility of a single path with the given solver and compute the interpolants
+   * up to the first infeasible block.
+   */
+  private static PathCheckResult checkPath(Solver pSolver, List<String> pBlockFormulas)
+      throws SolverException, InterruptedException {
+    try (InterpolatingProverEnvironment<?> itpProver =
+        pSolver.newProverEnvironmentWithInterpolation()) {
+      return checkPath(pSolver.getFormulaManager(), pBlockFormulas, itpProver);
+    }
+  }
+
+  // This is just a separate method to get the generics right.
+  private static <T> PathCheckResult checkPath(
+      FormulaManagerView pFmgr,
+      List<String> pBlockFormulas,
+      InterpolatingProverEnvironment<T> itpProver)
+      throws SolverException, InterruptedException {
+    List<T> itpStack = new ArrayList<>(pBlockFormulas.size());
+    for (String blockFormula : pBlockFormulas) {
+      itpStack.add(itpProver.push(pFmgr.parse(blockFormula)));
+      if (itpProver.isUnsat()) {
+        List<String> interpolants = new ArrayList<>(itpStack.size() - 1);
+        for (int i = 1; i < itpStack.size(); i++) {
+          interpolants.add(
+              pFmgr.dumpFormula(itpProver.getInterpolant(itpStack.subList(0, i))).toString());
+        }
+        return new PathCheckResult(interpolants);
+      }
+    }
+    return new PathCheckResult(null);
+  }
+
+  /**
+   * The result of checking a single error path: for an infeasible path, the interpolants for the
+   * blocks before the first infeasible block (as SMT-LIB strings).
+   */
+  private static class PathCheckResult {
+
+    private final @Nullable List<String> interpolants;
+
+    private PathCheckResult(@Nullable List<String> pInterpolants) {
+      interpolants = pInterpolants;
+    }
+
+    boolean isInfeasible() {
+      return interpolants != null;
+    }
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(new Stats());
@@ -366,6 +612,9 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       w0.put("Number of predicate refinements", numberOfRefinements);
       if (numberOfRefinements > 0) {
         w0.put(totalTime).put(interpolationTime).put(satCheckTime);
+        if (concurrentlyCheckedPaths.getValue() > 0) {
+          w0.put(concurrentCheckTime).put(concurrentlyCheckedPaths);
+        }
       }
     }
 
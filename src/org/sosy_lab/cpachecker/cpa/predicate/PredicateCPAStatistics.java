@@ -308,6 +308,16 @@ class PredicateCPAStatistics implements Statistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    if (solver.hasPersistentCache()) {
+      int persistentLookups =
+          solver.persistentlyCachedSatChecks + solver.getPersistentCacheMisses();
+      out.println(
+          "  from persistent cache:           "
+              + valueWithPercentage(solver.persistentlyCachedSatChecks, persistentLookups));
+      out.println("  Persistent cache entries loaded: " + solver.getPersistentCacheLoadedEntries());
+      out.println("  Persistent cache entries:        " + solver.getPersistentCacheSize());
+      out.println("  Persistent cache evictions:      " + solver.getPersistentCacheEvictions());
+    }
     out.println();
     out.println("Max ABE block size:                       " + statistics.maxBlockSize);
     out.println("Number of predicates discovered:          " + allDistinctPreds);
@@ -389,6 +399,9 @@ class PredicateCPAStatistics implements Statistics {
       out.println("  Time for symbolic coverage checks: " + statistics.symbolicCoverageCheckTimer);
     }
     out.println("Total time for SMT solver (w/o itp): " + TimeSpan.sum(solver.solverTime.getSumTime(), as.abstractionSolveTime.getSumTime(), as.abstractionEnumTime.getOuterSumTime()).formatAs(SECONDS));
+    if (solver.hasPersistentCache()) {
+      out.println("Time for persistent cache lookups:   " + solver.persistentCacheTime);
+    }
 
     if (statistics.abstractionCheckTimer.getNumberOfIntervals() > 0) {
       out.println("Time for abstraction checks:       " + statistics.abstractionCheckTimer);
@@ -56,6 +56,8 @@ public abstract class PredicateGlobalRefiner implements Refiner {
         strategy,
         solver,
         CPAs.retrieveCPAOrFail(pCpa, ARGCPA.class, PredicateGlobalRefiner.class),
-        config);
+        predicateCpa,
+        config,
+        predicateCpa.getShutdownNotifier());
   }
 }
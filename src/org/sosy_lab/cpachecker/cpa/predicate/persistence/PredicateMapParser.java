@@ -39,6 +39,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -55,6 +56,7 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.predicate.PredicatePrecision;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.incremental.CFARevisionMapping;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.precisionConverter.Converter;
@@ -70,6 +72,9 @@ import org.sosy_lab.java_smt.api.BooleanFormula;
  * The keys of the map (the locations) may either be CFA nodes (N1 etc.),
  * function names of the analyzed program (which stand for all locations in the respective function),
  * or the special identifier "*" (which stands for all locations in the program).
+ * If a CFA fingerprint of a previous revision of the program is given
+ * (cf. {@link CFARevisionMapping}), CFA nodes are interpreted as nodes of that revision,
+ * and predicates for nodes of changed functions are used for the whole function.
  *
  * Detailed format description:
  *
@@ -110,6 +115,7 @@ public class PredicateMapParser {
   private final AbstractionManager amgr;
 
   private final Map<Integer, CFANode> idToNodeMap = Maps.newHashMap();
+  private final CFARevisionMapping revisionMapping;
 
   public PredicateMapParser(Configuration pConfig, CFA pCfa,
       LogManager pLogger,
@@ -120,6 +126,7 @@ public class PredicateMapParser {
     logger = new LogManagerWithoutDuplicates(pLogger);
     fmgr = pFmgr;
     amgr = pAmgr;
+    revisionMapping = new CFARevisionMapping(pConfig, pCfa, pLogger);
   }
 
   /**
@@ -228,6 +235,19 @@ public class PredicateMapParser {
                 currentSet = functionPredicates.get(function);
               }
 
+            } else if (revisionMapping.isEnabled()) {
+              // node numbers refer to a previous revision of the program
+              Optional<CFANode> node = revisionMapping.getCorrespondingNode(nodeId);
+              if (node.isPresent()) {
+                currentSet = localPredicates.get(node.get());
+              } else if (cfa.getAllFunctionNames().contains(function)) {
+                // function was changed, use predicates for the whole function
+                currentSet = functionPredicates.get(function);
+              } else {
+                logger.log(Level.FINE, "Ignoring predicates for removed function", function);
+                currentSet = new ArrayList<>(); // temporary list which will be thrown away and ignored
+              }
+
             } else {
               CFANode node = getCFANodeWithId(nodeId);
               if (node == null) {
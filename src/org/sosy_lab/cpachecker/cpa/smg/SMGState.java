@@ -1354,6 +1354,12 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
 
     if (options.isHeapAbstractionEnabled()) {
+      // Abstraction may join several heap objects into one, thus only the stack needs to match.
+      if (heap.getStackFingerprint() != reachedState.getHeap().getStackFingerprint()) {
+        SMGIsLessOrEqual.fingerprintRejections.inc();
+        return false;
+      }
+
       SMGJoin join = new SMGJoin(heap, reachedState.getHeap(), this, reachedState);
 
       if (!join.isDefined()) {
@@ -38,6 +38,7 @@ public class SMGStatistics implements Statistics {
     put(pOut, 1, SMGIsLessOrEqual.globalsTimer);
     put(pOut, 1, SMGIsLessOrEqual.stackTimer);
     put(pOut, 1, SMGIsLessOrEqual.heapTimer);
+    put(pOut, 0, SMGIsLessOrEqual.fingerprintRejections);
   }
 
   @Override
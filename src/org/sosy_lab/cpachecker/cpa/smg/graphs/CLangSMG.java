@@ -88,6 +88,15 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
    */
   private PersistentMap<String, SMGRegion> global_objects;
 
+  /**
+   * Fingerprint of the shape of this SMG, independent of the identity of objects and values. It
+   * consists of the functions on the stack and the multiset of kinds, sizes, and levels of the
+   * heap objects, and is updated whenever the stack frames or heap objects change.
+   */
+  private int stackFingerprint = 0;
+
+  private long heapFingerprint = 0;
+
   /** logger is always NULL, except for JUnit-tests */
   private static LogManager logger = null;
 
@@ -165,6 +174,7 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     global_objects = PathCopyingPersistentTreeMap.of();
     heap_objects = PersistentSet.of();
     heap_objects = heap_objects.addAndCopy(SMGNullObject.INSTANCE);
+    heapFingerprint = heapFingerprintOf(SMGNullObject.INSTANCE);
   }
 
   /**
@@ -180,6 +190,8 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     stack_objects = pHeap.stack_objects;
     heap_objects = pHeap.heap_objects;
     global_objects = pHeap.global_objects;
+    stackFingerprint = pHeap.stackFingerprint;
+    heapFingerprint = pHeap.heapFingerprint;
   }
 
   @Override
@@ -201,6 +213,9 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     if (CLangSMG.performChecks() && heap_objects.contains(pObject)) {
       throw new IllegalArgumentException("Heap object already in the SMG: [" + pObject + "]");
     }
+    if (!heap_objects.contains(pObject)) {
+      heapFingerprint += heapFingerprintOf(pObject);
+    }
     heap_objects = heap_objects.addAndCopy(pObject);
     addObject(pObject);
   }
@@ -271,6 +286,7 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
       super.addObject(newFrame.getReturnObject());
     }
     stack_objects = stack_objects.pushAndCopy(newFrame);
+    stackFingerprint = computeStackFingerprint(stack_objects);
   }
 
   /**
@@ -286,6 +302,7 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
   public void dropStackFrame() {
     CLangStackFrame frame = stack_objects.peek();
     stack_objects = stack_objects.popAndCopy();
+    stackFingerprint = computeStackFingerprint(stack_objects);
     for (SMGObject object : frame.getAllObjects()) {
       removeObjectAndEdges(object);
     }
@@ -568,6 +585,9 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
   }
 
   final public void removeHeapObjectAndEdges(SMGObject pObject) {
+    if (heap_objects.contains(pObject)) {
+      heapFingerprint -= heapFingerprintOf(pObject);
+    }
     heap_objects = heap_objects.removeAndCopy(pObject);
     removeObjectAndEdges(pObject);
   }
@@ -745,6 +765,41 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     }
   }
 
+  @Override
+  public int getStackFingerprint() {
+    return stackFingerprint;
+  }
+
+  @Override
+  public long getHeapFingerprint() {
+    return heapFingerprint;
+  }
+
+  private static int computeStackFingerprint(PersistentStack<CLangStackFrame> pStack) {
+    int result = 1;
+    for (CLangStackFrame frame : pStack) {
+      result = 31 * result + frame.getFunctionDeclaration().getOrigName().hashCode();
+    }
+    return result;
+  }
+
+  /**
+   * Hash of a single heap object that does not depend on its id or label. The heap fingerprint is
+   * the sum of these hashes, such that it can be updated when adding or removing single objects.
+   */
+  private static long heapFingerprintOf(SMGObject pObject) {
+    long h = pObject.getKind().ordinal();
+    h = h * 0x9E3779B97F4A7C15L + pObject.getSize();
+    h = h * 0x9E3779B97F4A7C15L + pObject.getLevel();
+    // finalizer of MurmurHash3 for a good distribution of the summed-up values
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
   @Override
   public boolean equals(Object pObj) {
     /*
@@ -905,6 +960,7 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
 
     /*May not remove null object.*/
     heap_objects = heap_objects.addAndCopy(SMGNullObject.INSTANCE);
+    heapFingerprint = heapFingerprintOf(SMGNullObject.INSTANCE);
   }
 
   @Override
@@ -154,6 +154,41 @@ public class CLangSMGTest {
     Assert.assertTrue("Asserting the test finished without exception", true);
   }
 
+  @Test
+  public void CLangSMGFingerprintTest() {
+    CLangSMG smg1 = getNewCLangSMG64();
+    CLangSMG smg2 = getNewCLangSMG64();
+    assertThat(smg1.getHeapFingerprint()).isEqualTo(smg2.getHeapFingerprint());
+    assertThat(smg1.getStackFingerprint()).isEqualTo(smg2.getStackFingerprint());
+    long emptyHeap = smg1.getHeapFingerprint();
+    int emptyStack = smg1.getStackFingerprint();
+
+    // fingerprints do not depend on the identity of objects
+    SMGRegion obj1 = new SMGRegion(64, "obj1");
+    SMGRegion obj2 = new SMGRegion(64, "obj2");
+    SMGRegion obj3 = new SMGRegion(32, "obj3");
+    smg1.addHeapObject(obj1);
+    smg2.addHeapObject(obj2);
+    assertThat(smg1.getHeapFingerprint()).isEqualTo(smg2.getHeapFingerprint());
+    assertThat(smg1.getHeapFingerprint()).isNotEqualTo(emptyHeap);
+
+    smg1.addHeapObject(obj3);
+    assertThat(smg1.getHeapFingerprint()).isNotEqualTo(smg2.getHeapFingerprint());
+    assertThat(smg1.copyOf().getHeapFingerprint()).isEqualTo(smg1.getHeapFingerprint());
+
+    smg1.removeHeapObjectAndEdges(obj3);
+    assertThat(smg1.getHeapFingerprint()).isEqualTo(smg2.getHeapFingerprint());
+    smg1.removeHeapObjectAndEdges(obj1);
+    assertThat(smg1.getHeapFingerprint()).isEqualTo(emptyHeap);
+
+    smg1.addStackFrame(functionDeclaration);
+    assertThat(smg1.getStackFingerprint()).isNotEqualTo(smg2.getStackFingerprint());
+    smg2.addStackFrame(functionDeclaration);
+    assertThat(smg1.getStackFingerprint()).isEqualTo(smg2.getStackFingerprint());
+    smg1.dropStackFrame();
+    assertThat(smg1.getStackFingerprint()).isEqualTo(emptyStack);
+  }
+
   @Test
   public void CLangSMGaddGlobalObjectTest() {
     CLangSMG smg = getNewCLangSMG64();
@@ -59,6 +59,19 @@ public interface UnmodifiableCLangSMG extends UnmodifiableSMG {
 
   boolean isHeapObject(SMGObject object);
 
+  /**
+   * Return a hash of the sequence of functions on the stack. SMGs with different stack
+   * fingerprints have different stacks and are incomparable.
+   */
+  int getStackFingerprint();
+
+  /**
+   * Return an order-independent hash of the kinds, sizes, and levels of all heap objects. It does
+   * not depend on the ids or labels of objects nor on any values, and is maintained incrementally.
+   * SMGs with the same heap objects have the same heap fingerprint.
+   */
+  long getHeapFingerprint();
+
   PersistentMap<String, SMGRegion> getGlobalObjects();
 
   boolean isGlobal(SMGObject object);
@@ -37,6 +37,7 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
@@ -54,6 +55,8 @@ public class SMGIsLessOrEqual {
       new ThreadSafeTimerContainer("Time for joining stacks");
   public static final ThreadSafeTimerContainer heapTimer =
       new ThreadSafeTimerContainer("Time for joining heaps");
+  public static final StatCounter fingerprintRejections =
+      new StatCounter("Number of SMG coverage checks rejected by fingerprint");
 
   private SMGIsLessOrEqual() {} // Utility class.
 
@@ -73,6 +76,13 @@ public class SMGIsLessOrEqual {
         return true;
       }
 
+      // both SMGs need to have the same heap objects and the same functions on the stack,
+      // the fingerprints allow to reject most other pairs without any traversal
+      if (!haveSameShape(pSMG1, pSMG2)) {
+        fingerprintRejections.inc();
+        return false;
+      }
+
       // if smg1 has not allocated the same number of SMGObjects in the heap, it is not equal to smg2
       if (pSMG1.getHeapObjects().size() != pSMG2.getHeapObjects().size()) {
         return false;
@@ -119,6 +129,15 @@ public class SMGIsLessOrEqual {
     }
   }
 
+  /**
+   * Cheap necessary condition for {@link #isLessOrEqual}: returns false if the SMGs differ in
+   * their functions on the stack or in the (renaming-invariant) shape of their heap objects.
+   */
+  public static boolean haveSameShape(UnmodifiableCLangSMG pSMG1, UnmodifiableCLangSMG pSMG2) {
+    return pSMG1.getStackFingerprint() == pSMG2.getStackFingerprint()
+        && pSMG1.getHeapFingerprint() == pSMG2.getHeapFingerprint();
+  }
+
   /** returns whether globals variables are "maybe LEQ" or "definitely not LEQ". */
   private static boolean maybeGlobalsLessOrEqual(
       UnmodifiableCLangSMG pSMG1, UnmodifiableCLangSMG pSMG2) {
@@ -52,7 +52,6 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGUtils;
 import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.cpa.bam.BAMMultipleCEXSubgraphComputer;
 import org.sosy_lab.cpachecker.cpa.lock.LockTransferRelation;
-import org.sosy_lab.cpachecker.cpa.usage.storage.AbstractUsagePointSet;
 import org.sosy_lab.cpachecker.cpa.usage.storage.UnsafeDetector;
 import org.sosy_lab.cpachecker.cpa.usage.storage.UsageContainer;
 import org.sosy_lab.cpachecker.util.Pair;
@@ -81,7 +80,6 @@ public abstract class ErrorTracePrinter {
   protected final LockTransferRelation lockTransfer;
 
   private final StatTimer preparationTimer = new StatTimer("Time for preparation");
-  private final StatTimer unsafeDetectionTimer = new StatTimer("Time for unsafe detection");
   private final StatTimer writingUnsafeTimer = new StatTimer("Time for dumping the unsafes");
 
   protected final Configuration config;
@@ -160,28 +158,14 @@ public abstract class ErrorTracePrinter {
 
     init();
     preparationTimer.stop();
-    while (unsafeIterator.hasNext()) {
-      SingleIdentifier id = unsafeIterator.next();
-      final AbstractUsagePointSet uinfo = container.getUsages(id);
-
-      if (uinfo == null || uinfo.size() == 0) {
-        continue;
-      }
-
-      unsafeDetectionTimer.start();
-      if (!detector.isUnsafe(uinfo)) {
-        // In case of interruption during refinement,
-        // We may get a situation, when a path is removed, but the verdict is not updated
-        unsafeDetectionTimer.stop();
-        continue;
-      }
-      Pair<UsageInfo, UsageInfo> tmpPair = detector.getUnsafePair(uinfo);
-      unsafeDetectionTimer.stop();
-
-      writingUnsafeTimer.start();
-      printUnsafe(id, tmpPair);
-      writingUnsafeTimer.stop();
-    }
+    // the unsafe pairs may be detected in parallel, but are printed in order
+    container.forEachUnsafePair(
+        unsafeIterator,
+        (id, tmpPair) -> {
+          writingUnsafeTimer.start();
+          printUnsafe(id, tmpPair);
+          writingUnsafeTimer.stop();
+        });
     if (printFalseUnsafes) {
       Set<SingleIdentifier> falseUnsafes = container.getFalseUnsafes();
 
@@ -203,7 +187,7 @@ public abstract class ErrorTracePrinter {
 
   public void printStatistics(StatisticsWriter out) {
 
-    out.spacer().put(preparationTimer).put(unsafeDetectionTimer).put(writingUnsafeTimer);
+    out.spacer().put(preparationTimer).put(writingUnsafeTimer);
 
     container.printUsagesStatistics(out);
   }
@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.usage.storage;
 import com.google.common.base.Preconditions;
 import java.util.Set;
 import java.util.SortedSet;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
@@ -56,8 +57,12 @@ public class UnsafeDetector {
       secure = true)
   private String intLockName = null;
 
+  // created once, because the detector may be used by several threads
+  private final @Nullable LockIdentifier intLock;
+
   public UnsafeDetector(Configuration config) throws InvalidConfigurationException {
     config.inject(this);
+    intLock = intLockName == null ? null : LockIdentifier.of(intLockName);
   }
 
   public boolean isUnsafe(AbstractUsagePointSet set) {
@@ -170,8 +175,7 @@ public class UnsafeDetector {
   }
 
   private boolean isDeadlockDispatch(UsagePoint point1, UsagePoint point2) {
-    Preconditions.checkNotNull(intLockName);
-    LockIdentifier intLock = LockIdentifier.of(intLockName);
+    Preconditions.checkNotNull(intLock);
     DeadLockTreeNode node1 = (DeadLockTreeNode) point1.get(DeadLockTreeNode.class);
     DeadLockTreeNode node2 = (DeadLockTreeNode) point2.get(DeadLockTreeNode.class);
 
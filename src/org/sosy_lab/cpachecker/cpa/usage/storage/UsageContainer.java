@@ -24,14 +24,20 @@
 package org.sosy_lab.cpachecker.cpa.usage.storage;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -39,7 +45,15 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
@@ -79,6 +93,10 @@ public class UsageContainer {
   private final StatTimer resetTimer = new StatTimer("Time for reseting unsafes");
   private final StatTimer copyTimer = new StatTimer("Time for filling global container");
   private final StatTimer emptyEffectsTimer = new StatTimer("Time for coping usages");
+  private final StatTimer unsafeDetectionTimer = new StatTimer("Time for unsafe detection");
+
+  /** Number of consecutive identifiers that are checked by one task of the detection threads. */
+  private static final int SHARD_SIZE = 64;
 
   int unsafeUsages = -1;
   int totalIds = 0;
@@ -87,6 +105,14 @@ public class UsageContainer {
       secure = true)
   private boolean printOnlyTrueUnsafes = false;
 
+  @Option(
+    description =
+        "number of threads for detecting unsafes, the identifiers are split into shards"
+            + " that are checked in parallel",
+    secure = true
+  )
+  private int unsafeDetectionThreads = 1;
+
   public UsageContainer(Configuration config, LogManager l) throws InvalidConfigurationException {
     this(new TreeMap<SingleIdentifier, UnrefinedUsagePointSet>(),
         new TreeMap<SingleIdentifier, RefinedUsagePointSet>(),
@@ -223,16 +249,20 @@ public class UsageContainer {
       unsafeUsages = 0;
       Set<SingleIdentifier> toDelete = new HashSet<>();
 
-      for (Entry<SingleIdentifier, UnrefinedUsagePointSet> entry : unrefinedIds.entrySet()) {
-        UnrefinedUsagePointSet tmpList = entry.getValue();
-        if (detector.isUnsafe(tmpList)) {
-          unsafeUsages += tmpList.size();
-        } else {
-          SingleIdentifier id = entry.getKey();
-          toDelete.add(id);
-          falseUnsafes.add(id);
-        }
-      }
+      processSharded(
+          new ArrayList<>(unrefinedIds.keySet()),
+          id -> {
+            UnrefinedUsagePointSet tmpList = unrefinedIds.get(id);
+            return detector.isUnsafe(tmpList) ? tmpList.size() : null;
+          },
+          (id, size) -> {
+            if (size != null) {
+              unsafeUsages += size;
+            } else {
+              toDelete.add(id);
+              falseUnsafes.add(id);
+            }
+          });
       toDelete.forEach(this::removeIdFromCaches);
 
       refinedIds.forEach((id, list) -> unsafeUsages += list.size());
@@ -245,6 +275,90 @@ public class UsageContainer {
     }
   }
 
+  /**
+   * Passes the unsafe pair of each of the given identifiers to the consumer, in the order of the
+   * identifiers. Identifiers without unsafe pair are skipped. The consumer is called by the current
+   * thread as soon as the pairs are detected, so it may print them incrementally, but must not
+   * modify the container.
+   */
+  public void forEachUnsafePair(
+      Iterator<SingleIdentifier> ids,
+      BiConsumer<SingleIdentifier, Pair<UsageInfo, UsageInfo>> consumer) {
+    processSharded(
+        Lists.newArrayList(ids),
+        id -> {
+          AbstractUsagePointSet uinfo = getUsages(id);
+          if (uinfo == null || uinfo.size() == 0 || !detector.isUnsafe(uinfo)) {
+            // In case of interruption during refinement,
+            // We may get a situation, when a path is removed, but the verdict is not updated
+            return null;
+          }
+          return detector.getUnsafePair(uinfo);
+        },
+        (id, pair) -> {
+          if (pair != null) {
+            consumer.accept(id, pair);
+          }
+        });
+  }
+
+  /**
+   * Applies the function to all given identifiers and passes the results to the consumer in the
+   * order of the identifiers. With several threads, the identifiers are split into shards of
+   * consecutive identifiers, which are processed in parallel. The results of a shard are passed on
+   * by the current thread as soon as the shard and all preceding ones are done. The function must
+   * not modify the container.
+   */
+  private <T> void processSharded(
+      List<SingleIdentifier> ids,
+      Function<SingleIdentifier, T> function,
+      BiConsumer<SingleIdentifier, T> consumer) {
+    if (unsafeDetectionThreads <= 1 || ids.size() <= SHARD_SIZE) {
+      for (SingleIdentifier id : ids) {
+        unsafeDetectionTimer.start();
+        T result = function.apply(id);
+        unsafeDetectionTimer.stop();
+        consumer.accept(id, result);
+      }
+      return;
+    }
+
+    List<List<SingleIdentifier>> shards = Lists.partition(ids, SHARD_SIZE);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(unsafeDetectionThreads, shards.size()),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("UnsafeDetector-worker-%d")
+                .build());
+    try {
+      List<Future<List<T>>> futures = new ArrayList<>(shards.size());
+      for (List<SingleIdentifier> shard : shards) {
+        futures.add(
+            executor.submit(() -> shard.stream().map(function).collect(Collectors.toList())));
+      }
+
+      for (int i = 0; i < shards.size(); i++) {
+        List<T> results;
+        unsafeDetectionTimer.start();
+        try {
+          results = Uninterruptibles.getUninterruptibly(futures.get(i));
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new UnexpectedCheckedException("unsafe detection", e.getCause());
+        } finally {
+          unsafeDetectionTimer.stop();
+        }
+        List<SingleIdentifier> shard = shards.get(i);
+        for (int j = 0; j < shard.size(); j++) {
+          consumer.accept(shard.get(j), results.get(j));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private void removeIdFromCaches(SingleIdentifier id) {
     unrefinedIds.remove(id);
     processedUnsafes.add(id);
@@ -395,7 +509,8 @@ public class UsageContainer {
         .put(failedUsages)
         .put(resetTimer)
         .put(copyTimer)
-        .put(emptyEffectsTimer);
+        .put(emptyEffectsTimer)
+        .put(unsafeDetectionTimer);
   }
 
   public Set<SingleIdentifier> getProcessedUnsafes() {
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.value;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import java.io.IOException;
@@ -32,6 +33,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -74,6 +76,7 @@ import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAnalysisPrecision
 import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAnalysisPrecisionAdjustment.SymbolicStatistics;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.SymbolicValueAssigner;
 import org.sosy_lab.cpachecker.util.StateToFormulaWriter;
+import org.sosy_lab.cpachecker.util.incremental.CFARevisionMapping;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 import org.sosy_lab.cpachecker.util.states.MemoryLocationValueHandler;
 
@@ -173,11 +176,13 @@ public class ValueAnalysisCPA extends AbstractCPA
               VariableTrackingPrecision.createStaticPrecision(
                   pConfig, pCfa.getVarClassification(), getClass()));
       // refine the refinable component precision with increment from file
-      return initialPrecision.withIncrement(restoreMappingFromFile(pCfa));
+      return initialPrecision.withIncrement(
+          restoreMappingFromFile(pCfa, new CFARevisionMapping(pConfig, pCfa, logger)));
     }
   }
 
-  private Multimap<CFANode, MemoryLocation> restoreMappingFromFile(CFA pCfa) {
+  private Multimap<CFANode, MemoryLocation> restoreMappingFromFile(
+      CFA pCfa, CFARevisionMapping revisionMapping) {
     Multimap<CFANode, MemoryLocation> mapping = HashMultimap.create();
 
     List<String> contents = null;
@@ -191,7 +196,7 @@ public class ValueAnalysisCPA extends AbstractCPA
     Map<Integer, CFANode> idToCfaNode = createMappingForCFANodes(pCfa);
     final Pattern CFA_NODE_PATTERN = Pattern.compile("N([0-9][0-9]*)");
 
-    CFANode location = getDefaultLocation(idToCfaNode);
+    Collection<CFANode> locations = ImmutableList.of(getDefaultLocation(idToCfaNode));
     for (String currentLine : contents) {
       if (currentLine.trim().isEmpty()) {
         continue;
@@ -200,11 +205,20 @@ public class ValueAnalysisCPA extends AbstractCPA
         String scopeSelectors = currentLine.substring(0, currentLine.indexOf(":"));
         Matcher matcher = CFA_NODE_PATTERN.matcher(scopeSelectors);
         if (matcher.matches()) {
-          location = idToCfaNode.get(Integer.parseInt(matcher.group(1)));
+          int nodeId = Integer.parseInt(matcher.group(1));
+          if (revisionMapping.isEnabled()) {
+            // node numbers refer to a previous revision of the program
+            locations = revisionMapping.getCorrespondingNodes(nodeId);
+          } else {
+            locations = Collections.singleton(idToCfaNode.get(nodeId));
+          }
         }
 
       } else {
-        mapping.put(location, MemoryLocation.valueOf(currentLine));
+        MemoryLocation variable = MemoryLocation.valueOf(currentLine);
+        for (CFANode location : locations) {
+          mapping.put(location, variable);
+        }
       }
     }
 
@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSortedMap;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -62,6 +63,8 @@ import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
 import org.sosy_lab.cpachecker.cpa.value.type.Value;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
+import org.sosy_lab.cpachecker.util.PersistentHashTrieMap;
+import org.sosy_lab.cpachecker.util.PersistentHashTrieMap.DifferenceVisitor;
 import org.sosy_lab.cpachecker.util.predicates.smt.BitvectorFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FloatingPointFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
@@ -89,15 +92,18 @@ public class ValueAnalysisState
 
   /**
    * the map that keeps the name of variables and their constant values (concrete and symbolic ones)
+   *
+   * <p>We use a hash trie because states that are derived from each other share most of their
+   * subtrees, which allows to compare them in time proportional to their difference.
    */
-  private PersistentMap<MemoryLocation, ValueAndType> constantsMap;
+  private PersistentHashTrieMap<MemoryLocation, ValueAndType> constantsMap;
 
   private final @Nullable MachineModel machineModel;
 
   public ValueAnalysisState(MachineModel pMachineModel) {
     this(
         checkNotNull(pMachineModel),
-        PathCopyingPersistentTreeMap.of());
+        PersistentHashTrieMap.of());
   }
 
   public ValueAnalysisState(
@@ -110,7 +116,7 @@ public class ValueAnalysisState
       @Nullable MachineModel pMachineModel,
       PersistentMap<MemoryLocation, ValueAndType> pConstantsMap) {
     machineModel = pMachineModel;
-    constantsMap = checkNotNull(pConstantsMap);
+    constantsMap = PersistentHashTrieMap.copyOf(checkNotNull(pConstantsMap));
   }
 
   public static ValueAnalysisState copyOf(ValueAnalysisState state) {
@@ -337,23 +343,42 @@ public class ValueAnalysisState
    */
   @Override
   public ValueAnalysisState join(ValueAnalysisState reachedState) {
-    PersistentMap<MemoryLocation, ValueAndType> newConstantsMap = PathCopyingPersistentTreeMap.of();
+    // keep all entries of the reached state that are equal in this state,
+    // only the differences between both maps need to be visited for this
+    final List<MemoryLocation> toRemove = new ArrayList<>();
+    constantsMap.diff(
+        reachedState.constantsMap,
+        new DifferenceVisitor<MemoryLocation, ValueAndType>() {
+          @Override
+          public boolean onlyLeft(MemoryLocation pKey, ValueAndType pValue) {
+            return true;
+          }
 
-    for (Entry<MemoryLocation, ValueAndType> otherEntry : reachedState.constantsMap.entrySet()) {
-      MemoryLocation key = otherEntry.getKey();
-      ValueAndType value = otherEntry.getValue();
+          @Override
+          public boolean onlyRight(MemoryLocation pKey, ValueAndType pValue) {
+            toRemove.add(pKey);
+            return true;
+          }
 
-      if (Objects.equals(value, constantsMap.get(key))) {
-        newConstantsMap = newConstantsMap.putAndCopy(key, value);
-      }
-    }
+          @Override
+          public boolean differentValues(
+              MemoryLocation pKey, ValueAndType pLeftValue, ValueAndType pRightValue) {
+            toRemove.add(pKey);
+            return true;
+          }
+        });
 
     // return the reached state if both maps are equal
-    if (newConstantsMap.size() == reachedState.constantsMap.size()) {
+    if (toRemove.isEmpty()) {
       return reachedState;
-    } else {
-      return new ValueAnalysisState(machineModel, newConstantsMap);
     }
+
+    PersistentHashTrieMap<MemoryLocation, ValueAndType> newConstantsMap =
+        reachedState.constantsMap;
+    for (MemoryLocation key : toRemove) {
+      newConstantsMap = newConstantsMap.removeAndCopy(key);
+    }
+    return new ValueAnalysisState(machineModel, newConstantsMap);
   }
 
   /**
@@ -380,16 +405,26 @@ public class ValueAnalysisState
     // }
 
     // the tolerant way: ignore all type information. TODO really correct?
-    for (Entry<MemoryLocation, ValueAndType> otherEntry : other.constantsMap.entrySet()) {
-      MemoryLocation key = otherEntry.getKey();
-      Value otherValue = otherEntry.getValue().getValue();
-      ValueAndType thisValueAndType = constantsMap.get(key);
-      if (thisValueAndType == null || !otherValue.equals(thisValueAndType.getValue())) {
-        return false;
-      }
-    }
+    // Shared parts of both maps are skipped, so this only visits their differences.
+    return constantsMap.diff(
+        other.constantsMap,
+        new DifferenceVisitor<MemoryLocation, ValueAndType>() {
+          @Override
+          public boolean onlyLeft(MemoryLocation pKey, ValueAndType pValue) {
+            return true;
+          }
 
-    return true;
+          @Override
+          public boolean onlyRight(MemoryLocation pKey, ValueAndType pValue) {
+            return false;
+          }
+
+          @Override
+          public boolean differentValues(
+              MemoryLocation pKey, ValueAndType pThisValue, ValueAndType pOtherValue) {
+            return pOtherValue.getValue().equals(pThisValue.getValue());
+          }
+        });
   }
 
   @Override
@@ -419,7 +454,8 @@ public class ValueAnalysisState
   public String toString() {
     StringBuilder sb = new StringBuilder();
     sb.append("[");
-    for (Entry<MemoryLocation, ValueAndType> entry : constantsMap.entrySet()) {
+    for (Entry<MemoryLocation, ValueAndType> entry :
+        ImmutableSortedMap.copyOf(constantsMap).entrySet()) {
       MemoryLocation key = entry.getKey();
       sb.append(" <");
       sb.append(key.getAsSimpleString());
@@ -441,7 +477,9 @@ public class ValueAnalysisState
     StringBuilder sb = new StringBuilder();
 
     sb.append("[");
-    Joiner.on(", ").withKeyValueSeparator("=").appendTo(sb, constantsMap);
+    Joiner.on(", ")
+        .withKeyValueSeparator("=")
+        .appendTo(sb, ImmutableSortedMap.copyOf(constantsMap));
     sb.append("]");
 
     return sb.toString();
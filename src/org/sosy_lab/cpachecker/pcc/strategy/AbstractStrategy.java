@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.pcc.strategy;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
@@ -38,6 +39,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import org.sosy_lab.common.configuration.Configuration;
@@ -208,10 +210,34 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       entry = zis.getNextEntry();
     }
 
-    assert entry.getName().equals("ADDITIONAL_PROOFINFO_ZIPENTRY_NAME " + index);
+    assert entry.getName().equals(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
     return Triple.of(fis, zis, new ObjectInputStream(zis));
   }
 
+  /**
+   * Open the proof file for random access to its entries. In contrast to
+   * {@link #openAdditionalProofStream(int)}, reading an entry of the returned file does not
+   * require to decompress all preceding entries. Several threads may read different entries of
+   * the returned file concurrently, the caller is responsible for closing it.
+   */
+  public ZipFile openProofFile() throws IOException {
+    return new ZipFile(proofFile.toFile());
+  }
+
+  /**
+   * Open the additional proof information with the given index in a proof file that was opened
+   * with {@link #openProofFile()}.
+   */
+  public static ObjectInputStream openAdditionalProofStream(final ZipFile pProof, final int index)
+      throws IOException {
+    if (index < 0) { throw new IllegalArgumentException("Not a valid index. Indices must be at least zero."); }
+    ZipEntry entry = pProof.getEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+    if (entry == null) {
+      throw new IOException("Proof does not contain additional proof information " + index);
+    }
+    return new ObjectInputStream(new BufferedInputStream(pProof.getInputStream(entry)));
+  }
+
   protected abstract void readProofFromStream(ObjectInputStream in) throws ClassNotFoundException, InvalidConfigurationException, IOException;
 
   protected void addPCCStatistic(final Statistics pPCCStatistic) {
@@ -46,6 +46,10 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -93,7 +97,9 @@ import org.sosy_lab.cpachecker.util.resources.ResourceLimitChecker;
 import org.sosy_lab.cpachecker.util.resources.WalltimeLimit;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
 
-public class LiveVariables {
+public class LiveVariables implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   public enum EvaluationStrategy {
     FUNCTION_WISE, GLOBAL
@@ -166,6 +172,13 @@ public class LiveVariables {
 
     private final ImmutableSet<ASimpleDeclaration> allVariables;
 
+    private static final long serialVersionUID = 1L;
+
+    private AllVariablesAsLiveVariables(ImmutableSet<ASimpleDeclaration> pAllVariables) {
+      super();
+      allVariables = checkNotNull(pAllVariables);
+    }
+
     private AllVariablesAsLiveVariables(CFA cfa, List<Pair<ADeclaration, String>> globalsList) {
       super();
       checkNotNull(cfa);
@@ -215,6 +228,30 @@ public class LiveVariables {
     public Set<ASimpleDeclaration> getAllLiveVariables() {
       return allVariables;
     }
+
+    private Object writeReplace() {
+      return new AllVariablesSerializationProxy(allVariables);
+    }
+
+    @SuppressWarnings("unused")
+    private void readObject(ObjectInputStream in) throws IOException {
+      throw new InvalidObjectException("Proxy required");
+    }
+  }
+
+  private static class AllVariablesSerializationProxy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ImmutableSet<ASimpleDeclaration> allVariables;
+
+    private AllVariablesSerializationProxy(ImmutableSet<ASimpleDeclaration> pAllVariables) {
+      allVariables = pAllVariables;
+    }
+
+    private Object readResolve() {
+      return new AllVariablesAsLiveVariables(allVariables);
+    }
   }
 
   /**
@@ -272,6 +309,49 @@ public class LiveVariables {
     liveVariablesStrings = ImmutableSetMultimap.copyOf(Multimaps.transformValues(liveVariables, FROM_EQUIV_WRAPPER_TO_STRING));
   }
 
+  /**
+   * The equivalence wrappers used internally are not serializable,
+   * so we serialize the plain declarations and wrap them again when reading.
+   */
+  private Object writeReplace() {
+    return new SerializationProxy(this);
+  }
+
+  @SuppressWarnings("unused")
+  private void readObject(ObjectInputStream in) throws IOException {
+    throw new InvalidObjectException("Proxy required");
+  }
+
+  private static class SerializationProxy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ImmutableSetMultimap<CFANode, ASimpleDeclaration> liveVariables;
+    private final ImmutableSet<ASimpleDeclaration> globalVariables;
+    private final VariableClassification variableClassification;
+    private final EvaluationStrategy evaluationStrategy;
+    private final Language language;
+
+    private SerializationProxy(LiveVariables pLiveVariables) {
+      liveVariables =
+          ImmutableSetMultimap.copyOf(
+              Multimaps.transformValues(pLiveVariables.liveVariables, FROM_EQUIV_WRAPPER));
+      globalVariables = from(pLiveVariables.globalVariables).transform(FROM_EQUIV_WRAPPER).toSet();
+      variableClassification = pLiveVariables.variableClassification;
+      evaluationStrategy = pLiveVariables.evaluationStrategy;
+      language = pLiveVariables.language;
+    }
+
+    private Object readResolve() {
+      return new LiveVariables(
+          Multimaps.transformValues(liveVariables, TO_EQUIV_WRAPPER),
+          variableClassification,
+          from(globalVariables).transform(TO_EQUIV_WRAPPER).toSet(),
+          evaluationStrategy,
+          language);
+    }
+  }
+
   public boolean isVariableLive(ASimpleDeclaration variable, CFANode location) {
     String varName = variable.getQualifiedName();
     final Wrapper<ASimpleDeclaration> wrappedDecl = LIVE_DECL_EQUIVALENCE.wrap(variable);
@@ -28,6 +28,7 @@ import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.CFAUtils.hasBackWardsEdges;
 import static org.sosy_lab.cpachecker.util.CFAUtils.leavingEdges;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
@@ -37,6 +38,7 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.Serializable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -52,6 +54,10 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.cfa.CFA;
@@ -479,10 +485,37 @@ public final class LoopStructure implements Serializable {
    * @throws ParserException If the structure of the CFA is too complex for determining loops.
    */
   public static LoopStructure getLoopStructure(MutableCFA cfa) throws ParserException {
-    ImmutableMultimap.Builder<String, Loop> loops = ImmutableMultimap.builder();
-    for (String functionName : cfa.getAllFunctionNames()) {
+    try {
+      return getLoopStructure(cfa, MoreExecutors.newDirectExecutorService());
+    } catch (InterruptedException e) {
+      throw new AssertionError("direct executor cannot be interrupted", e);
+    }
+  }
+
+  /**
+   * Build loop-structure information for a CFA like {@link #getLoopStructure(MutableCFA)},
+   * but search for the loops of each function in parallel using the given executor.
+   * @throws ParserException If the structure of the CFA is too complex for determining loops.
+   */
+  public static LoopStructure getLoopStructure(MutableCFA cfa, ExecutorService executor)
+      throws ParserException, InterruptedException {
+    List<String> functionNames = ImmutableList.copyOf(cfa.getAllFunctionNames());
+    List<Callable<Collection<Loop>>> tasks = new ArrayList<>(functionNames.size());
+    for (String functionName : functionNames) {
       SortedSet<CFANode> nodes = cfa.getFunctionNodes(functionName);
-      loops.putAll(functionName, findLoops(nodes, cfa.getLanguage()));
+      tasks.add(() -> findLoops(nodes, cfa.getLanguage()));
+    }
+
+    // invokeAll returns the futures in the order of the tasks and waits for all of them
+    List<Future<Collection<Loop>>> results = executor.invokeAll(tasks);
+    ImmutableMultimap.Builder<String, Loop> loops = ImmutableMultimap.builder();
+    for (int i = 0; i < functionNames.size(); i++) {
+      try {
+        loops.putAll(functionNames.get(i), results.get(i).get());
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), ParserException.class);
+        throw new AssertionError("Unexpected exception during loop detection", e);
+      }
     }
     return new LoopStructure(loops.build());
   }
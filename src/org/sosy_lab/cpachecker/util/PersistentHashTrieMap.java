@@ -0,0 +1,928 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Maps;
+import com.google.errorprone.annotations.Immutable;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.collect.PersistentMap;
+
+/**
+ * Persistent hash map implemented as a compressed hash-array mapped prefix tree (CHAMP).
+ *
+ * <p>The shape of the tree only depends on the set of keys, and every node caches the number of
+ * entries and the sum of the hash codes of the entries below it. Thus {@link #hashCode()} takes
+ * constant time, and {@link #equals(Object)} as well as {@link #diff(PersistentHashTrieMap,
+ * DifferenceVisitor)} skip all subtrees that two maps share. Comparing two maps that were derived
+ * from a common ancestor costs time proportional to the number of modifications since then, not
+ * to the size of the maps.
+ *
+ * <p>Keys must not be null, values may be null. The iteration order is determined by the hash
+ * codes of the keys.
+ */
+@Immutable(containerOf = {"K", "V"})
+@SuppressWarnings("Immutable") // the arrays of the nodes are never modified after construction
+public final class PersistentHashTrieMap<K, V> extends AbstractMap<K, V>
+    implements PersistentMap<K, V>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+  private static final int MAX_SHIFT = Integer.SIZE;
+
+  @SuppressWarnings("rawtypes")
+  private static final PersistentHashTrieMap EMPTY =
+      new PersistentHashTrieMap<>(new BitmapNode<>(0, 0, new Object[0], 0, 0));
+
+  /**
+   * Callback for {@link PersistentHashTrieMap#diff(PersistentHashTrieMap, DifferenceVisitor)}.
+   * Each method returns whether the traversal should continue.
+   */
+  public interface DifferenceVisitor<K, V> {
+
+    /** Called for an entry whose key is present only in the left map. */
+    boolean onlyLeft(K key, V value);
+
+    /** Called for an entry whose key is present only in the right map. */
+    boolean onlyRight(K key, V value);
+
+    /** Called for a key that is present in both maps with values that are not equal. */
+    boolean differentValues(K key, V leftValue, V rightValue);
+  }
+
+  private final Node<K, V> root;
+
+  private PersistentHashTrieMap(Node<K, V> pRoot) {
+    root = pRoot;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashTrieMap<K, V> of() {
+    return EMPTY;
+  }
+
+  /**
+   * Return a map with the same entries as the given map. If the given map is already an instance
+   * of this class, it is returned unchanged.
+   */
+  public static <K, V> PersistentHashTrieMap<K, V> copyOf(Map<? extends K, ? extends V> pMap) {
+    if (pMap instanceof PersistentHashTrieMap) {
+      @SuppressWarnings("unchecked")
+      PersistentHashTrieMap<K, V> result = (PersistentHashTrieMap<K, V>) pMap;
+      return result;
+    }
+    PersistentHashTrieMap<K, V> result = of();
+    for (Map.Entry<? extends K, ? extends V> entry : pMap.entrySet()) {
+      result = result.putAndCopy(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  private static int hash(Object pKey) {
+    int h = pKey.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int entryHash(Object pKey, @Nullable Object pValue) {
+    // as defined by Map.Entry#hashCode()
+    return pKey.hashCode() ^ Objects.hashCode(pValue);
+  }
+
+  private static int bitpos(int pHash, int pShift) {
+    return 1 << ((pHash >>> pShift) & LEVEL_MASK);
+  }
+
+  @Override
+  public PersistentHashTrieMap<K, V> putAndCopy(K pKey, V pValue) {
+    checkNotNull(pKey);
+    Node<K, V> newRoot = root.put(pKey, pValue, hash(pKey), 0);
+    return newRoot == root ? this : new PersistentHashTrieMap<>(newRoot);
+  }
+
+  @Override
+  public PersistentHashTrieMap<K, V> removeAndCopy(Object pKey) {
+    if (pKey == null || root.size == 0) {
+      return this;
+    }
+    Node<K, V> newRoot = root.remove(pKey, hash(pKey), 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot.size == 0 ? of() : new PersistentHashTrieMap<>(newRoot);
+  }
+
+  @Override
+  public PersistentHashTrieMap<K, V> empty() {
+    return of();
+  }
+
+  @Override
+  public int size() {
+    return root.size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return root.size == 0;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object pKey) {
+    return pKey != null && root.find(pKey, hash(pKey), 0) >= 0;
+  }
+
+  @Override
+  public @Nullable V get(@Nullable Object pKey) {
+    return pKey == null ? null : root.getOrDefault(pKey, hash(pKey), 0, null);
+  }
+
+  @Override
+  public @Nullable V getOrDefault(@Nullable Object pKey, @Nullable V pDefaultValue) {
+    return pKey == null ? pDefaultValue : root.getOrDefault(pKey, hash(pKey), 0, pDefaultValue);
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return root.size;
+      }
+
+      @Override
+      public boolean contains(@Nullable Object pObj) {
+        if (!(pObj instanceof Map.Entry)) {
+          return false;
+        }
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) pObj;
+        Object key = entry.getKey();
+        return containsKey(key) && Objects.equals(get(key), entry.getValue());
+      }
+    };
+  }
+
+  /**
+   * Compare this map (the left map) with another map (the right map) and report all differences
+   * to the given visitor. Subtrees that are shared by both maps are skipped, so the cost is
+   * proportional to the size of the parts that differ. Values are compared with {@link
+   * Object#equals(Object)}.
+   *
+   * @return false if the visitor stopped the traversal, true otherwise
+   */
+  public boolean diff(
+      PersistentHashTrieMap<K, V> pOther, DifferenceVisitor<? super K, ? super V> pVisitor) {
+    return diffNodes(root, pOther.root, 0, pVisitor);
+  }
+
+  @Override
+  public boolean equals(@Nullable Object pObj) {
+    if (pObj == this) {
+      return true;
+    }
+    if (pObj instanceof PersistentHashTrieMap) {
+      return equalNodes(root, ((PersistentHashTrieMap<?, ?>) pObj).root);
+    }
+    return super.equals(pObj);
+  }
+
+  @Override
+  public int hashCode() {
+    return root.hash;
+  }
+
+  @Deprecated
+  @Override
+  public V put(K pKey, V pValue) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Deprecated
+  @Override
+  public V remove(Object pKey) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Deprecated
+  @Override
+  public void putAll(Map<? extends K, ? extends V> pM) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Deprecated
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  private static boolean equalNodes(Node<?, ?> pLeft, Node<?, ?> pRight) {
+    if (pLeft == pRight) {
+      return true;
+    }
+    if (pLeft.size != pRight.size || pLeft.hash != pRight.hash) {
+      return false;
+    }
+    if (pLeft instanceof CollisionNode) {
+      // entries of collision nodes are unordered
+      for (int i = 0; i < pLeft.dataArity(); i++) {
+        int j = pRight.find(pLeft.keyAt(i), ((CollisionNode<?, ?>) pLeft).keyHash, MAX_SHIFT);
+        if (j < 0 || !Objects.equals(pLeft.valueAt(i), pRight.valueAt(j))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // the shape of the tree is canonical, so both nodes need to have the same layout
+    BitmapNode<?, ?> left = (BitmapNode<?, ?>) pLeft;
+    BitmapNode<?, ?> right = (BitmapNode<?, ?>) pRight;
+    if (left.dataMap != right.dataMap || left.nodeMap != right.nodeMap) {
+      return false;
+    }
+    for (int i = 0; i < left.dataArity(); i++) {
+      if (!left.keyAt(i).equals(right.keyAt(i))
+          || !Objects.equals(left.valueAt(i), right.valueAt(i))) {
+        return false;
+      }
+    }
+    for (int i = 0; i < left.nodeArity(); i++) {
+      if (!equalNodes(left.nodeAt(i), right.nodeAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static <K, V> boolean diffNodes(
+      Node<K, V> pLeft,
+      Node<K, V> pRight,
+      int pShift,
+      DifferenceVisitor<? super K, ? super V> pVisitor) {
+    if (pLeft == pRight) {
+      return true;
+    }
+
+    if (pLeft instanceof CollisionNode) {
+      // collision nodes exist only below the last level, where both maps have them
+      for (int i = 0; i < pLeft.dataArity(); i++) {
+        K key = pLeft.keyAt(i);
+        V value = pLeft.valueAt(i);
+        int j = pRight.find(key, hash(key), pShift);
+        boolean continueDiff;
+        if (j < 0) {
+          continueDiff = pVisitor.onlyLeft(key, value);
+        } else {
+          V otherValue = pRight.valueAt(j);
+          continueDiff =
+              Objects.equals(value, otherValue) || pVisitor.differentValues(key, value, otherValue);
+        }
+        if (!continueDiff) {
+          return false;
+        }
+      }
+      for (int i = 0; i < pRight.dataArity(); i++) {
+        K key = pRight.keyAt(i);
+        if (pLeft.find(key, hash(key), pShift) < 0
+            && !pVisitor.onlyRight(key, pRight.valueAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    BitmapNode<K, V> left = (BitmapNode<K, V>) pLeft;
+    BitmapNode<K, V> right = (BitmapNode<K, V>) pRight;
+    int remaining = left.dataMap | left.nodeMap | right.dataMap | right.nodeMap;
+    while (remaining != 0) {
+      int bit = Integer.lowestOneBit(remaining);
+      remaining &= ~bit;
+
+      boolean continueDiff;
+      if ((left.dataMap & bit) != 0) {
+        int i = left.dataIndex(bit);
+        K key = left.keyAt(i);
+        V value = left.valueAt(i);
+        if ((right.dataMap & bit) != 0) {
+          int j = right.dataIndex(bit);
+          K otherKey = right.keyAt(j);
+          V otherValue = right.valueAt(j);
+          if (key.equals(otherKey)) {
+            continueDiff =
+                Objects.equals(value, otherValue)
+                    || pVisitor.differentValues(key, value, otherValue);
+          } else {
+            continueDiff = pVisitor.onlyLeft(key, value) && pVisitor.onlyRight(otherKey, otherValue);
+          }
+        } else if ((right.nodeMap & bit) != 0) {
+          Node<K, V> otherNode = right.nodeAt(right.nodeIndex(bit));
+          continueDiff =
+              diffEntryWithNode(key, value, true, otherNode, pShift + BITS_PER_LEVEL, pVisitor);
+        } else {
+          continueDiff = pVisitor.onlyLeft(key, value);
+        }
+
+      } else if ((left.nodeMap & bit) != 0) {
+        Node<K, V> node = left.nodeAt(left.nodeIndex(bit));
+        if ((right.dataMap & bit) != 0) {
+          int j = right.dataIndex(bit);
+          continueDiff =
+              diffEntryWithNode(
+                  right.keyAt(j),
+                  right.valueAt(j),
+                  false,
+                  node,
+                  pShift + BITS_PER_LEVEL,
+                  pVisitor);
+        } else if ((right.nodeMap & bit) != 0) {
+          Node<K, V> otherNode = right.nodeAt(right.nodeIndex(bit));
+          continueDiff = diffNodes(node, otherNode, pShift + BITS_PER_LEVEL, pVisitor);
+        } else {
+          continueDiff = visitAll(node, true, pVisitor);
+        }
+
+      } else if ((right.dataMap & bit) != 0) {
+        int j = right.dataIndex(bit);
+        continueDiff = pVisitor.onlyRight(right.keyAt(j), right.valueAt(j));
+      } else {
+        continueDiff = visitAll(right.nodeAt(right.nodeIndex(bit)), false, pVisitor);
+      }
+
+      if (!continueDiff) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Diff a single entry of one map against the subtree at the same position in the other map.
+   *
+   * @param pEntryIsLeft whether the entry belongs to the left map
+   */
+  private static <K, V> boolean diffEntryWithNode(
+      K pKey,
+      V pValue,
+      boolean pEntryIsLeft,
+      Node<K, V> pNode,
+      int pShift,
+      DifferenceVisitor<? super K, ? super V> pVisitor) {
+    int keyHash = hash(pKey);
+    if (pNode.find(pKey, keyHash, pShift) < 0) {
+      return (pEntryIsLeft ? pVisitor.onlyLeft(pKey, pValue) : pVisitor.onlyRight(pKey, pValue))
+          && visitAll(pNode, !pEntryIsLeft, pVisitor);
+    }
+
+    V otherValue = pNode.getOrDefault(pKey, keyHash, pShift, null);
+    if (!Objects.equals(pValue, otherValue)) {
+      boolean continueDiff =
+          pEntryIsLeft
+              ? pVisitor.differentValues(pKey, pValue, otherValue)
+              : pVisitor.differentValues(pKey, otherValue, pValue);
+      if (!continueDiff) {
+        return false;
+      }
+    }
+    for (Iterator<Map.Entry<K, V>> it = new EntryIterator<>(pNode); it.hasNext(); ) {
+      Map.Entry<K, V> entry = it.next();
+      if (!entry.getKey().equals(pKey)) {
+        boolean continueDiff =
+            pEntryIsLeft
+                ? pVisitor.onlyRight(entry.getKey(), entry.getValue())
+                : pVisitor.onlyLeft(entry.getKey(), entry.getValue());
+        if (!continueDiff) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static <K, V> boolean visitAll(
+      Node<K, V> pNode, boolean pIsLeft, DifferenceVisitor<? super K, ? super V> pVisitor) {
+    for (Iterator<Map.Entry<K, V>> it = new EntryIterator<>(pNode); it.hasNext(); ) {
+      Map.Entry<K, V> entry = it.next();
+      boolean continueDiff =
+          pIsLeft
+              ? pVisitor.onlyLeft(entry.getKey(), entry.getValue())
+              : pVisitor.onlyRight(entry.getKey(), entry.getValue());
+      if (!continueDiff) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A node of the tree. Each node stores some entries directly (its data) and has some child
+   * nodes. Apart from the root, every node has at least two entries in its subtree.
+   */
+  private abstract static class Node<K, V> {
+
+    /** Number of entries in this subtree. */
+    final int size;
+
+    /** Sum of the hash codes of all entries in this subtree. */
+    final int hash;
+
+    Node(int pSize, int pHash) {
+      size = pSize;
+      hash = pHash;
+    }
+
+    abstract int dataArity();
+
+    abstract K keyAt(int pIndex);
+
+    abstract V valueAt(int pIndex);
+
+    abstract int nodeArity();
+
+    abstract Node<K, V> nodeAt(int pIndex);
+
+    /**
+     * Return the index of the data entry with the given key in the node of this subtree that
+     * stores it, or -1 if the key is not present. The index refers to this node only if it stores
+     * the key directly, which is always the case for collision nodes.
+     */
+    abstract int find(Object pKey, int pKeyHash, int pShift);
+
+    abstract V getOrDefault(Object pKey, int pKeyHash, int pShift, V pDefault);
+
+    /** Return a node with the given mapping, or this node if nothing changes. */
+    abstract Node<K, V> put(K pKey, V pValue, int pKeyHash, int pShift);
+
+    /**
+     * Return a node without the given key, or this node if the key is not present. If the
+     * resulting subtree has a single entry, the returned node stores this entry directly, such
+     * that the parent can inline it.
+     */
+    abstract Node<K, V> remove(Object pKey, int pKeyHash, int pShift);
+  }
+
+  private static final class BitmapNode<K, V> extends Node<K, V> {
+
+    private final int dataMap;
+    private final int nodeMap;
+
+    /** Keys and values of the data entries (alternating), followed by the child nodes. */
+    private final Object[] content;
+
+    BitmapNode(int pDataMap, int pNodeMap, Object[] pContent, int pSize, int pHash) {
+      super(pSize, pHash);
+      dataMap = pDataMap;
+      nodeMap = pNodeMap;
+      content = pContent;
+    }
+
+    @Override
+    int dataArity() {
+      return Integer.bitCount(dataMap);
+    }
+
+    @Override
+    int nodeArity() {
+      return Integer.bitCount(nodeMap);
+    }
+
+    int dataIndex(int pBit) {
+      return Integer.bitCount(dataMap & (pBit - 1));
+    }
+
+    int nodeIndex(int pBit) {
+      return Integer.bitCount(nodeMap & (pBit - 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    K keyAt(int pIndex) {
+      return (K) content[2 * pIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    V valueAt(int pIndex) {
+      return (V) content[2 * pIndex + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    Node<K, V> nodeAt(int pIndex) {
+      return (Node<K, V>) content[2 * dataArity() + pIndex];
+    }
+
+    @Override
+    int find(Object pKey, int pKeyHash, int pShift) {
+      int bit = bitpos(pKeyHash, pShift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        return pKey.equals(keyAt(index)) ? index : -1;
+      } else if ((nodeMap & bit) != 0) {
+        return nodeAt(nodeIndex(bit)).find(pKey, pKeyHash, pShift + BITS_PER_LEVEL);
+      }
+      return -1;
+    }
+
+    @Override
+    V getOrDefault(Object pKey, int pKeyHash, int pShift, V pDefault) {
+      int bit = bitpos(pKeyHash, pShift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        return pKey.equals(keyAt(index)) ? valueAt(index) : pDefault;
+      } else if ((nodeMap & bit) != 0) {
+        return nodeAt(nodeIndex(bit))
+            .getOrDefault(pKey, pKeyHash, pShift + BITS_PER_LEVEL, pDefault);
+      }
+      return pDefault;
+    }
+
+    @Override
+    Node<K, V> put(K pKey, V pValue, int pKeyHash, int pShift) {
+      int bit = bitpos(pKeyHash, pShift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        K oldKey = keyAt(index);
+        V oldValue = valueAt(index);
+        if (pKey.equals(oldKey)) {
+          if (Objects.equals(pValue, oldValue)) {
+            return this;
+          }
+          Object[] newContent = content.clone();
+          newContent[2 * index + 1] = pValue;
+          return new BitmapNode<>(
+              dataMap,
+              nodeMap,
+              newContent,
+              size,
+              hash - entryHash(oldKey, oldValue) + entryHash(pKey, pValue));
+        }
+
+        // push both entries down into a new child node
+        Node<K, V> child =
+            mergeEntries(
+                oldKey, oldValue, hash(oldKey), pKey, pValue, pKeyHash, pShift + BITS_PER_LEVEL);
+        return new BitmapNode<>(
+            dataMap & ~bit,
+            nodeMap | bit,
+            replaceDataByNode(index, nodeIndex(bit), child),
+            size + 1,
+            hash + entryHash(pKey, pValue));
+
+      } else if ((nodeMap & bit) != 0) {
+        int index = nodeIndex(bit);
+        Node<K, V> child = nodeAt(index);
+        Node<K, V> newChild = child.put(pKey, pValue, pKeyHash, pShift + BITS_PER_LEVEL);
+        if (newChild == child) {
+          return this;
+        }
+        Object[] newContent = content.clone();
+        newContent[2 * dataArity() + index] = newChild;
+        return new BitmapNode<>(
+            dataMap,
+            nodeMap,
+            newContent,
+            size - child.size + newChild.size,
+            hash - child.hash + newChild.hash);
+
+      } else {
+        int index = dataIndex(bit);
+        Object[] newContent = new Object[content.length + 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * index);
+        newContent[2 * index] = pKey;
+        newContent[2 * index + 1] = pValue;
+        System.arraycopy(
+            content, 2 * index, newContent, 2 * index + 2, content.length - 2 * index);
+        return new BitmapNode<>(
+            dataMap | bit, nodeMap, newContent, size + 1, hash + entryHash(pKey, pValue));
+      }
+    }
+
+    @Override
+    Node<K, V> remove(Object pKey, int pKeyHash, int pShift) {
+      int bit = bitpos(pKeyHash, pShift);
+      if ((dataMap & bit) != 0) {
+        int index = dataIndex(bit);
+        K oldKey = keyAt(index);
+        if (!pKey.equals(oldKey)) {
+          return this;
+        }
+        V oldValue = valueAt(index);
+        Object[] newContent = new Object[content.length - 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * index);
+        System.arraycopy(
+            content, 2 * index + 2, newContent, 2 * index, content.length - 2 * index - 2);
+        return new BitmapNode<>(
+            dataMap & ~bit, nodeMap, newContent, size - 1, hash - entryHash(oldKey, oldValue));
+
+      } else if ((nodeMap & bit) != 0) {
+        int index = nodeIndex(bit);
+        Node<K, V> child = nodeAt(index);
+        Node<K, V> newChild = child.remove(pKey, pKeyHash, pShift + BITS_PER_LEVEL);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.size == 1) {
+          // keep the tree canonical: single entries are always stored in the parent
+          return new BitmapNode<>(
+              dataMap | bit,
+              nodeMap & ~bit,
+              replaceNodeByData(index, dataIndex(bit), newChild.keyAt(0), newChild.valueAt(0)),
+              size - 1,
+              hash - child.hash + newChild.hash);
+        }
+        Object[] newContent = content.clone();
+        newContent[2 * dataArity() + index] = newChild;
+        return new BitmapNode<>(
+            dataMap, nodeMap, newContent, size - 1, hash - child.hash + newChild.hash);
+      }
+      return this;
+    }
+
+    private Object[] replaceDataByNode(int pDataIndex, int pNodeIndex, Node<K, V> pNode) {
+      Object[] newContent = new Object[content.length - 1];
+      int dataEnd = 2 * dataArity();
+      System.arraycopy(content, 0, newContent, 0, 2 * pDataIndex);
+      System.arraycopy(
+          content, 2 * pDataIndex + 2, newContent, 2 * pDataIndex, dataEnd - 2 * pDataIndex - 2);
+      int newNodeStart = dataEnd - 2;
+      System.arraycopy(content, dataEnd, newContent, newNodeStart, pNodeIndex);
+      newContent[newNodeStart + pNodeIndex] = pNode;
+      System.arraycopy(
+          content,
+          dataEnd + pNodeIndex,
+          newContent,
+          newNodeStart + pNodeIndex + 1,
+          content.length - dataEnd - pNodeIndex);
+      return newContent;
+    }
+
+    private Object[] replaceNodeByData(int pNodeIndex, int pDataIndex, K pKey, V pValue) {
+      Object[] newContent = new Object[content.length + 1];
+      int dataEnd = 2 * dataArity();
+      System.arraycopy(content, 0, newContent, 0, 2 * pDataIndex);
+      newContent[2 * pDataIndex] = pKey;
+      newContent[2 * pDataIndex + 1] = pValue;
+      System.arraycopy(
+          content, 2 * pDataIndex, newContent, 2 * pDataIndex + 2, dataEnd - 2 * pDataIndex);
+      int newNodeStart = dataEnd + 2;
+      System.arraycopy(content, dataEnd, newContent, newNodeStart, pNodeIndex);
+      System.arraycopy(
+          content,
+          dataEnd + pNodeIndex + 1,
+          newContent,
+          newNodeStart + pNodeIndex,
+          content.length - dataEnd - pNodeIndex - 1);
+      return newContent;
+    }
+  }
+
+  /** Node for keys whose hashes are completely equal, exists only below the last level. */
+  private static final class CollisionNode<K, V> extends Node<K, V> {
+
+    private final int keyHash;
+
+    /** Keys and values of the entries (alternating), in no particular order. */
+    private final Object[] content;
+
+    CollisionNode(int pKeyHash, Object[] pContent, int pHash) {
+      super(pContent.length / 2, pHash);
+      keyHash = pKeyHash;
+      content = pContent;
+    }
+
+    @Override
+    int dataArity() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    K keyAt(int pIndex) {
+      return (K) content[2 * pIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    V valueAt(int pIndex) {
+      return (V) content[2 * pIndex + 1];
+    }
+
+    @Override
+    int nodeArity() {
+      return 0;
+    }
+
+    @Override
+    Node<K, V> nodeAt(int pIndex) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    @Override
+    int find(Object pKey, int pKeyHash, int pShift) {
+      if (pKeyHash == keyHash) {
+        for (int i = 0; i < size; i++) {
+          if (pKey.equals(content[2 * i])) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    V getOrDefault(Object pKey, int pKeyHash, int pShift, V pDefault) {
+      int index = find(pKey, pKeyHash, pShift);
+      return index < 0 ? pDefault : valueAt(index);
+    }
+
+    @Override
+    Node<K, V> put(K pKey, V pValue, int pKeyHash, int pShift) {
+      assert pKeyHash == keyHash;
+      int index = find(pKey, pKeyHash, pShift);
+      if (index >= 0) {
+        V oldValue = valueAt(index);
+        if (Objects.equals(pValue, oldValue)) {
+          return this;
+        }
+        Object[] newContent = content.clone();
+        newContent[2 * index + 1] = pValue;
+        return new CollisionNode<>(
+            keyHash, newContent, hash - entryHash(pKey, oldValue) + entryHash(pKey, pValue));
+      }
+      Object[] newContent = Arrays.copyOf(content, content.length + 2);
+      newContent[content.length] = pKey;
+      newContent[content.length + 1] = pValue;
+      return new CollisionNode<>(keyHash, newContent, hash + entryHash(pKey, pValue));
+    }
+
+    @Override
+    Node<K, V> remove(Object pKey, int pKeyHash, int pShift) {
+      int index = find(pKey, pKeyHash, pShift);
+      if (index < 0) {
+        return this;
+      }
+      Object[] newContent = new Object[content.length - 2];
+      System.arraycopy(content, 0, newContent, 0, 2 * index);
+      System.arraycopy(
+          content, 2 * index + 2, newContent, 2 * index, content.length - 2 * index - 2);
+      return new CollisionNode<>(keyHash, newContent, hash - entryHash(pKey, valueAt(index)));
+    }
+  }
+
+  private static <K, V> Node<K, V> mergeEntries(
+      K pKey1, V pValue1, int pKeyHash1, K pKey2, V pValue2, int pKeyHash2, int pShift) {
+    int entryHashes = entryHash(pKey1, pValue1) + entryHash(pKey2, pValue2);
+    if (pShift >= MAX_SHIFT) {
+      return new CollisionNode<>(
+          pKeyHash1, new Object[] {pKey1, pValue1, pKey2, pValue2}, entryHashes);
+    }
+    int bit1 = bitpos(pKeyHash1, pShift);
+    int bit2 = bitpos(pKeyHash2, pShift);
+    if (bit1 == bit2) {
+      Node<K, V> child =
+          mergeEntries(
+              pKey1, pValue1, pKeyHash1, pKey2, pValue2, pKeyHash2, pShift + BITS_PER_LEVEL);
+      return new BitmapNode<>(0, bit1, new Object[] {child}, 2, entryHashes);
+    }
+    Object[] content =
+        Integer.compareUnsigned(bit1, bit2) < 0
+            ? new Object[] {pKey1, pValue1, pKey2, pValue2}
+            : new Object[] {pKey2, pValue2, pKey1, pValue1};
+    return new BitmapNode<>(bit1 | bit2, 0, content, 2, entryHashes);
+  }
+
+  /** Depth-first iterator over the entries of a subtree. */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+    private static final int MAX_DEPTH = MAX_SHIFT / BITS_PER_LEVEL + 2;
+
+    private final Node<?, ?>[] nodes = new Node<?, ?>[MAX_DEPTH];
+    private final int[] nextChild = new int[MAX_DEPTH];
+    private int depth = 0;
+
+    private Node<K, V> current;
+    private int nextData = 0;
+
+    EntryIterator(Node<K, V> pRoot) {
+      current = pRoot;
+      nodes[0] = pRoot;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (nextData >= current.dataArity()) {
+        if (!advanceToNextNode()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean advanceToNextNode() {
+      while (depth >= 0) {
+        Node<K, V> node = (Node<K, V>) nodes[depth];
+        if (nextChild[depth] < node.nodeArity()) {
+          Node<K, V> child = node.nodeAt(nextChild[depth]++);
+          depth++;
+          nodes[depth] = child;
+          nextChild[depth] = 0;
+          current = child;
+          nextData = 0;
+          return true;
+        }
+        nodes[depth] = null;
+        depth--;
+      }
+      return false;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int index = nextData++;
+      return Maps.immutableEntry(current.keyAt(index), current.valueAt(index));
+    }
+  }
+
+  private Object writeReplace() {
+    return new SerializationProxy<>(this);
+  }
+
+  @SuppressWarnings("unused")
+  private void readObject(ObjectInputStream pIn) throws InvalidObjectException {
+    throw new InvalidObjectException("Proxy required");
+  }
+
+  /**
+   * Stores only the entries, because the cached hashes of the nodes are not necessarily the same
+   * in another JVM.
+   */
+  private static final class SerializationProxy<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] keys;
+    private final Object[] values;
+
+    SerializationProxy(PersistentHashTrieMap<K, V> pMap) {
+      keys = new Object[pMap.size()];
+      values = new Object[pMap.size()];
+      int i = 0;
+      for (Map.Entry<K, V> entry : pMap.entrySet()) {
+        keys[i] = entry.getKey();
+        values[i] = entry.getValue();
+        i++;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readResolve() {
+      PersistentHashTrieMap<K, V> result = of();
+      for (int i = 0; i < keys.length; i++) {
+        result = result.putAndCopy((K) keys[i], (V) values[i]);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.util.PersistentHashTrieMap.DifferenceVisitor;
+
+public class PersistentHashTrieMapTest {
+
+  /** Key with a configurable hash code for producing collisions. */
+  private static final class Key {
+    private final int id;
+    private final int hash;
+
+    Key(int pId, int pHash) {
+      id = pId;
+      hash = pHash;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof Key && ((Key) pObj).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "K" + id;
+    }
+  }
+
+  private static class RecordingVisitor implements DifferenceVisitor<Key, Integer> {
+    private final List<String> differences = new ArrayList<>();
+
+    @Override
+    public boolean onlyLeft(Key pKey, Integer pValue) {
+      differences.add("left " + pKey);
+      return true;
+    }
+
+    @Override
+    public boolean onlyRight(Key pKey, Integer pValue) {
+      differences.add("right " + pKey);
+      return true;
+    }
+
+    @Override
+    public boolean differentValues(Key pKey, Integer pLeftValue, Integer pRightValue) {
+      differences.add("changed " + pKey);
+      return true;
+    }
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    Random random = new Random(0);
+    Key[] keys = new Key[500];
+    for (int i = 0; i < keys.length; i++) {
+      // few distinct hash codes, such that there are many full collisions
+      keys[i] = new Key(i, random.nextInt(64) * 0x9E3779B9);
+    }
+
+    PersistentHashTrieMap<Key, Integer> map = PersistentHashTrieMap.of();
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 5000; i++) {
+      Key key = keys[random.nextInt(keys.length)];
+      if (random.nextInt(3) == 0) {
+        map = map.removeAndCopy(key);
+        expected.remove(key);
+      } else {
+        Integer value = random.nextInt(4);
+        map = map.putAndCopy(key, value);
+        expected.put(key, value);
+      }
+    }
+
+    assertThat(map).isEqualTo(expected);
+    assertThat(expected).isEqualTo(map);
+    assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(map.entrySet()).containsExactlyElementsIn(expected.entrySet());
+  }
+
+  @Test
+  public void testCanonicalShape() {
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add(new Key(i, i % 100 == 0 ? 42 : i * 31));
+    }
+
+    PersistentHashTrieMap<Key, Integer> map1 = PersistentHashTrieMap.of();
+    for (Key key : keys) {
+      map1 = map1.putAndCopy(key, key.id);
+    }
+
+    // insert in another order and with intermediate removals
+    Collections.shuffle(keys, new Random(0));
+    PersistentHashTrieMap<Key, Integer> map2 = PersistentHashTrieMap.of();
+    for (Key key : keys) {
+      map2 = map2.putAndCopy(key, -1);
+    }
+    for (Key key : keys) {
+      map2 = map2.removeAndCopy(key);
+    }
+    assertThat(map2).isEmpty();
+    for (Key key : keys) {
+      map2 = map2.putAndCopy(key, key.id);
+    }
+
+    assertThat(map1).isEqualTo(map2);
+    assertThat(map1.hashCode()).isEqualTo(map2.hashCode());
+
+    RecordingVisitor visitor = new RecordingVisitor();
+    assertThat(map1.diff(map2, visitor)).isTrue();
+    assertThat(visitor.differences).isEmpty();
+  }
+
+  @Test
+  public void testDiff() {
+    PersistentHashTrieMap<Key, Integer> base = PersistentHashTrieMap.of();
+    for (int i = 0; i < 1000; i++) {
+      base = base.putAndCopy(new Key(i, i), i);
+    }
+
+    PersistentHashTrieMap<Key, Integer> left =
+        base.removeAndCopy(new Key(1, 1)).putAndCopy(new Key(2000, 7), 0);
+    PersistentHashTrieMap<Key, Integer> right =
+        base.putAndCopy(new Key(3, 3), -3).putAndCopy(new Key(7, 7), 7);
+
+    RecordingVisitor visitor = new RecordingVisitor();
+    assertThat(left.diff(right, visitor)).isTrue();
+    assertThat(visitor.differences)
+        .containsExactly("right K1", "left K2000", "changed K3");
+  }
+
+  @Test
+  public void testDiffStops() {
+    PersistentHashTrieMap<Key, Integer> left = PersistentHashTrieMap.of();
+    PersistentHashTrieMap<Key, Integer> right = PersistentHashTrieMap.of();
+    for (int i = 0; i < 100; i++) {
+      right = right.putAndCopy(new Key(i, i), i);
+    }
+
+    int[] calls = {0};
+    boolean completed =
+        left.diff(
+            right,
+            new RecordingVisitor() {
+              @Override
+              public boolean onlyRight(Key pKey, Integer pValue) {
+                calls[0]++;
+                return false;
+              }
+            });
+    assertThat(completed).isFalse();
+    assertThat(calls[0]).isEqualTo(1);
+  }
+
+  @Test
+  public void testUnchangedMapIsReused() {
+    PersistentHashTrieMap<String, Integer> map =
+        PersistentHashTrieMap.<String, Integer>of().putAndCopy("a", 1).putAndCopy("b", null);
+    assertThat(map.putAndCopy("a", 1)).isSameAs(map);
+    assertThat(map.putAndCopy("b", null)).isSameAs(map);
+    assertThat(map.removeAndCopy("c")).isSameAs(map);
+    assertThat(map).containsEntry("b", null);
+  }
+}
@@ -25,7 +25,9 @@ package org.sosy_lab.cpachecker.util.automaton;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -35,7 +37,9 @@ import com.google.common.io.BaseEncoding;
 import com.google.common.io.CharStreams;
 import com.google.common.io.MoreFiles;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -53,6 +57,9 @@ import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -522,6 +529,190 @@ public class AutomatonGraphmlCommon {
 
   }
 
+  /**
+   * Writes a witness in GraphML format with a streaming XML writer, such that no document tree
+   * needs to be kept in memory, and the output can be written directly into a (compressed) file.
+   *
+   * <p>GraphML requires the key definitions to precede the graph, so all keys that are used for
+   * nodes and edges need to be given on construction. The header and the data of the graph are
+   * written immediately, afterwards nodes and edges can be written in any order, and finally
+   * {@link #close()} completes the document.
+   */
+  public static class GraphMlWriter implements Closeable {
+
+    private final XMLStreamWriter out;
+    private final Set<KeyDef> definedKeys = EnumSet.noneOf(KeyDef.class);
+
+    public GraphMlWriter(
+        Appendable pTarget,
+        WitnessType pGraphType,
+        @Nullable String pDefaultSourceFileName,
+        CFA pCfa,
+        VerificationTaskMetaData pVerificationTaskMetaData,
+        Set<KeyDef> pNodeAndEdgeKeys)
+        throws IOException {
+      Writer writer = CharStreams.asWriter(pTarget);
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+      try {
+        out = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+        out.writeStartElement("graphml");
+        out.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+        out.writeNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
+
+        Set<KeyDef> keys = EnumSet.copyOf(pNodeAndEdgeKeys);
+        keys.add(KeyDef.ORIGINFILE);
+        for (KeyDef keyDef : KeyDef.values()) {
+          if (keyDef.keyFor == ElementType.GRAPH) {
+            keys.add(keyDef);
+          }
+        }
+        for (KeyDef keyDef : keys) {
+          writeKeyDef(
+              keyDef,
+              keyDef == KeyDef.ORIGINFILE
+                  ? Optional.ofNullable(pDefaultSourceFileName)
+                  : Optional.empty());
+        }
+
+        indent(1);
+        out.writeStartElement(GraphMLTag.GRAPH.toString());
+        out.writeAttribute("edgedefault", "directed");
+        writeData(2, KeyDef.WITNESS_TYPE, pGraphType.toString());
+        writeData(2, KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString());
+        writeData(2, KeyDef.PRODUCER, "CPAchecker " + CPAchecker.getCPAcheckerVersion());
+
+        int nSpecs = 0;
+        for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
+          writeData(2, KeyDef.SPECIFICATION, property.toString());
+          ++nSpecs;
+        }
+
+        for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
+          writeData(
+              2,
+              KeyDef.SPECIFICATION,
+              MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim());
+          ++nSpecs;
+        }
+
+        if (nSpecs == 0) {
+          writeData(2, KeyDef.SPECIFICATION, "TRUE");
+        }
+
+        for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
+          writeData(2, KeyDef.INPUTWITNESSHASH, computeHash(inputWitness));
+        }
+
+        for (Path programFile : pCfa.getFileNames()) {
+          writeData(2, KeyDef.PROGRAMFILE, programFile.toString());
+        }
+        for (Path programFile : pCfa.getFileNames()) {
+          writeData(2, KeyDef.PROGRAMHASH, computeHash(programFile));
+        }
+
+        writeData(2, KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel()));
+        ZonedDateTime now = ZonedDateTime.now().withNano(0);
+        writeData(2, KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+      } catch (XMLStreamException e) {
+        throw asIOException(e);
+      }
+    }
+
+    private void writeKeyDef(KeyDef pKeyDef, Optional<String> pDefaultValue)
+        throws XMLStreamException {
+      definedKeys.add(pKeyDef);
+      indent(1);
+      out.writeStartElement(GraphMLTag.KEY.toString());
+      out.writeAttribute("id", pKeyDef.id);
+      out.writeAttribute("for", pKeyDef.keyFor.toString());
+      out.writeAttribute("attr.name", pKeyDef.attrName);
+      out.writeAttribute("attr.type", pKeyDef.attrType);
+
+      String defaultValue = pDefaultValue.orElse(pKeyDef.defaultValue);
+      if (defaultValue != null) {
+        indent(2);
+        out.writeStartElement(GraphMLTag.DEFAULT.toString());
+        out.writeCharacters(defaultValue);
+        out.writeEndElement();
+        indent(1);
+      }
+      out.writeEndElement();
+    }
+
+    private void indent(int pDepth) throws XMLStreamException {
+      out.writeCharacters("\n" + Strings.repeat(" ", pDepth));
+    }
+
+    private void writeData(int pDepth, KeyDef pKey, String pValue) throws XMLStreamException {
+      Preconditions.checkState(
+          definedKeys.contains(pKey), "Key %s was not declared for the witness", pKey);
+      indent(pDepth);
+      out.writeStartElement(GraphMLTag.DATA.toString());
+      out.writeAttribute("key", pKey.id);
+      out.writeCharacters(pValue);
+      out.writeEndElement();
+    }
+
+    private void writeElement(
+        GraphMLTag pTag,
+        Map<String, String> pAttributes,
+        Iterable<? extends Map.Entry<KeyDef, String>> pData)
+        throws IOException {
+      try {
+        indent(2);
+        out.writeStartElement(pTag.toString());
+        for (Map.Entry<String, String> attribute : pAttributes.entrySet()) {
+          out.writeAttribute(attribute.getKey(), attribute.getValue());
+        }
+        boolean hasData = false;
+        for (Map.Entry<KeyDef, String> data : pData) {
+          writeData(3, data.getKey(), data.getValue());
+          hasData = true;
+        }
+        if (hasData) {
+          indent(2);
+        }
+        out.writeEndElement();
+      } catch (XMLStreamException e) {
+        throw asIOException(e);
+      }
+    }
+
+    public void writeNode(String pNodeId, Iterable<? extends Map.Entry<KeyDef, String>> pData)
+        throws IOException {
+      writeElement(GraphMLTag.NODE, ImmutableMap.of("id", pNodeId), pData);
+    }
+
+    public void writeEdge(
+        String pSource, String pTarget, Iterable<? extends Map.Entry<KeyDef, String>> pData)
+        throws IOException {
+      writeElement(GraphMLTag.EDGE, ImmutableMap.of("source", pSource, "target", pTarget), pData);
+    }
+
+    /** Completes the document. The underlying target is flushed, but not closed. */
+    @Override
+    public void close() throws IOException {
+      try {
+        indent(1);
+        out.writeEndElement(); // graph
+        out.writeCharacters("\n");
+        out.writeEndElement(); // graphml
+        out.writeEndDocument();
+        out.flush();
+        out.close();
+      } catch (XMLStreamException e) {
+        throw asIOException(e);
+      }
+    }
+
+    private static IOException asIOException(XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        return (IOException) e.getNestedException();
+      }
+      return new IOException("Error while writing witness.", e);
+    }
+  }
+
   public static boolean handleAsEpsilonEdge(CFAEdge pEdge, CFAEdgeWithAdditionalInfo
       pAdditionalInfo) {
     if (pAdditionalInfo != null && !pAdditionalInfo.getInfos().isEmpty()) {
@@ -0,0 +1,238 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.incremental;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionCallEdge;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionReturnEdge;
+import org.sosy_lab.cpachecker.cfa.model.FunctionSummaryEdge;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * Structural fingerprint of all functions of a CFA, which allows to recognize the functions
+ * that did not change between two revisions of a program.
+ *
+ * <p>For each function, the nodes are enumerated in breadth-first order starting at the
+ * function entry, and the hash covers the signature of the function and all edges inside it
+ * (as pairs of node indices together with the code of the edge). Function calls are
+ * represented by their summary edges, thus the hash of a function does not depend on the
+ * bodies of its callees, which are recorded separately. Two functions with the same hash
+ * have the same shape, so their nodes can be matched by their index, even though the node
+ * numbers differ between the two CFAs.
+ *
+ * <p>The fingerprint can be written to and read from a text file with one line per function.
+ */
+public final class CFAFingerprint {
+
+  private static final String HEADER = "# CPAchecker CFA fingerprint v1";
+  private static final char SEPARATOR = '\t';
+  private static final Splitter LINE_SPLITTER = Splitter.on(SEPARATOR);
+  private static final Splitter LIST_SPLITTER = Splitter.on(',').omitEmptyStrings();
+  private static final Joiner LIST_JOINER = Joiner.on(',');
+
+  /** The fingerprint of a single function. */
+  public static final class FunctionFingerprint {
+
+    private final HashCode hash;
+    private final ImmutableSortedSet<String> callees;
+    private final ImmutableList<Integer> nodeNumbers;
+
+    private FunctionFingerprint(
+        HashCode pHash, ImmutableSortedSet<String> pCallees, ImmutableList<Integer> pNodeNumbers) {
+      hash = checkNotNull(pHash);
+      callees = checkNotNull(pCallees);
+      nodeNumbers = checkNotNull(pNodeNumbers);
+    }
+
+    public HashCode getHash() {
+      return hash;
+    }
+
+    /** The names of the functions (with body) that are called by this function. */
+    public ImmutableSortedSet<String> getCallees() {
+      return callees;
+    }
+
+    /** The numbers of the nodes of this function, ordered by their index. */
+    public ImmutableList<Integer> getNodeNumbers() {
+      return nodeNumbers;
+    }
+
+    @Override
+    public String toString() {
+      return hash.toString();
+    }
+  }
+
+  private final ImmutableMap<String, FunctionFingerprint> functions;
+
+  private CFAFingerprint(ImmutableMap<String, FunctionFingerprint> pFunctions) {
+    functions = pFunctions;
+  }
+
+  /** Map from function name to fingerprint of this function. */
+  public ImmutableMap<String, FunctionFingerprint> getFunctions() {
+    return functions;
+  }
+
+  /** Compute the fingerprint of all functions of the given CFA. */
+  public static CFAFingerprint of(CFA pCfa) {
+    ImmutableMap.Builder<String, FunctionFingerprint> result = ImmutableMap.builder();
+    for (Map.Entry<String, FunctionEntryNode> function : pCfa.getAllFunctions().entrySet()) {
+      result.put(function.getKey(), of(function.getValue()));
+    }
+    return new CFAFingerprint(result.build());
+  }
+
+  private static FunctionFingerprint of(FunctionEntryNode pEntryNode) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, pEntryNode.getFunctionDefinition().toASTString());
+
+    ImmutableSortedSet.Builder<String> callees = ImmutableSortedSet.naturalOrder();
+    Map<CFANode, Integer> indices = new LinkedHashMap<>();
+    Queue<CFANode> waitlist = new ArrayDeque<>();
+    indices.put(pEntryNode, 0);
+    waitlist.add(pEntryNode);
+
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.remove();
+      int index = indices.get(node);
+      putString(hasher, node.getClass().getSimpleName());
+
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        if (edge instanceof FunctionCallEdge) {
+          // the call is represented by the summary edge, which stays inside this function
+          callees.add(edge.getSuccessor().getFunctionName());
+          continue;
+        }
+        if (edge instanceof FunctionReturnEdge) {
+          continue;
+        }
+
+        CFANode successor = edge.getSuccessor();
+        Integer successorIndex = indices.get(successor);
+        if (successorIndex == null) {
+          successorIndex = indices.size();
+          indices.put(successor, successorIndex);
+          waitlist.add(successor);
+        }
+
+        hasher.putInt(index).putInt(successorIndex);
+        putString(hasher, edge.getEdgeType().name());
+        if (edge instanceof FunctionSummaryEdge) {
+          putString(hasher, ((FunctionSummaryEdge) edge).getExpression().toASTString());
+        } else {
+          putString(hasher, edge.getCode());
+        }
+      }
+    }
+
+    ImmutableList.Builder<Integer> nodeNumbers = ImmutableList.builder();
+    for (CFANode node : indices.keySet()) {
+      nodeNumbers.add(node.getNodeNumber());
+    }
+    return new FunctionFingerprint(hasher.hash(), callees.build(), nodeNumbers.build());
+  }
+
+  private static void putString(Hasher pHasher, String pString) {
+    // length prefix prevents ambiguities between consecutive strings
+    pHasher.putInt(pString.length()).putString(pString, StandardCharsets.UTF_8);
+  }
+
+  /** Write the fingerprint in the format understood by {@link #read(Path)}. */
+  public void write(Appendable pOut) throws IOException {
+    pOut.append(HEADER).append('\n');
+    for (Map.Entry<String, FunctionFingerprint> entry : functions.entrySet()) {
+      FunctionFingerprint function = entry.getValue();
+      pOut.append(entry.getKey())
+          .append(SEPARATOR)
+          .append(function.hash.toString())
+          .append(SEPARATOR)
+          .append(LIST_JOINER.join(function.callees))
+          .append(SEPARATOR)
+          .append(LIST_JOINER.join(function.nodeNumbers))
+          .append('\n');
+    }
+  }
+
+  /** Read a fingerprint that was written by {@link #write(Appendable)}. */
+  public static CFAFingerprint read(Path pFile) throws IOException {
+    List<String> lines = Files.readAllLines(pFile, StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+      throw new IOException(
+          "File " + pFile + " is not a CFA fingerprint of a compatible version");
+    }
+
+    ImmutableMap.Builder<String, FunctionFingerprint> result = ImmutableMap.builder();
+    for (int lineNo = 1; lineNo < lines.size(); lineNo++) {
+      String line = lines.get(lineNo);
+      if (line.isEmpty()) {
+        continue;
+      }
+      List<String> parts = LINE_SPLITTER.splitToList(line);
+      if (parts.size() != 4) {
+        throw new IOException("Invalid line " + (lineNo + 1) + " in CFA fingerprint " + pFile);
+      }
+      try {
+        ImmutableList.Builder<Integer> nodeNumbers = ImmutableList.builder();
+        for (String nodeNumber : LIST_SPLITTER.split(parts.get(3))) {
+          nodeNumbers.add(Integer.parseInt(nodeNumber));
+        }
+        result.put(
+            parts.get(0),
+            new FunctionFingerprint(
+                HashCode.fromString(parts.get(1)),
+                ImmutableSortedSet.copyOf(LIST_SPLITTER.split(parts.get(2))),
+                nodeNumbers.build()));
+      } catch (IllegalArgumentException e) {
+        throw new IOException(
+            "Invalid line " + (lineNo + 1) + " in CFA fingerprint " + pFile + ": " + e.getMessage(),
+            e);
+      }
+    }
+    return new CFAFingerprint(result.build());
+  }
+}
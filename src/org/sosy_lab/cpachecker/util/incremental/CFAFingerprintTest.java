@@ -0,0 +1,127 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.incremental;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class CFAFingerprintTest {
+
+  private static final String[] REVISION_1 = {
+    "int f(int x) { return x + 1; }",
+    "int g(int x) { if (x > 0) { return x; } return -x; }",
+    "int h(int x) { return g(x); }",
+    "int main() { int a = f(1); int b = h(a); return a + b; }"
+  };
+
+  private static final String[] REVISION_2 = {
+    "int f(int x) { return x + 1; }",
+    "int g(int x) { if (x >= 0) { return x; } return -x; }",
+    "int h(int x) { return g(x); }",
+    "int main() { int a = f(1); int b = h(a); return a + b; }"
+  };
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testChangedFunctions() throws Exception {
+    CFAFingerprint first = CFAFingerprint.of(TestDataTools.makeCFA(REVISION_1));
+    CFAFingerprint second = CFAFingerprint.of(TestDataTools.makeCFA(REVISION_2));
+
+    assertThat(first.getFunctions().keySet()).containsExactly("f", "g", "h", "main");
+    assertThat(second.getFunctions().get("f").getHash())
+        .isEqualTo(first.getFunctions().get("f").getHash());
+    assertThat(second.getFunctions().get("g").getHash())
+        .isNotEqualTo(first.getFunctions().get("g").getHash());
+    assertThat(second.getFunctions().get("h").getHash())
+        .isEqualTo(first.getFunctions().get("h").getHash());
+    assertThat(second.getFunctions().get("main").getCallees()).containsExactly("f", "h");
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    CFAFingerprint fingerprint = CFAFingerprint.of(TestDataTools.makeCFA(REVISION_1));
+    Path file = writeToFile(fingerprint);
+
+    CFAFingerprint read = CFAFingerprint.read(file);
+    assertThat(read.getFunctions().keySet())
+        .containsExactlyElementsIn(fingerprint.getFunctions().keySet());
+    for (String function : fingerprint.getFunctions().keySet()) {
+      assertThat(read.getFunctions().get(function).getHash())
+          .isEqualTo(fingerprint.getFunctions().get(function).getHash());
+      assertThat(read.getFunctions().get(function).getCallees())
+          .isEqualTo(fingerprint.getFunctions().get(function).getCallees());
+      assertThat(read.getFunctions().get(function).getNodeNumbers())
+          .isEqualTo(fingerprint.getFunctions().get(function).getNodeNumbers());
+    }
+  }
+
+  @Test
+  public void testRevisionMapping() throws Exception {
+    CFAFingerprint previous = CFAFingerprint.of(TestDataTools.makeCFA(REVISION_1));
+    Path file = writeToFile(previous);
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("incremental.previousFingerprint", file.toString())
+            .build();
+    CFA cfa = TestDataTools.makeCFA(REVISION_2);
+
+    CFARevisionMapping mapping =
+        new CFARevisionMapping(config, cfa, LogManager.createTestLogManager());
+    assertThat(mapping.isEnabled()).isTrue();
+    assertThat(mapping.getChangedFunctions()).containsExactly("g");
+    assertThat(mapping.getAffectedFunctions()).containsExactly("h", "main");
+
+    for (int nodeNumber : previous.getFunctions().get("f").getNodeNumbers()) {
+      assertThat(mapping.getCorrespondingNode(nodeNumber).map(CFANode::getFunctionName))
+          .hasValue("f");
+    }
+    for (int nodeNumber : previous.getFunctions().get("g").getNodeNumbers()) {
+      assertThat(mapping.getCorrespondingNode(nodeNumber)).isEmpty();
+      assertThat(mapping.getCorrespondingNodes(nodeNumber))
+          .hasSize(previous.getFunctions().get("g").getNodeNumbers().size());
+    }
+  }
+
+  private Path writeToFile(CFAFingerprint pFingerprint) throws Exception {
+    Path file = tempFolder.newFile("fingerprint.txt").toPath();
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      pFingerprint.write(writer);
+    }
+    return file;
+  }
+}
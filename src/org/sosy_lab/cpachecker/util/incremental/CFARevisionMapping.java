@@ -0,0 +1,236 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.incremental;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.incremental.CFAFingerprint.FunctionFingerprint;
+
+/**
+ * Mapping of CFA nodes of a previous revision of the program to the nodes of the current CFA,
+ * based on the {@link CFAFingerprint} that was exported by the analysis of the previous
+ * revision (cf. option cfa.fingerprint.export).
+ *
+ * <p>Nodes of functions whose fingerprint did not change are mapped to the node with the same
+ * index in the current CFA. Nodes of changed functions cannot be mapped individually, users of
+ * this class should apply information about such nodes to the whole function instead. Removed
+ * functions are ignored.
+ *
+ * <p>Functions that did not change themselves but (transitively) call a changed function are
+ * called affected: all information about their nodes can be mapped, but summaries of their
+ * behavior are invalid.
+ */
+@Options(prefix = "incremental")
+public final class CFARevisionMapping {
+
+  @Option(
+    secure = true,
+    name = "previousFingerprint",
+    description =
+        "CFA fingerprint of a previous revision of the program (as written with"
+            + " cfa.fingerprint.export). If given, precisions read from files that were exported"
+            + " for the previous revision are mapped to the current CFA."
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path previousFingerprintFile = null;
+
+  private final CFA cfa;
+  private final boolean enabled;
+
+  private final ImmutableSet<String> changedFunctions;
+  private final ImmutableSet<String> affectedFunctions;
+
+  /** Function and index of each node of the previous revision. */
+  private final Map<Integer, String> previousFunctionOfNode = new HashMap<>();
+  private final Map<Integer, Integer> previousIndexOfNode = new HashMap<>();
+
+  private final Map<String, ImmutableList<Integer>> currentNodeNumbers = new HashMap<>();
+  private @Nullable Map<Integer, CFANode> currentNodes = null; // lazily initialized
+
+  public CFARevisionMapping(Configuration pConfig, CFA pCfa, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    cfa = pCfa;
+
+    CFAFingerprint previous = null;
+    if (previousFingerprintFile != null) {
+      try {
+        previous = CFAFingerprint.read(previousFingerprintFile);
+      } catch (IOException e) {
+        pLogger.logUserException(
+            Level.WARNING, e, "Could not read CFA fingerprint of previous revision, ignoring it");
+      }
+    }
+
+    enabled = previous != null;
+    if (previous == null) {
+      changedFunctions = ImmutableSet.of();
+      affectedFunctions = ImmutableSet.of();
+      return;
+    }
+
+    CFAFingerprint current = CFAFingerprint.of(pCfa);
+    Map<String, FunctionFingerprint> previousFunctions = previous.getFunctions();
+    Map<String, FunctionFingerprint> currentFunctions = current.getFunctions();
+
+    Set<String> changed = new HashSet<>();
+    for (Map.Entry<String, FunctionFingerprint> entry : currentFunctions.entrySet()) {
+      String function = entry.getKey();
+      FunctionFingerprint previousFunction = previousFunctions.get(function);
+      currentNodeNumbers.put(function, entry.getValue().getNodeNumbers());
+      if (previousFunction == null
+          || !previousFunction.getHash().equals(entry.getValue().getHash())) {
+        changed.add(function);
+      }
+    }
+    Set<String> removed = Sets.difference(previousFunctions.keySet(), currentFunctions.keySet());
+    changed.addAll(removed);
+    changedFunctions = ImmutableSet.copyOf(changed);
+
+    for (Map.Entry<String, FunctionFingerprint> entry : previousFunctions.entrySet()) {
+      List<Integer> nodeNumbers = entry.getValue().getNodeNumbers();
+      for (int i = 0; i < nodeNumbers.size(); i++) {
+        previousFunctionOfNode.put(nodeNumbers.get(i), entry.getKey());
+        previousIndexOfNode.put(nodeNumbers.get(i), i);
+      }
+    }
+
+    affectedFunctions = computeTransitiveCallers(current, changedFunctions);
+
+    pLogger.logf(
+        Level.INFO,
+        "Compared CFA with previous revision: %d of %d functions changed (%d removed),"
+            + " %d further functions call changed functions",
+        Sets.difference(changedFunctions, removed).size(),
+        currentFunctions.size(),
+        removed.size(),
+        affectedFunctions.size());
+  }
+
+  private static ImmutableSet<String> computeTransitiveCallers(
+      CFAFingerprint pFingerprint, Set<String> pFunctions) {
+    SetMultimap<String, String> callers = HashMultimap.create();
+    for (Map.Entry<String, FunctionFingerprint> entry : pFingerprint.getFunctions().entrySet()) {
+      for (String callee : entry.getValue().getCallees()) {
+        callers.put(callee, entry.getKey());
+      }
+    }
+
+    Set<String> reached = new HashSet<>(pFunctions);
+    Queue<String> waitlist = new ArrayDeque<>(pFunctions);
+    while (!waitlist.isEmpty()) {
+      for (String caller : callers.get(waitlist.remove())) {
+        if (reached.add(caller)) {
+          waitlist.add(caller);
+        }
+      }
+    }
+    return ImmutableSet.copyOf(Sets.difference(reached, pFunctions));
+  }
+
+  /** Whether a fingerprint of a previous revision is available. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Functions that were added, removed, or modified since the previous revision. */
+  public ImmutableSet<String> getChangedFunctions() {
+    return changedFunctions;
+  }
+
+  /** Unmodified functions that (transitively) call a changed function. */
+  public ImmutableSet<String> getAffectedFunctions() {
+    return affectedFunctions;
+  }
+
+  /**
+   * Get the node of the current CFA that corresponds to the given node of the previous
+   * revision. This is only possible if the function of the node did not change.
+   */
+  public Optional<CFANode> getCorrespondingNode(int pPreviousNodeNumber) {
+    String function = previousFunctionOfNode.get(pPreviousNodeNumber);
+    if (function == null || changedFunctions.contains(function)) {
+      return Optional.empty();
+    }
+    int index = previousIndexOfNode.get(pPreviousNodeNumber);
+    return Optional.ofNullable(
+        getCurrentNodes().get(currentNodeNumbers.get(function).get(index)));
+  }
+
+  /**
+   * Get the nodes of the current CFA to which information about the given node of the previous
+   * revision should be applied: the corresponding node if its function did not change, all
+   * nodes of the function if it changed, and nothing if it was removed.
+   */
+  public Collection<CFANode> getCorrespondingNodes(int pPreviousNodeNumber) {
+    Optional<CFANode> node = getCorrespondingNode(pPreviousNodeNumber);
+    if (node.isPresent()) {
+      return ImmutableList.of(node.get());
+    }
+    String function = previousFunctionOfNode.get(pPreviousNodeNumber);
+    List<Integer> nodeNumbers = function == null ? null : currentNodeNumbers.get(function);
+    if (nodeNumbers == null) {
+      return ImmutableList.of();
+    }
+    ImmutableList.Builder<CFANode> result = ImmutableList.builder();
+    for (int nodeNumber : nodeNumbers) {
+      result.add(getCurrentNodes().get(nodeNumber));
+    }
+    return result.build();
+  }
+
+  private Map<Integer, CFANode> getCurrentNodes() {
+    if (currentNodes == null) {
+      currentNodes = new HashMap<>();
+      for (CFANode node : cfa.getAllNodes()) {
+        currentNodes.put(node.getNodeNumber(), node);
+      }
+    }
+    return currentNodes;
+  }
+}
@@ -48,7 +48,7 @@ public class BDDExistsTest {
 
   @Parameters(name = "{0}")
   public static Object[] getAllPackages() {
-    return new String[] {"SYLVAN", "JAVA"};
+    return new String[] {"SYLVAN", "JAVA", "CONCURRENT"};
   }
 
   @Test
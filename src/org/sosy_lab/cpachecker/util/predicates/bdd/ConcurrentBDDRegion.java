@@ -0,0 +1,78 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.bdd;
+
+import org.sosy_lab.cpachecker.util.predicates.bdd.ConcurrentBDDRegionManager.Node;
+import org.sosy_lab.cpachecker.util.predicates.regions.Region;
+
+/**
+ * Regions represented using BDDs of the {@link ConcurrentBDDRegionManager}.
+ */
+public class ConcurrentBDDRegion implements Region {
+
+  private final Node node;
+
+  ConcurrentBDDRegion(Node pNode) {
+    node = pNode;
+  }
+
+  @Override
+  public boolean isTrue() {
+    return node == ConcurrentBDDRegionManager.TRUE;
+  }
+
+  @Override
+  public boolean isFalse() {
+    return node == ConcurrentBDDRegionManager.FALSE;
+  }
+
+  Node getNode() {
+    return node;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    // nodes are unique, and reordering keeps the identity of nodes
+    if (o instanceof ConcurrentBDDRegion) {
+      return node == ((ConcurrentBDDRegion) o).node;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return node.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    if (isTrue()) {
+      return "true";
+    } else if (isFalse()) {
+      return "false";
+    } else {
+      return node.toString();
+    }
+  }
+}
@@ -0,0 +1,1223 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.bdd;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsWriter.writingStatisticsTo;
+
+import com.google.common.collect.MapMaker;
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.cpachecker.util.Triple;
+import org.sosy_lab.cpachecker.util.predicates.PredicateOrderingStrategy;
+import org.sosy_lab.cpachecker.util.predicates.regions.Region;
+import org.sosy_lab.cpachecker.util.predicates.regions.RegionManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.BooleanFormulaVisitor;
+
+/**
+ * A thread-safe BDD package written in Java that executes the top-most recursion levels of its
+ * operations in parallel.
+ *
+ * <p>BDD nodes are ordinary Java objects, thus there is no fixed node table that needs to be
+ * resized and no manual reference counting: the unique table references nodes weakly, and nodes
+ * that are no longer used are reclaimed by the Java garbage collector. The unique table (one
+ * concurrent hash map per variable) and the computed cache (a direct-mapped table in which a new
+ * entry evicts the previous entry with the same hash) can be accessed by several threads
+ * concurrently.
+ *
+ * <p>Variable reordering is done by swapping adjacent levels in place, i.e., all nodes keep
+ * representing the same Boolean function, and regions that were created before stay valid.
+ * Reordering needs exclusive access to the BDDs, all other operations share a read lock.
+ */
+@Options(prefix = "bdd.concurrent")
+class ConcurrentBDDRegionManager implements RegionManager {
+
+  private static final int TERMINAL_VAR = -1;
+
+  /** Maximal growth of the number of nodes while sifting a variable into one direction. */
+  private static final double MAX_GROWTH = 1.2;
+
+  // operations, used as keys in the computed cache
+  private static final int AND = 0;
+  private static final int OR = 1;
+  private static final int XOR = 2;
+  private static final int BIIMP = 3;
+  private static final int IMP = 4;
+  private static final int NOT = 5;
+  private static final int ITE = 6;
+  private static final int EXISTS = 7;
+
+  static final Node FALSE = new Node(0, TERMINAL_VAR, null, null);
+  static final Node TRUE = new Node(1, TERMINAL_VAR, null, null);
+
+  @Option(secure = true, description = "Number of worker threads, 0 for automatic.")
+  @IntegerOption(min = 0)
+  private int threads = 0;
+
+  @Option(
+    secure = true,
+    description =
+        "Number of recursion levels of BDD operations whose branches are computed in parallel."
+  )
+  @IntegerOption(min = 0, max = 30)
+  private int parallelDepth = 4;
+
+  @Option(secure = true, description = "Log2 size of the BDD operations cache.")
+  @IntegerOption(min = 1, max = 30)
+  private int cacheSize = 18;
+
+  @Option(
+    secure = true,
+    description =
+        "Reorder the BDD variables automatically by sifting whenever the number of created BDD"
+            + " nodes exceeds a threshold."
+  )
+  private boolean autoReorder = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Number of created BDD nodes before the first automatic reordering. After each"
+            + " reordering, the threshold is at least doubled."
+  )
+  @IntegerOption(min = 1)
+  private int autoReorderThreshold = 100000;
+
+  // Statistics
+  private final StatCounter cacheHits = new StatCounter("Number of BDD cache hits");
+  private final StatCounter cacheMisses = new StatCounter("Number of BDD cache misses");
+  private final StatTimer reorderTimer = new StatTimer("Time for BDD reordering");
+  private final LongAdder createdNodes = new LongAdder();
+
+  private final Region trueFormula = new ConcurrentBDDRegion(TRUE);
+  private final Region falseFormula = new ConcurrentBDDRegion(FALSE);
+
+  private final @Nullable ForkJoinPool pool;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicInteger nextNodeId = new AtomicInteger(2);
+
+  // The following fields are modified only while holding the write lock.
+  private int varCount = 0;
+  private int[] varToLevel = new int[16];
+  private int[] levelToVar = new int[16];
+  private final List<ConcurrentMap<NodeKey, NodeRef>> uniqueTables = new ArrayList<>();
+
+  // The reference objects will appear in this queue as soon as their node was GCed.
+  private final ReferenceQueue<Node> referenceQueue = new ReferenceQueue<>();
+
+  // Nodes of all regions that are currently in use, these are the roots for counting nodes.
+  private final Set<Node> roots = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+  // Number of nodes with a positive reference count, valid only during reordering.
+  private long liveNodes = 0;
+
+  private final CacheEntry[] cache;
+  private final int cacheMask;
+
+  private volatile long nextAutoReorder;
+
+  ConcurrentBDDRegionManager(Configuration config) throws InvalidConfigurationException {
+    config.inject(this);
+    if (threads == 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    cache = new CacheEntry[1 << cacheSize];
+    cacheMask = cache.length - 1;
+    nextAutoReorder = autoReorderThreshold;
+  }
+
+  /**
+   * A BDD node. Two nodes represent the same Boolean function if and only if they are the same
+   * object. Reordering changes the fields, but not the represented function.
+   */
+  static final class Node {
+
+    private final int id;
+
+    // modified only during reordering while holding the write lock
+    private int var;
+    private Node low;
+    private Node high;
+
+    // number of references from live nodes and regions, valid only during reordering
+    private int refs;
+
+    private Node(int pId, int pVar, Node pLow, Node pHigh) {
+      id = pId;
+      var = pVar;
+      low = pLow;
+      high = pHigh;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return "node" + id;
+    }
+  }
+
+  /** Key of the unique table, compares the children by identity. */
+  private static final class NodeKey {
+
+    private final Node low;
+    private final Node high;
+
+    private NodeKey(Node pLow, Node pHigh) {
+      low = pLow;
+      high = pHigh;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof NodeKey) {
+        NodeKey other = (NodeKey) o;
+        return low == other.low && high == other.high;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * low.id + high.id;
+    }
+  }
+
+  private static final class NodeRef extends WeakReference<Node> {
+
+    private final NodeKey key;
+    private final ConcurrentMap<NodeKey, NodeRef> table;
+
+    private NodeRef(
+        Node pNode,
+        NodeKey pKey,
+        ConcurrentMap<NodeKey, NodeRef> pTable,
+        ReferenceQueue<Node> pQueue) {
+      super(pNode, pQueue);
+      key = pKey;
+      table = pTable;
+    }
+  }
+
+  /**
+   * Entry of the computed cache. The fields are final, thus entries can be shared between threads
+   * without synchronization.
+   */
+  private static final class CacheEntry {
+
+    private final int op;
+    private final Node f;
+    private final Node g;
+    private final Node h;
+    private final Node result;
+
+    private CacheEntry(int pOp, Node pF, Node pG, Node pH, Node pResult) {
+      op = pOp;
+      f = pF;
+      g = pG;
+      h = pH;
+      result = pResult;
+    }
+  }
+
+  // unique table
+
+  private int level(Node node) {
+    return node.var == TERMINAL_VAR ? Integer.MAX_VALUE : varToLevel[node.var];
+  }
+
+  /** Return the unique node with the given variable and children. */
+  private Node makeNode(int var, Node low, Node high) {
+    if (low == high) {
+      return low;
+    }
+    ConcurrentMap<NodeKey, NodeRef> table = uniqueTables.get(var);
+    NodeKey key = new NodeKey(low, high);
+    while (true) {
+      NodeRef ref = table.get(key);
+      if (ref != null) {
+        Node node = ref.get();
+        if (node != null) {
+          return node;
+        }
+        table.remove(key, ref);
+      }
+
+      Node node = new Node(nextNodeId.getAndIncrement(), var, low, high);
+      NodeRef newRef = new NodeRef(node, key, table, referenceQueue);
+      if (table.putIfAbsent(key, newRef) == null) {
+        createdNodes.increment();
+        expungeStaleNodes();
+        return node;
+      }
+      newRef.clear(); // another thread was faster, try again
+    }
+  }
+
+  private void expungeStaleNodes() {
+    Reference<? extends Node> ref;
+    while ((ref = referenceQueue.poll()) != null) {
+      NodeRef nodeRef = (NodeRef) ref;
+      nodeRef.table.remove(nodeRef.key, nodeRef);
+    }
+  }
+
+  // computed cache
+
+  private int cacheIndex(int op, Node f, Node g, Node h) {
+    int hash = ((op * 31 + f.id) * 31 + g.id) * 31 + h.id;
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    return hash & cacheMask;
+  }
+
+  private @Nullable Node lookup(int op, Node f, Node g, Node h) {
+    CacheEntry entry = cache[cacheIndex(op, f, g, h)];
+    if (entry != null && entry.op == op && entry.f == f && entry.g == g && entry.h == h) {
+      cacheHits.inc();
+      return entry.result;
+    }
+    cacheMisses.inc();
+    return null;
+  }
+
+  private void store(int op, Node f, Node g, Node h, Node result) {
+    cache[cacheIndex(op, f, g, h)] = new CacheEntry(op, f, g, h, result);
+  }
+
+  // BDD operations (callers need to hold the read or write lock)
+
+  private Node cofactor(Node node, int level, boolean value) {
+    if (level(node) != level) {
+      return node;
+    }
+    return value ? node.high : node.low;
+  }
+
+  private @Nullable Node applyTerminal(int op, Node f, Node g) {
+    switch (op) {
+      case AND:
+        if (f == FALSE || g == FALSE) {
+          return FALSE;
+        } else if (f == TRUE || f == g) {
+          return g;
+        } else if (g == TRUE) {
+          return f;
+        }
+        return null;
+      case OR:
+        if (f == TRUE || g == TRUE) {
+          return TRUE;
+        } else if (f == FALSE || f == g) {
+          return g;
+        } else if (g == FALSE) {
+          return f;
+        }
+        return null;
+      case XOR:
+        if (f == g) {
+          return FALSE;
+        } else if (f == FALSE) {
+          return g;
+        } else if (g == FALSE) {
+          return f;
+        } else if (f == TRUE) {
+          return not(g);
+        } else if (g == TRUE) {
+          return not(f);
+        }
+        return null;
+      case BIIMP:
+        if (f == g) {
+          return TRUE;
+        } else if (f == TRUE) {
+          return g;
+        } else if (g == TRUE) {
+          return f;
+        } else if (f == FALSE) {
+          return not(g);
+        } else if (g == FALSE) {
+          return not(f);
+        }
+        return null;
+      case IMP:
+        if (f == FALSE || g == TRUE || f == g) {
+          return TRUE;
+        } else if (f == TRUE) {
+          return g;
+        } else if (g == FALSE) {
+          return not(f);
+        }
+        return null;
+      default:
+        throw new AssertionError("unexpected operation " + op);
+    }
+  }
+
+  private final class ApplyTask extends RecursiveTask<Node> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int op;
+    private final Node f;
+    private final Node g;
+    private final int depth;
+
+    private ApplyTask(int pOp, Node pF, Node pG, int pDepth) {
+      op = pOp;
+      f = pF;
+      g = pG;
+      depth = pDepth;
+    }
+
+    @Override
+    protected Node compute() {
+      return apply(op, f, g, depth);
+    }
+  }
+
+  /**
+   * Apply a binary operation. If depth is below {@link #parallelDepth}, this method needs to be
+   * called from within {@link #pool}, and the branches are computed in parallel.
+   */
+  private Node apply(int op, Node pF, Node pG, int depth) {
+    Node f = pF;
+    Node g = pG;
+    Node result = applyTerminal(op, f, g);
+    if (result != null) {
+      return result;
+    }
+    if (op != IMP && f.id > g.id) {
+      // all other binary operations are commutative, normalize for better cache usage
+      Node tmp = f;
+      f = g;
+      g = tmp;
+    }
+    result = lookup(op, f, g, FALSE);
+    if (result != null) {
+      return result;
+    }
+
+    int level = Math.min(level(f), level(g));
+    int var = levelToVar[level];
+    Node low;
+    Node high;
+    if (depth < parallelDepth) {
+      ApplyTask highTask =
+          new ApplyTask(op, cofactor(f, level, true), cofactor(g, level, true), depth + 1);
+      highTask.fork();
+      low = apply(op, cofactor(f, level, false), cofactor(g, level, false), depth + 1);
+      high = highTask.join();
+    } else {
+      low = apply(op, cofactor(f, level, false), cofactor(g, level, false), depth);
+      high = apply(op, cofactor(f, level, true), cofactor(g, level, true), depth);
+    }
+
+    result = makeNode(var, low, high);
+    store(op, f, g, FALSE, result);
+    return result;
+  }
+
+  private Node not(Node f) {
+    if (f == TRUE) {
+      return FALSE;
+    } else if (f == FALSE) {
+      return TRUE;
+    }
+    Node result = lookup(NOT, f, FALSE, FALSE);
+    if (result == null) {
+      result = makeNode(f.var, not(f.low), not(f.high));
+      store(NOT, f, FALSE, FALSE, result);
+    }
+    return result;
+  }
+
+  private Node ite(Node f, Node g, Node h) {
+    if (f == TRUE || g == h) {
+      return g;
+    } else if (f == FALSE) {
+      return h;
+    } else if (g == TRUE && h == FALSE) {
+      return f;
+    } else if (g == FALSE && h == TRUE) {
+      return not(f);
+    }
+    Node result = lookup(ITE, f, g, h);
+    if (result == null) {
+      int level = Math.min(level(f), Math.min(level(g), level(h)));
+      Node low =
+          ite(cofactor(f, level, false), cofactor(g, level, false), cofactor(h, level, false));
+      Node high = ite(cofactor(f, level, true), cofactor(g, level, true), cofactor(h, level, true));
+      result = makeNode(levelToVar[level], low, high);
+      store(ITE, f, g, h, result);
+    }
+    return result;
+  }
+
+  private final class ExistsTask extends RecursiveTask<Node> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Node f;
+    private final Node cube;
+    private final int depth;
+
+    private ExistsTask(Node pF, Node pCube, int pDepth) {
+      f = pF;
+      cube = pCube;
+      depth = pDepth;
+    }
+
+    @Override
+    protected Node compute() {
+      return exists(f, cube, depth);
+    }
+  }
+
+  /**
+   * Existentially quantify all variables of a cube (a conjunction of positive variables). Same
+   * requirements for parallelism as for {@link #apply(int, Node, Node, int)}.
+   */
+  private Node exists(Node f, Node pCube, int depth) {
+    if (f.var == TERMINAL_VAR) {
+      return f;
+    }
+    int levelF = level(f);
+    Node cube = pCube;
+    while (cube.var != TERMINAL_VAR && level(cube) < levelF) {
+      cube = cube.high;
+    }
+    if (cube.var == TERMINAL_VAR) {
+      return f;
+    }
+    Node result = lookup(EXISTS, f, cube, FALSE);
+    if (result != null) {
+      return result;
+    }
+
+    boolean quantify = level(cube) == levelF;
+    Node remainingCube = quantify ? cube.high : cube;
+    Node low;
+    Node high;
+    if (depth < parallelDepth) {
+      ExistsTask highTask = new ExistsTask(f.high, remainingCube, depth + 1);
+      highTask.fork();
+      low = exists(f.low, remainingCube, depth + 1);
+      high = highTask.join();
+    } else {
+      low = exists(f.low, remainingCube, depth);
+      high = exists(f.high, remainingCube, depth);
+    }
+
+    result = quantify ? apply(OR, low, high, depth) : makeNode(f.var, low, high);
+    store(EXISTS, f, cube, FALSE, result);
+    return result;
+  }
+
+  // Entry points for BDD operations, these acquire the lock and use the thread pool.
+
+  private Node applyOperation(int op, Node f, Node g) {
+    reorderIfNecessary();
+    lock.readLock().lock();
+    try {
+      if (pool == null) {
+        return apply(op, f, g, parallelDepth);
+      }
+      return pool.invoke(new ApplyTask(op, f, g, 0));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Node notOperation(Node f) {
+    lock.readLock().lock();
+    try {
+      return not(f);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Node iteOperation(Node f, Node g, Node h) {
+    reorderIfNecessary();
+    lock.readLock().lock();
+    try {
+      return ite(f, g, h);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Node existsOperation(Node f, Node cube) {
+    reorderIfNecessary();
+    lock.readLock().lock();
+    try {
+      if (pool == null) {
+        return exists(f, cube, parallelDepth);
+      }
+      return pool.invoke(new ExistsTask(f, cube, 0));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Region wrap(Node node) {
+    if (node == TRUE) {
+      return trueFormula;
+    } else if (node == FALSE) {
+      return falseFormula;
+    }
+    roots.add(node);
+    return new ConcurrentBDDRegion(node);
+  }
+
+  private static Node unwrap(Region region) {
+    return ((ConcurrentBDDRegion) region).getNode();
+  }
+
+  @Override
+  public Region createPredicate() {
+    lock.writeLock().lock();
+    try {
+      int var = varCount++;
+      if (var == varToLevel.length) {
+        varToLevel = Arrays.copyOf(varToLevel, 2 * var);
+        levelToVar = Arrays.copyOf(levelToVar, 2 * var);
+      }
+      // new variables are added at the bottom
+      varToLevel[var] = var;
+      levelToVar[var] = var;
+      uniqueTables.add(new ConcurrentHashMap<>());
+      return wrap(makeNode(var, FALSE, TRUE));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean entails(Region pF1, Region pF2) {
+    return applyOperation(IMP, unwrap(pF1), unwrap(pF2)) == TRUE;
+  }
+
+  @Override
+  public Region makeTrue() {
+    return trueFormula;
+  }
+
+  @Override
+  public Region makeFalse() {
+    return falseFormula;
+  }
+
+  @Override
+  public Region makeNot(Region pF) {
+    return wrap(notOperation(unwrap(pF)));
+  }
+
+  @Override
+  public Region makeAnd(Region pF1, Region pF2) {
+    return wrap(applyOperation(AND, unwrap(pF1), unwrap(pF2)));
+  }
+
+  @Override
+  public Region makeOr(Region pF1, Region pF2) {
+    return wrap(applyOperation(OR, unwrap(pF1), unwrap(pF2)));
+  }
+
+  @Override
+  public Region makeEqual(Region pF1, Region pF2) {
+    return wrap(applyOperation(BIIMP, unwrap(pF1), unwrap(pF2)));
+  }
+
+  @Override
+  public Region makeUnequal(Region pF1, Region pF2) {
+    return wrap(applyOperation(XOR, unwrap(pF1), unwrap(pF2)));
+  }
+
+  @Override
+  public Region makeIte(Region pF1, Region pF2, Region pF3) {
+    return wrap(iteOperation(unwrap(pF1), unwrap(pF2), unwrap(pF3)));
+  }
+
+  @Override
+  public Region makeExists(Region pF1, Region... pF2) {
+    if (pF2.length == 0) {
+      return pF1;
+    }
+
+    Node cube = unwrap(pF2[0]);
+    for (int i = 1; i < pF2.length; i++) {
+      cube = applyOperation(AND, cube, unwrap(pF2[i]));
+    }
+    return wrap(existsOperation(unwrap(pF1), cube));
+  }
+
+  @Override
+  public Triple<Region, Region, Region> getIfThenElse(Region pF) {
+    lock.readLock().lock();
+    try {
+      Node f = unwrap(pF);
+      Region predicate = wrap(makeNode(f.var, FALSE, TRUE));
+      return Triple.of(predicate, wrap(f.high), wrap(f.low));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Region fromFormula(
+      BooleanFormula pF, FormulaManagerView fmgr, Function<BooleanFormula, Region> atomToRegion) {
+    BooleanFormulaManagerView bfmgr = fmgr.getBooleanFormulaManager();
+    if (bfmgr.isFalse(pF)) {
+      return makeFalse();
+    }
+
+    if (bfmgr.isTrue(pF)) {
+      return makeTrue();
+    }
+
+    return wrap(bfmgr.visit(pF, new FormulaToRegionConverter(fmgr, atomToRegion)));
+  }
+
+  @Override
+  public RegionBuilder builder(ShutdownNotifier pShutdownNotifier) {
+    return new ConcurrentBDDRegionBuilder(pShutdownNotifier);
+  }
+
+  @Override
+  public void printStatistics(PrintStream out) {
+    int vars;
+    long nodes = 0;
+    lock.readLock().lock();
+    try {
+      vars = varCount;
+      for (Map<NodeKey, NodeRef> table : uniqueTables) {
+        nodes += table.size();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    writingStatisticsTo(out)
+        .put("Number of BDD variables", vars)
+        .put("Number of BDD nodes in unique table", nodes)
+        .put("Number of created BDD nodes", createdNodes.sum())
+        .put(cacheHits)
+        .put(cacheMisses)
+        .putIfUpdatedAtLeastOnce(reorderTimer);
+  }
+
+  @Override
+  public String getVersion() {
+    return String.format("Concurrent Java BDD package (%d threads)", threads);
+  }
+
+  // reordering
+
+  @Override
+  public void setVarOrder(ArrayList<Integer> pOrder) {
+    lock.writeLock().lock();
+    reorderTimer.start();
+    try {
+      initReferenceCounts();
+      int level = 0;
+      for (int var : pOrder) {
+        if (var < 0 || var >= varCount || varToLevel[var] < level) {
+          continue; // unknown or duplicate variable
+        }
+        // move var up to the target level, this keeps the relative order of the others
+        for (int l = varToLevel[var]; l > level; l--) {
+          swapLevels(l - 1);
+        }
+        level++;
+      }
+    } finally {
+      reorderTimer.stop();
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void reorder(PredicateOrderingStrategy strategy) {
+    lock.writeLock().lock();
+    reorderTimer.start();
+    try {
+      switch (strategy) {
+        case FRAMEWORK_RANDOM:
+          randomOrder();
+          break;
+        case FRAMEWORK_SIFT:
+          sift();
+          break;
+        case FRAMEWORK_SIFTITE:
+          while (sift()) {
+            // repeat until there is no further improvement
+          }
+          break;
+        case FRAMEWORK_WIN2:
+        case FRAMEWORK_WIN3: // window permutation of size 3 is approximated by size 2
+          window2();
+          break;
+        case FRAMEWORK_WIN2ITE:
+        case FRAMEWORK_WIN3ITE:
+          while (window2()) {
+            // repeat until there is no further improvement
+          }
+          break;
+        default:
+          break;
+      }
+    } finally {
+      reorderTimer.stop();
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void reorderIfNecessary() {
+    if (autoReorder && createdNodes.sum() >= nextAutoReorder) {
+      lock.writeLock().lock();
+      reorderTimer.start();
+      try {
+        if (createdNodes.sum() >= nextAutoReorder) {
+          sift();
+          nextAutoReorder = createdNodes.sum() + Math.max(nextAutoReorder, 2 * liveNodes);
+        }
+      } finally {
+        reorderTimer.stop();
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Swap the variables of the given level and the level below. Needs the write lock and valid
+   * reference counts (cf. {@link #initReferenceCounts()}), which are updated together with {@link
+   * #liveNodes}. All nodes keep their identity and represent the same function afterwards.
+   */
+  private void swapLevels(int level) {
+    checkState(level + 1 < varCount);
+    expungeStaleNodes();
+    int x = levelToVar[level];
+    int y = levelToVar[level + 1];
+    ConcurrentMap<NodeKey, NodeRef> xTable = uniqueTables.get(x);
+    ConcurrentMap<NodeKey, NodeRef> yTable = uniqueTables.get(y);
+    List<NodeRef> xNodes = new ArrayList<>(xTable.values());
+
+    levelToVar[level] = y;
+    levelToVar[level + 1] = x;
+    varToLevel[y] = level;
+    varToLevel[x] = level + 1;
+
+    for (NodeRef ref : xNodes) {
+      Node node = ref.get();
+      if (node == null) {
+        xTable.remove(ref.key, ref);
+        continue;
+      }
+      Node f0 = node.low;
+      Node f1 = node.high;
+      if (f0.var != y && f1.var != y) {
+        continue; // node does not depend on y and simply moves one level down
+      }
+
+      Node f00 = f0.var == y ? f0.low : f0;
+      Node f01 = f0.var == y ? f0.high : f0;
+      Node f10 = f1.var == y ? f1.low : f1;
+      Node f11 = f1.var == y ? f1.high : f1;
+
+      xTable.remove(ref.key, ref);
+      ref.clear();
+
+      // node becomes (y ? (x ? f11 : f01) : (x ? f10 : f00))
+      Node newLow = makeNode(x, f00, f10);
+      Node newHigh = makeNode(x, f01, f11);
+      if (node.refs > 0) {
+        // add the new references first, such that shared grandchildren do not die in between
+        addReference(newLow);
+        addReference(newHigh);
+        removeReference(f0);
+        removeReference(f1);
+      }
+      node.var = y;
+      node.low = newLow;
+      node.high = newHigh;
+
+      NodeKey key = new NodeKey(newLow, newHigh);
+      NodeRef previous = yTable.put(key, new NodeRef(node, key, yTable, referenceQueue));
+      assert previous == null || previous.get() == null : "BDD node not unique after swap";
+    }
+  }
+
+  /**
+   * Compute the reference counts of all nodes from the regions that are currently in use, and
+   * count the nodes that are reachable from them. Needs the write lock. Afterwards, {@link
+   * #swapLevels(int)} keeps both up-to-date, such that the size of the BDDs is known after each
+   * swap without traversing them again.
+   */
+  private long initReferenceCounts() {
+    expungeStaleNodes();
+    for (ConcurrentMap<NodeKey, NodeRef> table : uniqueTables) {
+      for (NodeRef ref : table.values()) {
+        Node node = ref.get();
+        if (node != null) {
+          node.refs = 0;
+        }
+      }
+    }
+    liveNodes = 0;
+    for (Node root : roots) {
+      addReference(root);
+    }
+    return liveNodes;
+  }
+
+  /** Add a reference to a node, which makes its children live if it was not live before. */
+  private void addReference(Node pNode) {
+    Deque<Node> waitlist = new ArrayDeque<>();
+    waitlist.push(pNode);
+    while (!waitlist.isEmpty()) {
+      Node node = waitlist.pop();
+      if (node.var != TERMINAL_VAR && node.refs++ == 0) {
+        liveNodes++;
+        waitlist.push(node.low);
+        waitlist.push(node.high);
+      }
+    }
+  }
+
+  /** Remove a reference from a node, which releases its children if it is no longer live. */
+  private void removeReference(Node pNode) {
+    Deque<Node> waitlist = new ArrayDeque<>();
+    waitlist.push(pNode);
+    while (!waitlist.isEmpty()) {
+      Node node = waitlist.pop();
+      if (node.var != TERMINAL_VAR && --node.refs == 0) {
+        liveNodes--;
+        waitlist.push(node.low);
+        waitlist.push(node.high);
+      }
+    }
+  }
+
+  /**
+   * Move each variable (starting with the ones with most nodes) to the level where the number of
+   * nodes is minimal. Returns whether the number of nodes was reduced.
+   */
+  private boolean sift() {
+    final long initialSize = initReferenceCounts();
+    if (varCount < 2) {
+      return false;
+    }
+    List<Integer> vars = new ArrayList<>(varCount);
+    for (int var = 0; var < varCount; var++) {
+      vars.add(var);
+    }
+    vars.sort(Comparator.comparingInt((Integer var) -> uniqueTables.get(var).size()).reversed());
+
+    long size = initialSize;
+    for (int var : vars) {
+      int level = varToLevel[var];
+      long best = size;
+      int bestLevel = level;
+
+      while (level < varCount - 1 && size <= MAX_GROWTH * best) {
+        swapLevels(level);
+        level++;
+        size = liveNodes;
+        if (size < best) {
+          best = size;
+          bestLevel = level;
+        }
+      }
+      while (level > 0 && (level > bestLevel || size <= MAX_GROWTH * best)) {
+        swapLevels(level - 1);
+        level--;
+        size = liveNodes;
+        if (size < best) {
+          best = size;
+          bestLevel = level;
+        }
+      }
+      while (level < bestLevel) {
+        swapLevels(level);
+        level++;
+      }
+      size = best;
+    }
+    return size < initialSize;
+  }
+
+  /**
+   * Swap each pair of adjacent levels if this reduces the number of nodes. Returns whether the
+   * number of nodes was reduced.
+   */
+  private boolean window2() {
+    boolean improved = false;
+    long size = initReferenceCounts();
+    for (int level = 0; level < varCount - 1; level++) {
+      swapLevels(level);
+      long newSize = liveNodes;
+      if (newSize < size) {
+        size = newSize;
+        improved = true;
+      } else {
+        swapLevels(level);
+      }
+    }
+    return improved;
+  }
+
+  private void randomOrder() {
+    Random random = new Random(0);
+    initReferenceCounts();
+    for (int level = 0; level < varCount - 1; level++) {
+      // move a random variable from the levels below to this level
+      int from = level + random.nextInt(varCount - level);
+      for (int l = from; l > level; l--) {
+        swapLevels(l - 1);
+      }
+    }
+  }
+
+  private class ConcurrentBDDRegionBuilder implements RegionBuilder {
+
+    private final ShutdownNotifier shutdownNotifier;
+
+    // Invariants:
+    // cubes contains a number of BDDs, whose disjunction makes up the result.
+    // cubes may also contain null values, which are to be ignored,
+    // but there is always at least one non-null value (if the list is not empty).
+    // The cube at index i is one built from i+1 models.
+    // When inserting, we find the left-most place in the list where we can insert.
+    // If the list is empty, we just add the cube at position 0.
+    // If this position is filled, we take the new cube and the cube from position 0,
+    // disjunct them and try storing the result at position 1,
+    // iteratively increasing the position.
+    // This is used to create balanced disjunctions
+    // instead of using a single growing BDD,
+    // while at the same time limiting the number of stored BDDs
+    // (log(numOfCubes) many).
+    private final List<Node> cubes = new ArrayList<>();
+    private @Nullable Node currentCube = null;
+
+    private ConcurrentBDDRegionBuilder(ShutdownNotifier pShutdownNotifier) {
+      shutdownNotifier = pShutdownNotifier;
+    }
+
+    @Override
+    public void startNewConjunction() {
+      checkState(currentCube == null);
+      currentCube = TRUE;
+    }
+
+    @Override
+    public void addPositiveRegion(Region r) {
+      checkState(currentCube != null);
+      currentCube = applyOperation(AND, currentCube, unwrap(r));
+    }
+
+    @Override
+    public void addNegativeRegion(Region r) {
+      checkState(currentCube != null);
+      currentCube = applyOperation(AND, currentCube, notOperation(unwrap(r)));
+    }
+
+    @Override
+    public void finishConjunction() {
+      checkState(currentCube != null);
+
+      for (int i = 0; i < cubes.size(); i++) {
+        Node cubeAtI = cubes.get(i);
+
+        if (cubeAtI == null) {
+          cubes.set(i, currentCube);
+          currentCube = null;
+          return;
+        } else {
+          currentCube = applyOperation(OR, currentCube, cubeAtI);
+          cubes.set(i, null);
+        }
+      }
+
+      if (currentCube != null) {
+        cubes.add(currentCube);
+        currentCube = null;
+      }
+    }
+
+    @Override
+    public Region getResult() throws InterruptedException {
+      checkState(currentCube == null);
+      Node result = FALSE;
+      for (Node cube : cubes) {
+        if (cube != null) {
+          shutdownNotifier.shutdownIfNecessary();
+          result = applyOperation(OR, result, cube);
+        }
+      }
+      cubes.clear();
+      cubes.add(result);
+      return wrap(result);
+    }
+
+    @Override
+    public void close() {
+      checkState(currentCube == null);
+      cubes.clear();
+    }
+  }
+
+  /**
+   * Class for creating BDDs out of a formula. This class directly uses nodes instead of regions
+   * in order to avoid registering intermediate results as roots.
+   */
+  private class FormulaToRegionConverter implements BooleanFormulaVisitor<Node> {
+
+    private final Function<BooleanFormula, Region> atomToRegion;
+    private final BooleanFormulaManager bfmgr;
+    private final Map<BooleanFormula, Node> cache = new HashMap<>();
+
+    FormulaToRegionConverter(
+        FormulaManagerView pFmgr, Function<BooleanFormula, Region> pAtomToRegion) {
+      atomToRegion = pAtomToRegion;
+      bfmgr = pFmgr.getBooleanFormulaManager();
+    }
+
+    private Node convert(BooleanFormula pOperand) {
+      Node operand = cache.get(pOperand);
+      if (operand == null) {
+        operand = bfmgr.visit(pOperand, this);
+        cache.put(pOperand, operand);
+      }
+      return operand;
+    }
+
+    @Override
+    public Node visitConstant(boolean value) {
+      return value ? TRUE : FALSE;
+    }
+
+    @Override
+    public Node visitBoundVar(BooleanFormula var, int deBruijnIdx) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Node visitAtom(BooleanFormula pAtom, FunctionDeclaration<BooleanFormula> decl) {
+      return unwrap(atomToRegion.apply(pAtom));
+    }
+
+    @Override
+    public Node visitNot(BooleanFormula pOperand) {
+      return notOperation(convert(pOperand));
+    }
+
+    @Override
+    public Node visitAnd(List<BooleanFormula> pOperands) {
+      Node result = TRUE;
+      for (BooleanFormula f : pOperands) {
+        result = applyOperation(AND, result, convert(f));
+      }
+      return result;
+    }
+
+    @Override
+    public Node visitOr(List<BooleanFormula> pOperands) {
+      Node result = FALSE;
+      for (BooleanFormula f : pOperands) {
+        result = applyOperation(OR, result, convert(f));
+      }
+      return result;
+    }
+
+    @Override
+    public Node visitXor(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      return applyOperation(XOR, convert(pOperand1), convert(pOperand2));
+    }
+
+    @Override
+    public Node visitEquivalence(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      return applyOperation(BIIMP, convert(pOperand1), convert(pOperand2));
+    }
+
+    @Override
+    public Node visitImplication(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      return applyOperation(IMP, convert(pOperand1), convert(pOperand2));
+    }
+
+    @Override
+    public Node visitIfThenElse(
+        BooleanFormula pCondition, BooleanFormula pThenFormula, BooleanFormula pElseFormula) {
+      return iteOperation(convert(pCondition), convert(pThenFormula), convert(pElseFormula));
+    }
+
+    @Override
+    public Node visitQuantifier(
+        Quantifier q, BooleanFormula quantifiedAST, List<Formula> boundVars, BooleanFormula pBody) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.bdd;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.util.Triple;
+import org.sosy_lab.cpachecker.util.predicates.PredicateOrderingStrategy;
+import org.sosy_lab.cpachecker.util.predicates.regions.Region;
+
+public class ConcurrentBDDRegionManagerTest {
+
+  private ConcurrentBDDRegionManager rmgr;
+  private Region[] vars;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    createManager(Configuration.builder());
+  }
+
+  private void createManager(ConfigurationBuilder pConfig) throws InvalidConfigurationException {
+    Configuration config =
+        pConfig
+            .setOption("bdd.concurrent.threads", "4")
+            .setOption("bdd.concurrent.parallelDepth", "2")
+            .build();
+    rmgr = new ConcurrentBDDRegionManager(config);
+    vars = new Region[6];
+    for (int i = 0; i < vars.length; i++) {
+      vars[i] = rmgr.createPredicate();
+    }
+  }
+
+  /**
+   * Build some regions from the variables with random operations. For the same seed, the same
+   * operations are applied, thus the results need to be the same regions.
+   */
+  private List<Region> buildRandomRegions(long seed, int count) {
+    Random random = new Random(seed);
+    List<Region> regions = new ArrayList<>(Arrays.asList(vars));
+    for (int i = 0; i < count; i++) {
+      Region f1 = regions.get(random.nextInt(regions.size()));
+      Region f2 = regions.get(random.nextInt(regions.size()));
+      Region f3 = regions.get(random.nextInt(regions.size()));
+      switch (random.nextInt(5)) {
+        case 0:
+          regions.add(rmgr.makeAnd(f1, f2));
+          break;
+        case 1:
+          regions.add(rmgr.makeOr(f1, f2));
+          break;
+        case 2:
+          regions.add(rmgr.makeUnequal(f1, f2));
+          break;
+        case 3:
+          regions.add(rmgr.makeIte(f1, f2, f3));
+          break;
+        default:
+          regions.add(rmgr.makeNot(rmgr.makeAnd(f1, rmgr.makeEqual(f2, f3))));
+          break;
+      }
+    }
+    return regions.subList(vars.length, regions.size());
+  }
+
+  /**
+   * Compute the truth table of a region by following its BDD: bit i of the result is the value of
+   * the region for the assignment that sets each variable j to bit j of i.
+   */
+  private long truthTable(Region pRegion) {
+    List<Region> varList = Arrays.asList(vars);
+    long result = 0;
+    for (int assignment = 0; assignment < 1 << vars.length; assignment++) {
+      Region region = pRegion;
+      while (!region.isTrue() && !region.isFalse()) {
+        Triple<Region, Region, Region> ite = rmgr.getIfThenElse(region);
+        int var = varList.indexOf(ite.getFirst());
+        assertThat(var).isAtLeast(0);
+        region = ((assignment >> var) & 1) != 0 ? ite.getSecond() : ite.getThird();
+      }
+      if (region.isTrue()) {
+        result |= 1L << assignment;
+      }
+    }
+    return result;
+  }
+
+  private List<Long> truthTables(List<Region> regions) {
+    List<Long> result = new ArrayList<>(regions.size());
+    for (Region region : regions) {
+      result.add(truthTable(region));
+    }
+    return result;
+  }
+
+  /** (x0 <-> x3) & (x1 <-> x4) & (x2 <-> x5), which is large for the initial ordering. */
+  private Region buildFormula() {
+    Region result = rmgr.makeTrue();
+    for (int i = 0; i < 3; i++) {
+      result = rmgr.makeAnd(result, rmgr.makeEqual(vars[i], vars[i + 3]));
+    }
+    return result;
+  }
+
+  @Test
+  public void testCanonicity() {
+    Region f = buildFormula();
+    Region g =
+        rmgr.makeNot(
+            rmgr.makeOr(
+                rmgr.makeOr(
+                    rmgr.makeUnequal(vars[0], vars[3]), rmgr.makeUnequal(vars[1], vars[4])),
+                rmgr.makeUnequal(vars[2], vars[5])));
+    assertThat(g).isEqualTo(f);
+    assertThat(rmgr.entails(f, rmgr.makeEqual(vars[0], vars[3]))).isTrue();
+    assertThat(rmgr.entails(rmgr.makeEqual(vars[0], vars[3]), f)).isFalse();
+  }
+
+  @Test
+  public void testReorderingKeepsRegions() {
+    Region f = buildFormula();
+    Region projected = rmgr.makeExists(f, vars[0], vars[1], vars[2]);
+    assertThat(projected.isTrue()).isTrue();
+
+    for (PredicateOrderingStrategy strategy :
+        Lists.newArrayList(
+            PredicateOrderingStrategy.FRAMEWORK_SIFT,
+            PredicateOrderingStrategy.FRAMEWORK_WIN2ITE,
+            PredicateOrderingStrategy.FRAMEWORK_RANDOM)) {
+      rmgr.reorder(strategy);
+      // existing regions stay valid and new results are still canonical
+      assertThat(buildFormula()).isEqualTo(f);
+      assertThat(rmgr.makeExists(f, vars[3], vars[4], vars[5]).isTrue()).isTrue();
+    }
+
+    rmgr.setVarOrder(Lists.newArrayList(5, 4, 3, 2, 1, 0));
+    assertThat(buildFormula()).isEqualTo(f);
+    assertThat(rmgr.makeAnd(f, rmgr.makeUnequal(vars[2], vars[5])).isFalse()).isTrue();
+  }
+
+  @Test
+  public void testConcurrentOperations() throws Exception {
+    Region expected = buildFormula();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Region>> results = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        results.add(executor.submit(this::buildFormula));
+      }
+      rmgr.reorder(PredicateOrderingStrategy.FRAMEWORK_SIFT);
+      for (Future<Region> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTruthTableOfVariables() {
+    for (int i = 0; i < vars.length; i++) {
+      long expected = 0;
+      for (int assignment = 0; assignment < 1 << vars.length; assignment++) {
+        if (((assignment >> i) & 1) != 0) {
+          expected |= 1L << assignment;
+        }
+      }
+      assertThat(truthTable(vars[i])).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testReorderingPreservesFunctions() {
+    List<Region> regions = buildRandomRegions(0, 200);
+    List<Long> expected = truthTables(regions);
+
+    for (PredicateOrderingStrategy strategy :
+        Lists.newArrayList(
+            PredicateOrderingStrategy.FRAMEWORK_SIFT,
+            PredicateOrderingStrategy.FRAMEWORK_SIFTITE,
+            PredicateOrderingStrategy.FRAMEWORK_WIN2,
+            PredicateOrderingStrategy.FRAMEWORK_WIN2ITE,
+            PredicateOrderingStrategy.FRAMEWORK_RANDOM)) {
+      rmgr.reorder(strategy);
+      assertThat(truthTables(regions)).containsExactlyElementsIn(expected).inOrder();
+      // building the same regions again after reordering results in the same nodes
+      assertThat(buildRandomRegions(0, 200)).containsExactlyElementsIn(regions).inOrder();
+    }
+  }
+
+  @Test
+  public void testSetVarOrderPreservesFunctions() {
+    List<Region> regions = buildRandomRegions(1, 200);
+    List<Long> expected = truthTables(regions);
+
+    Random random = new Random(1);
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < vars.length; i++) {
+      order.add(i);
+    }
+    for (int i = 0; i < 10; i++) {
+      Collections.shuffle(order, random);
+      rmgr.setVarOrder(new ArrayList<>(order));
+      assertThat(truthTables(regions)).containsExactlyElementsIn(expected).inOrder();
+      assertThat(buildRandomRegions(1, 200)).containsExactlyElementsIn(regions).inOrder();
+    }
+  }
+
+  /**
+   * Apply many operations concurrently (and with automatic reordering in between), and compare
+   * the results with the ones of the same operations applied sequentially afterwards and with
+   * the truth tables of the operands.
+   */
+  @Test
+  public void testConcurrentApplyMatchesSequential() throws Exception {
+    createManager(
+        Configuration.builder()
+            .setOption("bdd.concurrent.autoReorder", "true")
+            .setOption("bdd.concurrent.autoReorderThreshold", "50"));
+    List<Region> operands = buildRandomRegions(2, 50);
+    List<Long> operandTables = truthTables(operands);
+
+    List<Callable<Region>> tasks = new ArrayList<>();
+    List<Long> expectedTables = new ArrayList<>();
+    for (int i = 0; i < operands.size(); i++) {
+      for (int j = 0; j < operands.size(); j += 7) {
+        Region f1 = operands.get(i);
+        Region f2 = operands.get(j);
+        long t1 = operandTables.get(i);
+        long t2 = operandTables.get(j);
+        tasks.add(() -> rmgr.makeAnd(f1, f2));
+        expectedTables.add(t1 & t2);
+        tasks.add(() -> rmgr.makeOr(f1, f2));
+        expectedTables.add(t1 | t2);
+        tasks.add(() -> rmgr.makeUnequal(f1, f2));
+        expectedTables.add(t1 ^ t2);
+        tasks.add(() -> rmgr.makeEqual(f1, f2));
+        expectedTables.add(~(t1 ^ t2));
+      }
+    }
+
+    List<Region> concurrentResults = new ArrayList<>(tasks.size());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (Future<Region> result : executor.invokeAll(tasks)) {
+        concurrentResults.add(result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    List<Region> sequentialResults = new ArrayList<>(tasks.size());
+    for (Callable<Region> task : tasks) {
+      sequentialResults.add(task.call());
+    }
+    assertThat(concurrentResults).containsExactlyElementsIn(sequentialResults).inOrder();
+    assertThat(truthTables(concurrentResults))
+        .containsExactlyElementsIn(expectedTables)
+        .inOrder();
+  }
+}
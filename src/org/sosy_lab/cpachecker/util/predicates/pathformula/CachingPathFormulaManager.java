@@ -25,11 +25,18 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
 import java.io.PrintStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
@@ -48,37 +55,96 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 /**
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
+ *
+ * <p>By default the caches are unbounded and never trimmed.
+ * With the options in this class, they can be bounded in size (evicting least-recently used
+ * entries first) and/or hold their values only softly,
+ * such that long-running analyses keep a stable memory footprint.
  */
+@Options(prefix = "cpa.predicate.pathFormulaCache")
 public class CachingPathFormulaManager implements PathFormulaManager {
 
+  /** How the caches reference their values. */
+  public enum CacheValueStrength {
+    /** Values are kept until they are evicted or the caches are cleared. */
+    STRONG,
+    // There is no option for weak values: most values are referenced only by the cache
+    // and would be collected almost immediately.
+    /** Values may be garbage collected if memory is low. */
+    SOFT,
+  }
+
+  @Option(
+    secure = true,
+    description =
+        "Maximal number of entries in each of the path-formula caches"
+            + " (least-recently used entries are evicted first, -1 for unbounded caches)."
+  )
+  private long maximumSize = -1;
+
+  @Option(
+    secure = true,
+    description =
+        "How the path-formula caches reference their values:"
+            + " STRONG keeps them, SOFT allows the garbage collector to reclaim them"
+            + " if memory is low."
+  )
+  private CacheValueStrength values = CacheValueStrength.STRONG;
+
   public final Timer pathFormulaComputationTimer = new Timer();
   public int pathFormulaCacheHits = 0;
 
   public final PathFormulaManager delegate;
 
-  private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
-            = new HashMap<>();
-  private final Map<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache
-            = new HashMap<>();
+  private final Cache<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>>
+      andFormulaWithConditionsCache;
+  private final Cache<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache;
 
-  private final Map<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache
-            = new HashMap<>();
+  // key is the set of both operands, such that the order of the operands does not matter
+  private final Cache<Set<PathFormula>, PathFormula> orFormulaCache;
 
-  private final Map<PathFormula, PathFormula> emptyFormulaCache
-            = new HashMap<>();
+  private final Cache<PathFormula, PathFormula> emptyFormulaCache;
 
   private final PathFormula emptyFormula;
 
-  public CachingPathFormulaManager(PathFormulaManager pDelegate) {
+  /** Create an instance whose caches are configured according to the given configuration. */
+  public CachingPathFormulaManager(PathFormulaManager pDelegate, Configuration pConfig)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (maximumSize < -1) {
+      throw new InvalidConfigurationException(
+          "Invalid value " + maximumSize + " for option cpa.predicate.pathFormulaCache.maximumSize");
+    }
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+    andFormulaWithConditionsCache = newCache();
+    andFormulaCache = newCache();
+    orFormulaCache = newCache();
+    emptyFormulaCache = newCache();
+  }
+
+  private <K, V> Cache<K, V> newCache() {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+    if (maximumSize >= 0) {
+      builder.maximumSize(maximumSize);
+    }
+    switch (values) {
+      case STRONG:
+        break;
+      case SOFT:
+        builder.softValues();
+        break;
+      default:
+        throw new AssertionError("unhandled cache value strength " + values);
+    }
+    return builder.build();
   }
 
   @Override
   public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
 
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.get(formulaCacheKey);
+    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.getIfPresent(formulaCacheKey);
     if (result == null) {
       pathFormulaComputationTimer.start();
       // compute new pathFormula with the operation on the edge
@@ -95,7 +161,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    PathFormula result = andFormulaCache.get(formulaCacheKey);
+    PathFormula result = andFormulaCache.getIfPresent(formulaCacheKey);
     if (result == null) {
       try {
       pathFormulaComputationTimer.start();
@@ -114,14 +180,9 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
-    final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
-
-    PathFormula result = orFormulaCache.get(formulaCacheKey);
-    if (result == null) {
-      // try again with other order
-      result = orFormulaCache.get(Pair.of(pF2, pF1));
-    }
+    final Set<PathFormula> formulaCacheKey = ImmutableSet.of(pF1, pF2);
 
+    PathFormula result = orFormulaCache.getIfPresent(formulaCacheKey);
     if (result == null) {
       result = delegate.makeOr(pF1, pF2);
       orFormulaCache.put(formulaCacheKey, result);
@@ -138,7 +199,7 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeEmptyPathFormula(PathFormula pOldFormula) {
-    PathFormula result = emptyFormulaCache.get(pOldFormula);
+    PathFormula result = emptyFormulaCache.getIfPresent(pOldFormula);
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
       emptyFormulaCache.put(pOldFormula, result);
@@ -196,10 +257,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public void clearCaches() {
-    andFormulaWithConditionsCache.clear();
-    andFormulaCache.clear();
-    orFormulaCache.clear();
-    emptyFormulaCache.clear();
+    andFormulaWithConditionsCache.invalidateAll();
+    andFormulaCache.invalidateAll();
+    orFormulaCache.invalidateAll();
+    emptyFormulaCache.invalidateAll();
     delegate.clearCaches();
   }
 
@@ -225,6 +286,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
             + " ("
             + toPercent(cacheHits, totalPathFormulaComputations)
             + ")");
+    printCacheStatistics(out, "makeAnd", andFormulaCache);
+    printCacheStatistics(out, "makeAnd with error conditions", andFormulaWithConditionsCache);
+    printCacheStatistics(out, "makeOr", orFormulaCache);
+    printCacheStatistics(out, "makeEmptyPathFormula", emptyFormulaCache);
     out.println();
 
     out.println("Inside post operator:                  ");
@@ -235,6 +300,23 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     delegate.printStatistics(out);
   }
 
+  private static void printCacheStatistics(PrintStream out, String name, Cache<?, ?> cache) {
+    CacheStats stats = cache.stats();
+    if (stats.requestCount() == 0) {
+      return;
+    }
+    out.println("  Cache for " + name + ":");
+    out.println("    Size:                            " + cache.size());
+    out.println(
+        "    Hits:                            "
+            + stats.hitCount()
+            + " ("
+            + toPercent(stats.hitCount(), stats.requestCount())
+            + ")");
+    out.println("    Misses:                          " + stats.missCount());
+    out.println("    Evictions:                       " + stats.evictionCount());
+  }
+
   @Override
   public BooleanFormula addBitwiseAxiomsIfNeeded(final BooleanFormula pMainFormula, final BooleanFormula pExtractionFormula) {
     return delegate.addBitwiseAxiomsIfNeeded(pMainFormula, pExtractionFormula);
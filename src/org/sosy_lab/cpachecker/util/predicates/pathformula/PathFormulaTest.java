@@ -32,6 +32,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sosy_lab.common.collect.MapsDifference;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentLinkedList;
 import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
@@ -173,4 +174,56 @@ public class PathFormulaTest {
     thrown.expect(IllegalArgumentException.class);
     builder.setIndex("a", CNumericTypes.INT, 1);
   }
+
+  @Test
+  public void testSSAMergeReusesCoveringMap() {
+    SSAMap s1 =
+        builder
+            .setIndex("a", CNumericTypes.INT, 1)
+            .setIndex("b", CNumericTypes.INT, 2)
+            .build();
+    SSAMap s2 = s1.builder().setIndex("b", CNumericTypes.INT, 3).build();
+
+    assertThat(SSAMap.merge(s1, s2, MapsDifference.ignoreMapsDifference())).isSameAs(s2);
+    assertThat(SSAMap.merge(s2, s1, MapsDifference.ignoreMapsDifference())).isSameAs(s2);
+    assertThat(SSAMap.merge(s1, s1, MapsDifference.ignoreMapsDifference())).isSameAs(s1);
+  }
+
+  @Test
+  public void testSSAMerge() {
+    SSAMap base = builder.setIndex("a", CNumericTypes.INT, 1).build();
+    SSAMap s1 =
+        base.builder()
+            .setIndex("a", CNumericTypes.INT, 3)
+            .setIndex("b", CNumericTypes.INT, 1)
+            .build();
+    SSAMap s2 =
+        base.builder()
+            .setIndex("a", CNumericTypes.INT, 2)
+            .setIndex("c", CNumericTypes.INT, 4)
+            .build();
+
+    SSAMap merged = SSAMap.merge(s1, s2, MapsDifference.ignoreMapsDifference());
+    SSAMap expected =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("a", CNumericTypes.INT, 3)
+            .setIndex("b", CNumericTypes.INT, 1)
+            .setIndex("c", CNumericTypes.INT, 4)
+            .build();
+
+    assertThat(merged).isEqualTo(expected);
+    assertThat(merged.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(merged.getType("c")).isEqualTo(CNumericTypes.INT);
+    assertThat(SSAMap.merge(s2, s1, MapsDifference.ignoreMapsDifference())).isEqualTo(expected);
+  }
+
+  @Test
+  public void testSSAMergeTypeConflictWithCoveringMap() {
+    SSAMap s1 = SSAMap.emptySSAMap().builder().setIndex("a", CNumericTypes.INT, 2).build();
+    SSAMap s2 = SSAMap.emptySSAMap().builder().setIndex("a", CNumericTypes.CHAR, 1).build();
+
+    thrown.expect(IllegalArgumentException.class);
+    SSAMap.merge(s1, s2, MapsDifference.ignoreMapsDifference());
+  }
 }
@@ -227,34 +227,113 @@ public class SSAMap implements Serializable {
     // probably never be the case on a merge.
 
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
     if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
       // both are absolutely identical
       return s1;
+    }
 
+    final PersistentSortedMap<String, Integer> vars;
+    final int varsHashCode;
+    final boolean s1Covers; // s1 contains all variables of s2 with at least the same index
+    final boolean s2Covers; // s2 contains all variables of s1 with at least the same index
+    if (s1.vars == s2.vars) {
+      vars = s1.vars;
+      varsHashCode = s1.varsHashCode;
+      s1Covers = true;
+      s2Covers = true;
     } else {
+      // Compute the hash code of the merged map from the differences,
+      // such that we do not need to iterate over the (shared) rest of the map.
+      HashCodeTrackingVisitor visitor =
+          new HashCodeTrackingVisitor(collectDifferences, s1.varsHashCode);
       vars =
           PersistentSortedMaps.merge(
               s1.vars,
               s2.vars,
               Equivalence.equals(),
               PersistentSortedMaps.getMaximumMergeConflictHandler(),
-              collectDifferences);
+              visitor);
+      varsHashCode = visitor.hashCode;
+      s1Covers = !visitor.rightHasMore;
+      s2Covers = !visitor.leftHasMore;
+    }
+
+    final FreshValueProvider freshValueProvider;
+    if (s1.freshValueProvider == s2.freshValueProvider) {
+      freshValueProvider = s1.freshValueProvider;
+    } else {
       freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
     }
 
-    PersistentSortedMap<String, CType> varTypes =
-        PersistentSortedMaps.merge(
-            s1.varTypes,
-            s2.varTypes,
-            CTypes.canonicalTypeEquivalence(),
-            TYPE_CONFLICT_CHECKER,
-            MapsDifference.ignoreMapsDifference());
+    final PersistentSortedMap<String, CType> varTypes;
+    if (s1.varTypes == s2.varTypes) {
+      varTypes = s1.varTypes;
+    } else {
+      varTypes =
+          PersistentSortedMaps.merge(
+              s1.varTypes,
+              s2.varTypes,
+              CTypes.canonicalTypeEquivalence(),
+              TYPE_CONFLICT_CHECKER,
+              MapsDifference.ignoreMapsDifference());
+    }
+
+    // If one of the maps already contains the merge result, re-use it.
+    // This keeps the maps shared by reference and thus speeds up later merges.
+    // The types were merged above nevertheless, such that conflicting types are detected.
+    if (s1Covers && freshValueProvider.equals(s1.freshValueProvider)) {
+      return s1;
+    }
+    if (s2Covers && freshValueProvider.equals(s2.freshValueProvider)) {
+      return s2;
+    }
+
+    return new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, s1.defaultValue);
+  }
+
+  /**
+   * Visitor for merging two maps of SSA indices with the maximum as conflict resolution that
+   * computes the hash code of the merged map incrementally from the hash code of the left map,
+   * and tracks which of both maps contains additional information.
+   * All differences are forwarded to a delegate visitor.
+   */
+  private static class HashCodeTrackingVisitor implements MapsDifference.Visitor<String, Integer> {
+
+    private final MapsDifference.Visitor<String, Integer> delegate;
+    private int hashCode;
+    private boolean leftHasMore = false;
+    private boolean rightHasMore = false;
+
+    private HashCodeTrackingVisitor(
+        MapsDifference.Visitor<String, Integer> pDelegate, int pLeftHashCode) {
+      delegate = pDelegate;
+      hashCode = pLeftHashCode;
+    }
+
+    @Override
+    public void leftValueOnly(String pKey, Integer pLeftValue) {
+      leftHasMore = true;
+      delegate.leftValueOnly(pKey, pLeftValue);
+    }
+
+    @Override
+    public void rightValueOnly(String pKey, Integer pRightValue) {
+      rightHasMore = true;
+      hashCode += SSAMapBuilder.mapEntryHashCode(pKey, pRightValue);
+      delegate.rightValueOnly(pKey, pRightValue);
+    }
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+    @Override
+    public void differingValues(String pKey, Integer pLeftValue, Integer pRightValue) {
+      if (pRightValue > pLeftValue) {
+        rightHasMore = true;
+        hashCode -= SSAMapBuilder.mapEntryHashCode(pKey, pLeftValue);
+        hashCode += SSAMapBuilder.mapEntryHashCode(pKey, pRightValue);
+      } else {
+        leftHasMore = true;
+      }
+      delegate.differingValues(pKey, pLeftValue, pRightValue);
+    }
   }
 
   private final PersistentSortedMap<String, Integer> vars;
@@ -0,0 +1,278 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Cache for results of unsatisfiability checks that survives the current JVM.
+ *
+ * <p>Queries are identified by the SHA-256 hash of their SMT-LIB dump, so the same query
+ * produced by a later run (e.g., on another revision of the same program) is recognized
+ * without calling the solver. The cache is bounded by a maximal number of entries and evicts
+ * the least-recently used ones.
+ *
+ * <p>There is only one instance per file, which is shared by all {@link Solver}s of this JVM
+ * (cf. {@link #open(Path, int, LogManager)}), because each instance holds all entries of the file
+ * in memory. The file is read when the cache is opened for the first time, and written back by
+ * {@link #release()}. Writing happens into a temporary file that is atomically moved to
+ * the final location, thus concurrent readers always see a complete file. Concurrent writers
+ * are serialized with a lock on a separate lock file and merge their entries with the ones
+ * already stored by others.
+ */
+final class PersistentUnsatCache {
+
+  private static final int MAGIC = 0x43504155; // "CPAU"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+  private static final int KEY_SIZE = 32; // SHA-256
+  private static final int ENTRY_SIZE = KEY_SIZE + 1;
+
+  /** The caches that are currently used by some solver, guarded by the class lock. */
+  private static final Map<Path, PersistentUnsatCache> openCaches = new HashMap<>();
+
+  private final Path file;
+  private final int maxSize;
+  private final LogManager logger;
+
+  /** Map from query hash to result (true <=> UNSAT), in access order for LRU eviction. */
+  private final Map<HashCode, Boolean> cache;
+
+  private boolean modified = false;
+
+  /** Whether the initial content was read, evictions before that are not counted. */
+  private boolean loaded = false;
+
+  /** Number of solvers that use this instance, guarded by the class lock. */
+  private int users = 0;
+
+  // stats, shared by all solvers using this instance
+  int loadedEntries = 0;
+  int evictions = 0;
+
+  private PersistentUnsatCache(Path pFile, int pMaxSize, LogManager pLogger) {
+    checkArgument(pMaxSize > 0, "maximal size of persistent cache needs to be positive");
+    file = pFile;
+    maxSize = pMaxSize;
+    logger = pLogger;
+
+    cache =
+        new LinkedHashMap<HashCode, Boolean>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Entry<HashCode, Boolean> pEldest) {
+            if (size() > maxSize) {
+              if (loaded) {
+                evictions++;
+              }
+              return true;
+            }
+            return false;
+          }
+        };
+
+    if (Files.exists(file)) {
+      try {
+        readInto(file, cache);
+        loadedEntries = cache.size();
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not read persistent solver cache, starting with empty cache");
+        cache.clear();
+      }
+    }
+    loaded = true;
+  }
+
+  /**
+   * Get the cache for the given file, which is read from disk only if no other solver currently
+   * uses it. Each call needs to be matched by a call to {@link #release()}. If the cache is already
+   * open, its maximal size is kept.
+   */
+  static synchronized PersistentUnsatCache open(Path pFile, int pMaxSize, LogManager pLogger) {
+    Path key = pFile.toAbsolutePath().normalize();
+    PersistentUnsatCache result = openCaches.get(key);
+    if (result == null) {
+      result = new PersistentUnsatCache(key, pMaxSize, pLogger);
+      openCaches.put(key, result);
+    } else if (result.maxSize != pMaxSize) {
+      pLogger.logf(
+          Level.INFO,
+          "Persistent solver cache %s is already in use with a maximal size of %d entries",
+          key,
+          result.maxSize);
+    }
+    result.users++;
+    return result;
+  }
+
+  /**
+   * Release the cache for one solver and write it back to disk. After the last solver released
+   * the cache, the entries are dropped from memory and the file is read again when it is opened
+   * the next time.
+   */
+  void release() throws IOException {
+    synchronized (PersistentUnsatCache.class) {
+      if (users == 0) {
+        return; // already released by all solvers, e.g., a solver was closed twice
+      }
+      users--;
+      if (users == 0) {
+        openCaches.remove(file);
+      }
+      // still holding the class lock, such that a re-opened cache sees the stored entries
+      store();
+    }
+  }
+
+  static HashCode computeKey(FormulaManagerView pFmgr, BooleanFormula f) {
+    return Hashing.sha256()
+        .hashString(pFmgr.dumpFormula(f).toString(), StandardCharsets.UTF_8);
+  }
+  /** Return the cached result for a query (true <=> UNSAT), or null if it is unknown. */
+  synchronized @Nullable Boolean get(HashCode key) {
+    return cache.get(key);
+  }
+
+  synchronized void put(HashCode key, boolean isUnsat) {
+    Boolean old = cache.put(key, isUnsat);
+    modified |= old == null || old != isUnsat;
+  }
+
+  synchronized int size() {
+    return cache.size();
+  }
+
+  /**
+   * Write the cache back to disk, merged with entries that other processes have written in the
+   * meantime. Entries of this process take precedence and are considered more recently used.
+   */
+  private synchronized void store() throws IOException {
+    if (!modified) {
+      return;
+    }
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+    try (FileChannel lockChannel =
+            FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.lock()) {
+
+      Map<HashCode, Boolean> merged = new LinkedHashMap<>();
+      if (Files.exists(file)) {
+        try {
+          readInto(file, merged);
+        } catch (IOException e) {
+          logger.logUserException(
+              Level.WARNING, e, "Ignoring unreadable content of persistent solver cache");
+          merged.clear();
+        }
+      }
+      for (Entry<HashCode, Boolean> entry : cache.entrySet()) {
+        merged.remove(entry.getKey()); // re-insert at the end to mark as recently used
+        merged.put(entry.getKey(), entry.getValue());
+      }
+
+      int skip = Math.max(0, merged.size() - maxSize);
+      int count = merged.size() - skip;
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count * ENTRY_SIZE);
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(count);
+      for (Entry<HashCode, Boolean> entry : merged.entrySet()) {
+        if (skip > 0) {
+          skip--;
+          continue;
+        }
+        buffer.put(entry.getKey().asBytes());
+        buffer.put(entry.getValue() ? (byte) 1 : (byte) 0);
+      }
+      buffer.flip();
+
+      Path tmpFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try {
+        try (FileChannel out = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+          while (buffer.hasRemaining()) {
+            out.write(buffer);
+          }
+        }
+        Files.move(
+            tmpFile,
+            file,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+    modified = false;
+  }
+
+  private static void readInto(Path pFile, Map<HashCode, Boolean> pTarget) throws IOException {
+    long fileSize = Files.size(pFile);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(pFile)))) {
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException("Persistent solver cache " + pFile + " is truncated");
+      }
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(
+            "File " + pFile + " is not a persistent solver cache of a compatible version");
+      }
+      int count = in.readInt();
+      if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE != fileSize) {
+        throw new IOException("Persistent solver cache " + pFile + " is corrupted");
+      }
+      byte[] key = new byte[KEY_SIZE];
+      for (int i = 0; i < count; i++) {
+        in.readFully(key);
+        pTarget.put(HashCode.fromBytes(key), in.readByte() != 0);
+      }
+    }
+  }
+}
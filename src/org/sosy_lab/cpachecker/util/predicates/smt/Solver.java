@@ -31,20 +31,28 @@ import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.AbstractMBean;
 import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.UniqueIdGenerator;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.cpachecker.core.AnalysisProgressMonitor;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.SeparateInterpolatingProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingBasicProverEnvironment.UFCheckingProverOptions;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingInterpolatingProverEnvironment;
@@ -96,6 +104,29 @@ public final class Solver implements AutoCloseable {
   description="Extract and cache unsat cores for satisfiability checking")
   private boolean cacheUnsatCores = true;
 
+  @Option(
+    description =
+        "File for a cache of satisfiability results that is kept across runs of CPAchecker."
+            + " Queries are identified by a hash of their SMT-LIB representation,"
+            + " such that repeated analyses of similar programs can skip the solver."
+            + " The file is read when the first solver is created and written when a solver"
+            + " is closed. All solvers of one run share the same cache in memory."
+            + " The path is not relative to the output directory,"
+            + " such that the file can be reused across runs."
+            + " No persistent cache is used if this option is not set."
+  )
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path persistentCacheFile = null;
+
+  @Option(
+    secure = true,
+    description =
+        "Maximal number of entries in the persistent cache of satisfiability results,"
+            + " least-recently used entries are evicted first."
+            + " All entries are kept in memory, each needs roughly 150 bytes."
+  )
+  private int persistentCacheSize = 100000;
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
   private final FormulaManagerView fmgr;
@@ -106,6 +137,8 @@ public final class Solver implements AutoCloseable {
 
   private final Map<BooleanFormula, Boolean> unsatCache = Maps.newHashMap();
 
+  private final @Nullable PersistentUnsatCache persistentUnsatCache;
+
   /**
    * More complex unsat cache, grouped by an arbitrary key.
    *
@@ -123,9 +156,48 @@ public final class Solver implements AutoCloseable {
 
   // stats
   public final Timer solverTime = new Timer();
+  public final Timer persistentCacheTime = new Timer();
   public int satChecks = 0;
   public int trivialSatChecks = 0;
   public int cachedSatChecks = 0;
+  public int persistentlyCachedSatChecks = 0;
+  private int persistentCacheMisses = 0;
+
+  /**
+   * Management interface for observing the statistics of a solver while the analysis is running.
+   * Values are read without synchronization and are thus only approximate.
+   */
+  public interface SolverMXBean {
+    long getSolverTimeMillis();
+
+    int getNumberOfSatChecks();
+
+    int getNumberOfCachedSatChecks();
+  }
+
+  private class SolverMBean extends AbstractMBean implements SolverMXBean {
+    SolverMBean() {
+      super("org.sosy_lab.cpachecker:type=Solver,id=" + mbeanIdGenerator.getFreshId(), logger);
+    }
+
+    @Override
+    public long getSolverTimeMillis() {
+      return solverTime.getSumTime().asMillis();
+    }
+
+    @Override
+    public int getNumberOfSatChecks() {
+      return satChecks;
+    }
+
+    @Override
+    public int getNumberOfCachedSatChecks() {
+      return cachedSatChecks;
+    }
+  }
+
+  private static final UniqueIdGenerator mbeanIdGenerator = new UniqueIdGenerator();
+  private final @Nullable SolverMBean mxbean;
 
   private Solver(SolverContextFactory pSolverFactory, Configuration config, LogManager pLogger)
       throws InvalidConfigurationException {
@@ -159,6 +231,17 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    // opened last, because it needs to be released in close()
+    persistentUnsatCache = createPersistentUnsatCache();
+
+    // Only register the bean if someone reads it, it keeps the solver reachable until close().
+    if (AnalysisProgressMonitor.isEnabled(config)) {
+      mxbean = new SolverMBean();
+      mxbean.register();
+    } else {
+      mxbean = null;
+    }
   }
 
   /**
@@ -204,6 +287,23 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    // opened last, because it needs to be released in close()
+    persistentUnsatCache = createPersistentUnsatCache();
+
+    mxbean = null; // not needed in tests
+  }
+
+  private @Nullable PersistentUnsatCache createPersistentUnsatCache()
+      throws InvalidConfigurationException {
+    if (persistentCacheFile == null) {
+      return null;
+    }
+    if (persistentCacheSize <= 0) {
+      throw new InvalidConfigurationException(
+          "Option solver.persistentCacheSize needs to be positive.");
+    }
+    return PersistentUnsatCache.open(persistentCacheFile, persistentCacheSize, logger);
   }
 
   /**
@@ -335,16 +435,37 @@ public final class Solver implements AutoCloseable {
       return result;
     }
 
+    HashCode persistentKey = null;
+    if (persistentUnsatCache != null) {
+      // dumping and hashing the formula is not counted as solver time
+      persistentCacheTime.start();
+      try {
+        persistentKey = PersistentUnsatCache.computeKey(fmgr, f);
+        result = persistentUnsatCache.get(persistentKey);
+      } finally {
+        persistentCacheTime.stop();
+      }
+      if (result != null) {
+        cachedSatChecks++;
+        persistentlyCachedSatChecks++;
+        unsatCache.put(f, result);
+        return result;
+      }
+      persistentCacheMisses++;
+    }
+
     solverTime.start();
     try {
       result = isUnsatUncached(f);
-
-      unsatCache.put(f, result);
-      return result;
-
     } finally {
       solverTime.stop();
     }
+
+    unsatCache.put(f, result);
+    if (persistentKey != null) {
+      persistentUnsatCache.put(persistentKey, result);
+    }
+    return result;
   }
 
   /**
@@ -487,6 +608,18 @@ public final class Solver implements AutoCloseable {
    */
   @Override
   public void close() {
+    if (mxbean != null) {
+      mxbean.unregister();
+    }
+
+    if (persistentUnsatCache != null) {
+      try {
+        persistentUnsatCache.release();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write persistent solver cache");
+      }
+    }
+
     // Reliably close both formula managers and re-throw exceptions,
     // such that no exception gets lost and both managers get closed.
     // Taken from https://stackoverflow.com/questions/24705055/wrapping-multiple-autocloseables
@@ -513,6 +646,43 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  /**
+   * Return whether a persistent cache of satisfiability results is used
+   * (cf. option solver.persistentCacheFile).
+   */
+  public boolean hasPersistentCache() {
+    return persistentUnsatCache != null;
+  }
+
+  /**
+   * Number of entries in the persistent cache, or 0 if no persistent cache is used.
+   * The cache is shared by all solvers that use the same file.
+   */
+  public int getPersistentCacheSize() {
+    return persistentUnsatCache == null ? 0 : persistentUnsatCache.size();
+  }
+
+  /**
+   * Number of entries that were read from the persistent cache file when it was opened,
+   * or 0 if no persistent cache is used.
+   */
+  public int getPersistentCacheLoadedEntries() {
+    return persistentUnsatCache == null ? 0 : persistentUnsatCache.loadedEntries;
+  }
+
+  /**
+   * Number of entries evicted from the persistent cache during this run,
+   * counted for all solvers that use the same file.
+   */
+  public int getPersistentCacheEvictions() {
+    return persistentUnsatCache == null ? 0 : persistentUnsatCache.evictions;
+  }
+
+  /** Number of lookups of this solver in the persistent cache that missed. */
+  public int getPersistentCacheMisses() {
+    return persistentCacheMisses;
+  }
+
   public String getVersion() {
     return solvingContext.getVersion();
   }
@@ -0,0 +1,17 @@
+int main() {
+  int x = 0;
+  int y = 0;
+  while (1) {
+    x++;
+    y++;
+    if (x != y) {
+      goto ERROR;
+    }
+    if (x > 5) {
+      goto ERROR;
+    }
+  }
+  return 0;
+  ERROR:
+  return 1;
+}
@@ -0,0 +1,15 @@
+int main() {
+  int x = 0;
+  while (1) {
+    x++;
+    if (x == 3) {
+      x = 0;
+    }
+    if (x >= 3) {
+      goto ERROR;
+    }
+  }
+  return 0;
+  ERROR:
+  return 1;
+}